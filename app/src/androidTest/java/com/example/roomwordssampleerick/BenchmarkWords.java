@@ -0,0 +1,46 @@
+package com.example.roomwordssampleerick;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Datos de prueba para los benchmarks: palabras únicas con texto de longitud realista.
+ */
+final class BenchmarkWords {
+
+    //Tamaño de cada transacción al llenar una tabla grande
+    private static final int SEED_CHUNK = 10_000;
+
+    private BenchmarkWords() {
+    }
+
+    static String text(int n) {
+        return String.format(Locale.US, "palabra%07d", n);
+    }
+
+    static List<Word> words(int start, int count) {
+        List<Word> words = new ArrayList<>(count);
+        for (int i = start; i < start + count; i++) {
+            words.add(new Word(text(i)));
+        }
+        return words;
+    }
+
+    /**
+     * Lista con ids asignados, como la que devuelve Room.
+     */
+    static List<Word> wordsWithIds(int start, int count) {
+        List<Word> words = new ArrayList<>(count);
+        for (int i = start; i < start + count; i++) {
+            words.add(new Word(i + 1, text(i)));
+        }
+        return words;
+    }
+
+    static void seed(WordDao dao, int rows) {
+        for (int start = 0; start < rows; start += SEED_CHUNK) {
+            dao.insertAll(words(start, Math.min(SEED_CHUNK, rows - start)));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.roomwordssampleerick;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Benchmarks de escritura del WordDao: una palabra por transacción frente a lotes.
+ * Se usa un archivo real (no una base en memoria) para que cada transacción pague su fsync.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WordDaoBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context mContext;
+    private WordRoomDatabase mDb;
+    private WordDao mWordDao;
+    private int mNext;
+
+    @Before
+    public void createDb() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mContext.deleteDatabase("word_benchmark");
+        mDb = Room.databaseBuilder(mContext, WordRoomDatabase.class, "word_benchmark")
+                .addCallback(WordMigrations.CREATE_TRIGGERS)
+                .build();
+        mWordDao = mDb.wordDao();
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+        mContext.deleteDatabase("word_benchmark");
+    }
+
+    @Test
+    public void insertSingle() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            mWordDao.insert(new Word(BenchmarkWords.text(mNext++)));
+        }
+    }
+
+    @Test
+    public void insertBatchOf100() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            List<Word> batch = BenchmarkWords.words(mNext, BATCH_SIZE);
+            mNext += BATCH_SIZE;
+            state.resumeTiming();
+
+            mWordDao.insertAll(batch);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.roomwordssampleerick;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks del adaptador: costo de enlazar (y medir) una fila,
+ * y de calcular las diferencias entre dos listas después de borrar una palabra,
+ * tanto entre listas de Word como entre instantáneas compactas.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WordListAdapterBenchmark {
+
+    private static final int LIST_SIZE = 1_000;
+    private static final int DIFF_LIST_SIZE = 100_000;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    @UiThreadTest
+    public void bindViewHolder() {
+        WordListAdapter adapter = newAdapter();
+        //Sin medir, los textos encolados para medirse en segundo plano se acumularían
+        adapter.getRenderer().setPrecompute(false);
+        WordRowRenderer.Holder holder =
+                adapter.onCreateViewHolder(new FrameLayout(context()), 0);
+
+        int position = 0;
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            adapter.onBindViewHolder(holder, position);
+            position = (position + 1) % LIST_SIZE;
+        }
+    }
+
+    @Test
+    @UiThreadTest
+    public void bindAndMeasureViewHolder() {
+        WordListAdapter adapter = newAdapter();
+        WordRowRenderer.Holder holder =
+                adapter.onCreateViewHolder(new FrameLayout(context()), 0);
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+
+        int position = 0;
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            adapter.onBindViewHolder(holder, position);
+            holder.itemView.measure(widthSpec, heightSpec);
+            position = (position + 1) % LIST_SIZE;
+        }
+    }
+
+    @Test
+    public void diffAfterSingleDelete() {
+        final List<Word> oldWords = BenchmarkWords.wordsWithIds(0, DIFF_LIST_SIZE);
+        final List<Word> newWords = new ArrayList<>(oldWords);
+        newWords.remove(DIFF_LIST_SIZE / 2);
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            DiffUtil.calculateDiff(new ListCallback(oldWords, newWords));
+        }
+    }
+
+    @Test
+    public void diffSnapshotsAfterSingleDelete() {
+        List<Word> words = BenchmarkWords.wordsWithIds(0, DIFF_LIST_SIZE);
+        final WordSnapshot oldWords = WordSnapshot.of(words);
+        words.remove(DIFF_LIST_SIZE / 2);
+        final WordSnapshot newWords = WordSnapshot.of(words);
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            DiffUtil.calculateDiff(new WordSnapshot.DiffCallback(oldWords, newWords));
+        }
+    }
+
+    private WordListAdapter newAdapter() {
+        WordListAdapter adapter = new WordListAdapter();
+        //La primera lista se aplica de inmediato, sin calcular diferencias
+        adapter.setWords(BenchmarkWords.wordsWithIds(0, LIST_SIZE));
+        return adapter;
+    }
+
+    private static Context context() {
+        return InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+
+    /**
+     * Aplica el DIFF_CALLBACK del adaptador a dos listas, como lo hace AsyncListDiffer.
+     */
+    private static class ListCallback extends DiffUtil.Callback {
+        private final List<Word> mOld;
+        private final List<Word> mNew;
+
+        ListCallback(List<Word> oldWords, List<Word> newWords) {
+            mOld = oldWords;
+            mNew = newWords;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOld.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNew.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return WordListAdapter.DIFF_CALLBACK.areItemsTheSame(
+                    mOld.get(oldPosition), mNew.get(newPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return WordListAdapter.DIFF_CALLBACK.areContentsTheSame(
+                    mOld.get(oldPosition), mNew.get(newPosition));
+        }
+    }
+}
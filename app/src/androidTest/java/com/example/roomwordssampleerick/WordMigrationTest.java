@@ -0,0 +1,209 @@
+package com.example.roomwordssampleerick;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Migraciones desde la versión 2, con palabras repetidas sin distinguir mayúsculas.
+ * Sólo se exportó el esquema de la versión actual, así que la versión 2 se crea con el
+ * SQL que Room generaba entonces y MigrationTestHelper valida el esquema final.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WordMigrationTest {
+
+    private static final String TEST_DB = "word_migration_test";
+
+    //Por id: 1..6. De cada grupo repetido queda el de menor id
+    private static final String[] FIXTURES = {"Ana", "ana", "ANA", "Bruno", "Carla", "bruno"};
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(),
+            WordRoomDatabase.class.getCanonicalName(),
+            new FrameworkSQLiteOpenHelperFactory());
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mContext.deleteDatabase(TEST_DB);
+        createVersion2();
+    }
+
+    @After
+    public void tearDown() {
+        mContext.deleteDatabase(TEST_DB);
+    }
+
+    private void createVersion2() {
+        File path = mContext.getDatabasePath(TEST_DB);
+        path.getParentFile().mkdirs();
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(path, null);
+        try {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `word_table` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `word` TEXT NOT NULL)");
+            for (String word : FIXTURES) {
+                db.execSQL("INSERT INTO word_table (word) VALUES (?)", new Object[]{word});
+            }
+            db.setVersion(2);
+        } finally {
+            db.close();
+        }
+    }
+
+    @Test
+    public void migrateAllAtOnce() {
+        helper.runMigrationsAndValidate(TEST_DB, WordRoomDatabase.VERSION, true,
+                WordMigrations.ALL).close();
+        assertMigratedData();
+    }
+
+    @Test
+    public void migrateOneVersionAtATime() {
+        migrate(WordMigrations.MIGRATION_2_3);
+        assertEquals(3, count("SELECT COUNT(*) FROM word_fts WHERE word_fts MATCH 'ana'"));
+
+        migrate(WordMigrations.MIGRATION_3_4);
+        assertEquals(3, count("SELECT COUNT(*) FROM word_table"));
+        assertEquals(1, count("SELECT id FROM word_table WHERE word = 'ANA'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM word_table WHERE word = 'Ana' COLLATE BINARY"));
+        assertEquals(1, count("SELECT COUNT(*) FROM word_fts WHERE word_fts MATCH 'ana'"));
+
+        migrate(WordMigrations.MIGRATION_4_5);
+        assertEquals(3, count("SELECT COUNT(*) FROM word_section"));
+        assertEquals(3, count("SELECT SUM(count) FROM word_section"));
+
+        migrate(WordMigrations.MIGRATION_5_6);
+        assertEquals(3, count("SELECT COUNT(*) FROM word_table WHERE deleted_at = 0"));
+
+        migrate(WordMigrations.MIGRATION_6_7);
+        assertEquals(3, count("SELECT COUNT(*) FROM word_meta"));
+
+        migrate(WordMigrations.MIGRATION_7_8);
+        assertEquals(3, count("SELECT COUNT(*) FROM word_sync"));
+        assertEquals(3, count("SELECT COUNT(*) FROM word_change"));
+
+        //Ya en la versión final: sólo valida el esquema
+        helper.runMigrationsAndValidate(TEST_DB, WordRoomDatabase.VERSION, true).close();
+        assertMigratedData();
+    }
+
+    //Aplica una migración abriendo y cerrando la base de datos, como una actualización de la app
+    private void migrate(final Migration migration) {
+        SupportSQLiteOpenHelper openHelper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(mContext)
+                        .name(TEST_DB)
+                        .callback(new SupportSQLiteOpenHelper.Callback(migration.endVersion) {
+                            @Override
+                            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                                throw new AssertionError("Database should already exist");
+                            }
+
+                            @Override
+                            public void onUpgrade(@NonNull SupportSQLiteDatabase db,
+                                                  int oldVersion, int newVersion) {
+                                assertEquals(migration.startVersion, oldVersion);
+                                migration.migrate(db);
+                            }
+                        })
+                        .build());
+        try {
+            openHelper.getWritableDatabase();
+        } finally {
+            openHelper.close();
+        }
+    }
+
+    private long count(String sql) {
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(
+                mContext.getDatabasePath(TEST_DB).getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            return DatabaseUtils.longForQuery(db, sql, null);
+        } finally {
+            db.close();
+        }
+    }
+
+    //Abre la base de datos migrada con Room, como la app, y revisa datos y triggers.
+    //Sin room_master_table, Room valida el esquema con el código que genera para las
+    //entidades y guarda su propio hash, así que no depende del hash de 8.json
+    private void assertMigratedData() {
+        SQLiteDatabase raw = SQLiteDatabase.openDatabase(
+                mContext.getDatabasePath(TEST_DB).getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            raw.execSQL("DROP TABLE IF EXISTS room_master_table");
+        } finally {
+            raw.close();
+        }
+        WordRoomDatabase db = Room.databaseBuilder(mContext, WordRoomDatabase.class, TEST_DB)
+                .addCallback(WordMigrations.CREATE_TRIGGERS)
+                .allowMainThreadQueries()
+                .build();
+        try {
+            List<String> words = new ArrayList<>();
+            List<Integer> ids = new ArrayList<>();
+            for (Word word : db.wordDao().getAllWordsList()) {
+                words.add(word.getWord());
+                ids.add(word.getId());
+            }
+            assertEquals(Arrays.asList("Ana", "Bruno", "Carla"), words);
+            assertEquals(Arrays.asList(1, 4, 5), ids);
+
+            List<String> sections = new ArrayList<>();
+            for (WordSection section : db.wordDao().getSections()) {
+                sections.add(section.getSection() + section.getCount());
+            }
+            assertEquals(Arrays.asList("A1", "B1", "C1"), sections);
+
+            SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+            assertEquals(3, count(sqlite, "SELECT COUNT(*) FROM word_meta"));
+            assertEquals(3, count(sqlite, "SELECT COUNT(DISTINCT sync_id) FROM word_sync"));
+            assertEquals(3, count(sqlite, "SELECT COUNT(*) FROM word_change"));
+            assertEquals(1, count(sqlite, "SELECT COUNT(*) FROM sqlite_master "
+                    + "WHERE name = 'room_fts_content_sync_word_fts_AFTER_UPDATE' "
+                    + "AND sql LIKE '%UPDATE OF `word`%'"));
+
+            //El índice único no admite otra forma de una palabra existente
+            assertEquals(-1, db.wordDao().insert(new Word("BRUNO")));
+            assertEquals(1, db.wordDao().searchWords("ana*", 10).size());
+        } finally {
+            db.close();
+        }
+    }
+
+    private static long count(SupportSQLiteDatabase db, String sql) {
+        Cursor cursor = db.query(sql);
+        try {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
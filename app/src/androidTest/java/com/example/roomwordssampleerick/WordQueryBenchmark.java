@@ -0,0 +1,97 @@
+package com.example.roomwordssampleerick;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.room.Room;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Benchmarks de lectura sobre tablas de 1k, 100k y 1M palabras:
+ * la lista completa ordenada frente a una página de la lista paginada por clave,
+ * y las listas de más usadas y recientes, que deben costar lo mismo con cualquier tamaño.
+ */
+@RunWith(Parameterized.class)
+public class WordQueryBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Parameterized.Parameters(name = "rows={0}")
+    public static Collection<Object[]> rows() {
+        return Arrays.asList(new Object[][]{{1_000}, {100_000}, {1_000_000}});
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final int mRows;
+    private WordRoomDatabase mDb;
+    private WordDao mWordDao;
+
+    public WordQueryBenchmark(int rows) {
+        mRows = rows;
+    }
+
+    @Before
+    public void createDb() {
+        mDb = Room.inMemoryDatabaseBuilder(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                WordRoomDatabase.class)
+                .addCallback(WordMigrations.CREATE_TRIGGERS)
+                .build();
+        mWordDao = mDb.wordDao();
+        BenchmarkWords.seed(mWordDao, mRows);
+    }
+
+    @After
+    public void closeDb() {
+        mDb.close();
+    }
+
+    @Test
+    public void getAllWords() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            mWordDao.getAllWordsList();
+        }
+    }
+
+    @Test
+    public void getPageInTheMiddle() {
+        String middle = BenchmarkWords.text(mRows / 2);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            mWordDao.getWordsAfter(middle, 0, PAGE_SIZE);
+        }
+    }
+
+    @Test
+    public void getMostUsed() {
+        WordMetaDao metaDao = mDb.wordMetaDao();
+        for (int id = 1; id <= mRows; id += 97) {
+            metaDao.recordUse(id);
+        }
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            metaDao.getMostUsed(PAGE_SIZE);
+        }
+    }
+
+    @Test
+    public void getRecent() {
+        WordMetaDao metaDao = mDb.wordMetaDao();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            metaDao.getRecent(PAGE_SIZE);
+        }
+    }
+}
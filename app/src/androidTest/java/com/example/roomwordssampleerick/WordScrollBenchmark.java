@@ -0,0 +1,87 @@
+package com.example.roomwordssampleerick;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.View;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmark del desplazamiento por una lista de 100.000 palabras: cada iteración es un
+ * cuadro de un fling, que desplaza ROWS_PER_FRAME filas y crea, enlaza y mide las que
+ * entran. Se compara el texto medido en el hilo principal con el que WordRowRenderer
+ * mide por adelantado en segundo plano.
+ *
+ * Entre cuadros el cronómetro se detiene durante el resto del presupuesto de un cuadro,
+ * como el tiempo libre que el hilo de fondo tiene en un desplazamiento real; un tiempo
+ * por cuadro mayor que FRAME_MS es un cuadro perdido.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WordScrollBenchmark {
+
+    private static final int LIST_SIZE = 100_000;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int ROWS_PER_FRAME = 2;
+    private static final long FRAME_MS = 16;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    @Test
+    @UiThreadTest
+    public void scrollPlainText() {
+        scroll(false);
+    }
+
+    @Test
+    @UiThreadTest
+    public void scrollPrecomputedText() {
+        scroll(true);
+    }
+
+    private void scroll(boolean precompute) {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        WordListAdapter adapter = new WordListAdapter();
+        adapter.getRenderer().setPrecompute(precompute);
+        adapter.setWords(BenchmarkWords.wordsWithIds(0, LIST_SIZE));
+
+        RecyclerView list = new RecyclerView(context);
+        list.setLayoutManager(new LinearLayoutManager(context));
+        list.setHasFixedSize(true);
+        list.setItemViewCacheSize(4);
+        list.setAdapter(adapter);
+        layout(list);
+        int step = list.getChildAt(0).getHeight() * ROWS_PER_FRAME;
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            long start = SystemClock.uptimeMillis();
+            list.scrollBy(0, step);
+
+            state.pauseTiming();
+            if (!list.canScrollVertically(1)) {
+                list.scrollToPosition(0);
+                layout(list);
+            }
+            SystemClock.sleep(Math.max(0, FRAME_MS - (SystemClock.uptimeMillis() - start)));
+            state.resumeTiming();
+        }
+    }
+
+    private static void layout(RecyclerView list) {
+        list.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        list.layout(0, 0, WIDTH, HEIGHT);
+    }
+}
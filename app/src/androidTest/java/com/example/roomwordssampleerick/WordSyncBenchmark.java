@@ -0,0 +1,84 @@
+package com.example.roomwordssampleerick;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Benchmark de la sincronización completa de un lote de cambios: un dispositivo envía
+ * BATCH_SIZE palabras renombradas y otro las recibe, a través de MockWebServer.
+ * Dividir BATCH_SIZE entre el tiempo medido da las filas por segundo.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WordSyncBenchmark {
+
+    private static final int ROWS = 5_000;
+    private static final int BATCH_SIZE = WordSyncEngine.BATCH_SIZE;
+
+    private static final WordDatabaseExecutors sExecutors = new WordDatabaseExecutors(1);
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private MockWebServer mServer;
+    private WordRoomDatabase mPhone;
+    private WordRoomDatabase mTablet;
+    private WordSyncEngine mPhoneSync;
+    private WordSyncEngine mTabletSync;
+    private int mRound;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockWebServer();
+        mServer.setDispatcher(new WordSyncStandInServer());
+        mServer.start();
+        mPhone = WordSyncEngineTest.createDb();
+        mTablet = WordSyncEngineTest.createDb();
+        mPhoneSync = new WordSyncEngine(mPhone, sExecutors, new WordSyncClient(mServer.url("/").url()));
+        mTabletSync = new WordSyncEngine(mTablet, sExecutors, new WordSyncClient(mServer.url("/").url()));
+        BenchmarkWords.seed(mPhone.wordDao(), ROWS);
+        mPhoneSync.sync();
+        mTabletSync.sync();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mPhone.close();
+        mTablet.close();
+        mServer.shutdown();
+    }
+
+    @Test
+    public void pushAndPullOneBatch() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            mPhone.wordDao().updateAll(renamed(mRound++));
+            state.resumeTiming();
+
+            mPhoneSync.sync();
+            mTabletSync.sync();
+        }
+    }
+
+    //Las primeras BATCH_SIZE palabras con un sufijo distinto en cada vuelta
+    private static List<Word> renamed(int round) {
+        List<Word> words = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            words.add(new Word(i + 1, BenchmarkWords.text(i) + "-" + round));
+        }
+        return words;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.roomwordssampleerick;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sincronización de dos bases de datos en memoria, como dos dispositivos,
+ * a través del servidor en memoria de WordSyncStandInServer.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WordSyncEngineTest {
+
+    private static final WordDatabaseExecutors sExecutors = new WordDatabaseExecutors(1);
+
+    private MockWebServer mServer;
+    private WordRoomDatabase mPhone;
+    private WordRoomDatabase mTablet;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.setDispatcher(new WordSyncStandInServer());
+        mServer.start();
+        mPhone = createDb();
+        mTablet = createDb();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mPhone.close();
+        mTablet.close();
+        mServer.shutdown();
+    }
+
+    static WordRoomDatabase createDb() {
+        return Room.inMemoryDatabaseBuilder(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                WordRoomDatabase.class)
+                .addCallback(WordMigrations.CREATE_TRIGGERS)
+                .build();
+    }
+
+    private WordSyncEngine.Result sync(WordRoomDatabase db) throws Exception {
+        return new WordSyncEngine(db, sExecutors, new WordSyncClient(mServer.url("/").url())).sync();
+    }
+
+    @Test
+    public void wordsReplicateWithoutEchoes() throws Exception {
+        mPhone.wordDao().insert(new Word("Lucía"));
+        mPhone.wordDao().insert(new Word("Mateo"));
+
+        assertEquals(2, sync(mPhone).mPushed);
+        assertEquals(2, sync(mTablet).mPulled);
+        assertNotNull(mTablet.wordDao().findWord("Lucía"));
+        //Lo recibido no vuelve a enviarse, y lo enviado no vuelve a aplicarse
+        assertEquals(0, mTablet.wordSyncDao().countPendingChanges());
+        WordSyncEngine.Result again = sync(mPhone);
+        assertEquals(0, again.mPushed);
+        assertEquals(0, again.mPulled);
+    }
+
+    @Test
+    public void renamesAndDeletesReplicate() throws Exception {
+        int id = (int) mPhone.wordDao().insert(new Word("lucia"));
+        int other = (int) mPhone.wordDao().insert(new Word("Mateo"));
+        sync(mPhone);
+        sync(mTablet);
+
+        mPhone.wordDao().update(new Word(id, "Lucía"));
+        mPhone.wordDao().softDelete(other, System.currentTimeMillis());
+        sync(mPhone);
+        sync(mTablet);
+
+        assertEquals("Lucía", mTablet.wordDao().findWord("lucía").getWord());
+        assertNull(mTablet.wordDao().findWord("Mateo"));
+    }
+
+    @Test
+    public void anEditThatMergesWordsSendsTheDelete() throws Exception {
+        int ana = (int) mPhone.wordDao().insert(new Word("Ana"));
+        int bruno = (int) mPhone.wordDao().insert(new Word("Bruno"));
+        sync(mPhone);
+        sync(mTablet);
+        String anaSyncId = mPhone.wordSyncDao().findByWordId(ana).getSyncId();
+
+        //Ana pasa a tener el texto de Bruno: se fusionan y Ana se borra
+        assertEquals(bruno, mPhone.wordDao().upsert(new Word(ana, "bruno")));
+        assertEquals(1, sync(mPhone).mPushed);
+        sync(mTablet);
+
+        assertTrue(((WordSyncStandInServer) mServer.getDispatcher()).get(anaSyncId).mDeleted);
+        assertNull(mTablet.wordDao().findWord("Ana"));
+        assertNotNull(mTablet.wordDao().findWord("Bruno"));
+    }
+
+    @Test
+    public void anEditOnAStaleVersionLoses() throws Exception {
+        int id = (int) mPhone.wordDao().insert(new Word("Ana"));
+        sync(mPhone);
+        sync(mTablet);
+        int tabletId = mTablet.wordDao().findWord("Ana").getId();
+
+        mPhone.wordDao().update(new Word(id, "Anabel"));
+        sync(mPhone);
+        mTablet.wordDao().update(new Word(tabletId, "Anita"));
+        WordSyncEngine.Result result = sync(mTablet);
+
+        assertEquals(1, result.mConflicts);
+        assertEquals("Anabel", mTablet.wordDao().getWordById(tabletId).getWord());
+        assertEquals(0, mTablet.wordSyncDao().countPendingChanges());
+    }
+
+    @Test
+    public void theSameWordCreatedTwiceIsMerged() throws Exception {
+        mPhone.wordDao().insert(new Word("Carla"));
+        mTablet.wordDao().insert(new Word("carla"));
+        sync(mPhone);
+        sync(mTablet);
+        sync(mPhone);
+
+        assertEquals(1, mTablet.wordDao().getAllWordsList().size());
+        assertEquals(1, ((WordSyncStandInServer) mServer.getDispatcher()).size());
+    }
+}
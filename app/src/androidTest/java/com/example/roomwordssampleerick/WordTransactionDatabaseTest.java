@@ -0,0 +1,205 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unidades de trabajo aplicadas sobre una base de datos en memoria, con los triggers
+ * de la app: SAVEPOINT, ROLLBACK TO y RELEASE en SQLite de verdad. Las consultas de Room
+ * corren en el mismo hilo, así que las invalidaciones se cuentan al terminar commit().
+ */
+@RunWith(AndroidJUnit4.class)
+public class WordTransactionDatabaseTest {
+
+    private static final long DELETED_AT = 1000;
+
+    private WordRoomDatabase mDb;
+    private int mAnaId;
+    private int mInvalidations;
+
+    @Before
+    public void setUp() {
+        mDb = Room.inMemoryDatabaseBuilder(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                WordRoomDatabase.class)
+                .addCallback(WordMigrations.CREATE_TRIGGERS)
+                .setQueryExecutor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        command.run();
+                    }
+                })
+                .build();
+        mAnaId = (int) mDb.wordDao().insert(new Word("Ana"));
+        mDb.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("word_table") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                mInvalidations++;
+            }
+        });
+        mInvalidations = 0;
+    }
+
+    @After
+    public void tearDown() {
+        mDb.close();
+    }
+
+    //Como WordWriteCoalescer: la unidad dentro de la transacción del lote
+    private int commit(final WordTransaction transaction) {
+        final int[] applied = new int[1];
+        mDb.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                applied[0] = transaction.apply(mDb, DELETED_AT);
+            }
+        });
+        transaction.onCommitted();
+        return applied[0];
+    }
+
+    private List<String> words() {
+        List<String> words = new ArrayList<>();
+        for (Word word : mDb.wordDao().getAllWordsList()) {
+            words.add(word.getWord());
+        }
+        return words;
+    }
+
+    private List<String> sections() {
+        List<String> sections = new ArrayList<>();
+        for (WordSection section : mDb.wordDao().getSections()) {
+            sections.add(section.getSection() + section.getCount());
+        }
+        return sections;
+    }
+
+    @Test
+    public void failedBlockIsRolledBackAndTheRestIsKept() {
+        WordTransaction transaction = new WordTransaction();
+        transaction.insert(new Word("Bruno"));
+        int failed = transaction.savepoint(new WordTransaction.Block() {
+            @Override
+            public void stage(WordTransaction block) {
+                block.insert(new Word("Carla"));
+                //Ya existe: el bloque entero se revierte, también "Carla"
+                block.insert(new Word("ana"));
+            }
+        });
+        int kept = transaction.savepoint(new WordTransaction.Block() {
+            @Override
+            public void stage(WordTransaction block) {
+                block.insert(new Word("Beatriz"));
+                block.delete(new Word(mAnaId, "Ana"));
+            }
+        });
+
+        assertEquals(3, commit(transaction));
+        assertEquals(Arrays.asList("Beatriz", "Bruno"), words());
+        assertEquals(Arrays.asList("B2"), sections());
+        assertTrue(transaction.getBlock(failed).isRolledBack());
+        assertEquals(-1, transaction.getBlock(failed).getId(0));
+        assertFalse(transaction.getBlock(kept).isRolledBack());
+        assertEquals(mAnaId, transaction.getBlock(kept).getId(1));
+        assertEquals(1, mInvalidations);
+    }
+
+    @Test
+    public void nestedBlockRollsBackWithoutItsParent() {
+        WordTransaction transaction = new WordTransaction();
+        final int[] inner = new int[1];
+        int outer = transaction.savepoint(new WordTransaction.Block() {
+            @Override
+            public void stage(WordTransaction block) {
+                block.insert(new Word("Carla"));
+                inner[0] = block.savepoint(new WordTransaction.Block() {
+                    @Override
+                    public void stage(WordTransaction nested) {
+                        nested.insert(new Word("Diego"));
+                        //No existe: revierte "Diego", pero no "Carla" ni "Elena"
+                        nested.delete(new Word(999, "nadie"));
+                    }
+                });
+                block.insert(new Word("Elena"));
+            }
+        });
+
+        assertEquals(2, commit(transaction));
+        assertEquals(Arrays.asList("Ana", "Carla", "Elena"), words());
+        assertEquals(Arrays.asList("A1", "C1", "E1"), sections());
+        WordTransaction block = transaction.getBlock(outer);
+        assertFalse(block.isRolledBack());
+        assertTrue(block.getBlock(inner[0]).isRolledBack());
+        assertTrue(block.getId(0) > 0);
+        assertEquals(1, mInvalidations);
+    }
+
+    @Test
+    public void nestedBlocksCommitTogether() {
+        WordTransaction transaction = new WordTransaction();
+        transaction.deleteAll();
+        transaction.savepoint(new WordTransaction.Block() {
+            @Override
+            public void stage(WordTransaction block) {
+                block.insert(new Word("Bruno"));
+                block.savepoint(new WordTransaction.Block() {
+                    @Override
+                    public void stage(WordTransaction nested) {
+                        //Recupera la fila borrada por deleteAll()
+                        nested.insert(new Word("ANA"));
+                    }
+                });
+            }
+        });
+
+        assertEquals(3, commit(transaction));
+        assertEquals(Arrays.asList("ANA", "Bruno"), words());
+        assertEquals(Arrays.asList("A1", "B1"), sections());
+        assertEquals(1, mInvalidations);
+    }
+
+    @Test
+    public void failedUnitLeavesNothingBehind() {
+        final WordTransaction transaction = new WordTransaction();
+        transaction.insert(new Word("Bruno"));
+        transaction.savepoint(new WordTransaction.Block() {
+            @Override
+            public void stage(WordTransaction block) {
+                block.delete(new Word(mAnaId, "Ana"));
+            }
+        });
+        try {
+            mDb.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    transaction.apply(mDb, DELETED_AT);
+                    throw new IllegalStateException("Batch failed");
+                }
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+            transaction.rollBack();
+        }
+
+        assertEquals(Arrays.asList("Ana"), words());
+        assertEquals(Arrays.asList("A1"), sections());
+        assertTrue(transaction.isRolledBack());
+        assertEquals(0, mInvalidations);
+    }
+}
@@ -1,16 +1,23 @@
 package com.example.roomwordssampleerick;
 
+import android.content.DialogInterface;
 import android.content.Intent;
+import android.graphics.Typeface;
+import android.net.Uri;
 import android.os.Bundle;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.appcompat.widget.Toolbar;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProviders;
+import androidx.paging.PagedList;
+import androidx.recyclerview.widget.ConcatAdapter;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -19,8 +26,15 @@ import android.view.View;
 
 import android.view.Menu;
 import android.view.MenuItem;
+import android.widget.HorizontalScrollView;
+import android.widget.ScrollView;
+import android.widget.TextView;
 import android.widget.Toast;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -32,18 +46,46 @@ import java.util.List;
  * a través del menú Opciones.
  * Cada vez que se agrega, elimina o actualiza una nueva palabra, el RecyclerView
  * mostrar la lista de palabras se actualiza automáticamente.
+ * Los cambios se ven en el mismo cuadro: el WordViewModel los publica en un WordOverlay
+ * antes de escribirlos. Los borrados son lógicos y se pueden deshacer desde un Snackbar,
+ * tanto el de una palabra como el de todas.
+ * En un arranque en frío se muestra primero la lista guardada en el último uso
+ * (WordSnapshotFile), sólo para leer, hasta que la lista paginada tiene su primera página.
  */
 
 public class MainActivity extends AppCompatActivity {
 
     public static final int NEW_WORD_ACTIVITY_REQUEST_CODE = 1;
     public static final int UPDATE_WORD_ACTIVITY_REQUEST_CODE = 2;
+    public static final int IMPORT_WORDS_REQUEST_CODE = 3;
+    public static final int EXPORT_WORDS_REQUEST_CODE = 4;
 
     public static final String EXTRA_DATA_UPDATE_WORD = "extra_word_to_be_updated";
     public static final String EXTRA_DATA_ID = "extra_data_id";
 
+    //Filas fuera de la pantalla que se conservan enlazadas (RecyclerView conserva 2)
+    private static final int ITEM_VIEW_CACHE_SIZE = 4;
+    //Filas que se crean por adelantado: algo más de una pantalla
+    private static final int PREWARMED_ROWS = 16;
+
     private WordViewModel mWordViewModel;
 
+    private RecyclerView mRecyclerView;
+    //Lista completa paginada y resultados de búsqueda; sólo uno está en el RecyclerView
+    private WordPagedListAdapter mAdapter;
+    private WordListAdapter mSearchAdapter;
+    //Palabras insertadas que aún no están en la lista paginada, mostradas antes que ella
+    private WordListAdapter mPendingAdapter;
+    private ConcatAdapter mListAdapter;
+    //Lista del último uso, en el RecyclerView sólo hasta que llega la primera página
+    private WordListAdapter mColdStartAdapter;
+    //Cuenta los cuadros perdidos mientras la actividad está visible
+    private WordFrameMonitor mFrameMonitor;
+    //Letras para saltar a una sección, y la letra a la que se saltó y falta desplazarse
+    private WordSectionBar mSectionBar;
+    private WordSectionIndex mSections = WordSectionIndex.EMPTY;
+    private String mJumpLabel;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -54,19 +96,129 @@ public class MainActivity extends AppCompatActivity {
 
         //Configuración para el recyclerview
         RecyclerView recyclerView = findViewById(R.id.recyclerview);
-        final WordListAdapter adapter = new WordListAdapter(this);
-        recyclerView.setAdapter(adapter);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        mRecyclerView = recyclerView;
+        final WordPagedListAdapter adapter = new WordPagedListAdapter();
+        mAdapter = adapter;
+        mSearchAdapter = new WordListAdapter();
+        mPendingAdapter = new WordListAdapter();
+        mColdStartAdapter = new WordListAdapter();
+        //Todas las filas son iguales (WordRowRenderer), así que comparten el tipo de vista
+        mListAdapter = new ConcatAdapter(new ConcatAdapter.Config.Builder()
+                .setIsolateViewTypes(false)
+                .setStableIdMode(ConcatAdapter.Config.StableIdMode.ISOLATED_STABLE_IDS)
+                .build(), mPendingAdapter, adapter);
+        recyclerView.setAdapter(mListAdapter);
+        final LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        //El tamaño de la lista no depende de su contenido
+        recyclerView.setHasFixedSize(true);
+        //Filas recién salidas de la pantalla que vuelven sin enlazarse otra vez
+        recyclerView.setItemViewCacheSize(ITEM_VIEW_CACHE_SIZE);
+        //Filas creadas de antemano, mientras el hilo principal está ocioso
+        WordRowRenderer.prewarm(recyclerView, PREWARMED_ROWS);
+        mSectionBar = findViewById(R.id.section_bar);
+        mFrameMonitor = new WordFrameMonitor(getWindowManager().getDefaultDisplay().getRefreshRate());
 
         //Configuración para el WordViewModel
         mWordViewModel = ViewModelProviders.of(this).get(WordViewModel.class);
-        //Se obtienen todas las words de la BD
+        //Se obtienen las words de la BD página por página
         //y se asocian al adaptador
-        mWordViewModel.getAllWords().observe(this, new Observer<List<Word>>() {
+        mWordViewModel.getPagedWords().observe(this, new Observer<PagedList<Word>>() {
+            @Override
+            public void onChanged(@Nullable final PagedList<Word> words) {
+                //Entrega la nueva lista paginada; el adaptador calcula las diferencias.
+                //Cuando ya se muestra, el overlay deja de aplicar los cambios que incluye
+                adapter.submitList(words, new Runnable() {
+                    @Override
+                    public void run() {
+                        replaceColdStartList();
+                        mWordViewModel.onListShown(words);
+                        scrollToJumpLabel(words);
+                    }
+                });
+                if (words != null && WordStartupMetrics.onFirstListShown()) {
+                    reportFullyDrawn();
+                }
+            }
+        });
+        //La lista guardada se muestra si llega antes que la primera página
+        mWordViewModel.getColdStartWords().observe(this, new Observer<WordSnapshot>() {
+            @Override
+            public void onChanged(WordSnapshot words) {
+                if (words.size() == 0 || mAdapter.getCurrentList() != null
+                        || mRecyclerView.getAdapter() != mListAdapter) {
+                    return;
+                }
+                mColdStartAdapter.setSnapshot(words);
+                mRecyclerView.swapAdapter(mColdStartAdapter, true);
+                if (WordStartupMetrics.onFirstListShown()) {
+                    reportFullyDrawn();
+                }
+            }
+        });
+        //Los resultados de búsqueda reemplazan a la lista completa mientras haya una búsqueda
+        mWordViewModel.getSearchResults().observe(this, new Observer<List<Word>>() {
             @Override
             public void onChanged(@Nullable final List<Word> words) {
-                //Actualiza la copia almacenada en caché de las palabras del adaptador.
-                adapter.setWords(words);
+                mSearchAdapter.setWords(words);
+                RecyclerView.Adapter<?> shown = words != null ? mSearchAdapter : mListAdapter;
+                if (mRecyclerView.getAdapter() != shown) {
+                    //Las filas vuelven al grupo compartido en lugar de descartarse
+                    mRecyclerView.swapAdapter(shown, true);
+                }
+                mSectionBar.setVisibility(words != null ? View.GONE : View.VISIBLE);
+            }
+        });
+
+        //Saltar a una letra: si toda la lista está cargada basta con desplazarse;
+        //si no, se arma una lista nueva a partir de esa letra sin cargar las filas intermedias
+        mWordViewModel.getSections().observe(this, new Observer<WordSectionIndex>() {
+            @Override
+            public void onChanged(WordSectionIndex sections) {
+                mSections = sections;
+                mSectionBar.setSections(sections);
+            }
+        });
+        mSectionBar.setOnSectionSelectedListener(new WordSectionBar.OnSectionSelectedListener() {
+            @Override
+            public void onSectionSelected(int section) {
+                PagedList<Word> words = mAdapter.getCurrentList();
+                if (words != null && words.size() == mSections.getWordCount()) {
+                    layoutManager.scrollToPositionWithOffset(
+                            mPendingAdapter.getItemCount() + mSections.getOffset(section), 0);
+                } else {
+                    mJumpLabel = mSections.getLabel(section);
+                    mWordViewModel.jumpToSection(mJumpLabel);
+                }
+            }
+        });
+        //Resalta la letra de la primera palabra visible
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                RecyclerView.ViewHolder first = recyclerView.findViewHolderForAdapterPosition(
+                        layoutManager.findFirstVisibleItemPosition());
+                Word word = first != null ? wordFor(first) : null;
+                if (word != null) {
+                    mSectionBar.setCurrentSection(mSections.sectionOf(word.getWord()));
+                }
+            }
+        });
+        mWordViewModel.getOverlay().observe(this, new Observer<WordOverlay>() {
+            @Override
+            public void onChanged(WordOverlay overlay) {
+                mAdapter.setOverlay(overlay);
+                mPendingAdapter.setWords(overlay.pendingInserts());
+            }
+        });
+        //Un cambio que se revirtió porque no se pudo escribir
+        mWordViewModel.getMessage().observe(this, new Observer<Integer>() {
+            @Override
+            public void onChanged(@Nullable Integer message) {
+                if (message != null) {
+                    Toast.makeText(MainActivity.this, message, Toast.LENGTH_LONG).show();
+                    mWordViewModel.onMessageShown();
+                }
             }
         });
 
@@ -94,36 +246,155 @@ public class MainActivity extends AppCompatActivity {
                     }
 
                     @Override
-                    //Cuando se desliza una palabra,
-                    //se elimina esa palabra de la base de datos
+                    //Las palabras que aún no se terminan de insertar no se pueden borrar
+                    public int getSwipeDirs(RecyclerView recyclerView,
+                                            RecyclerView.ViewHolder viewHolder) {
+                        if (wordFor(viewHolder) == null) {
+                            return 0;
+                        }
+                        return super.getSwipeDirs(recyclerView, viewHolder);
+                    }
+
+                    @Override
+                    //Cuando se desliza una palabra, se oculta de inmediato
+                    //y se elimina de la base de datos si no se deshace
                     public void onSwiped(RecyclerView.ViewHolder viewHolder, int direction) {
-                        int position = viewHolder.getAdapterPosition();
-                        Word myWord = adapter.getWordAtPosition(position);
-                        Toast.makeText(MainActivity.this,
-                                getString(R.string.delete_word_preamble) + " " +
-                                        myWord.getWord(), Toast.LENGTH_LONG).show();
+                        final Word myWord = wordFor(viewHolder);
+                        if (myWord == null) {
+                            return;
+                        }
+                        //Se vuelve a crear la fila, que quedó fuera de la pantalla al deslizarla
+                        RecyclerView.Adapter<?> owner = viewHolder.getBindingAdapter();
+                        if (owner != null) {
+                            owner.notifyItemChanged(viewHolder.getBindingAdapterPosition());
+                        }
 
                         //Borrar la palabra
                         mWordViewModel.deleteWord(myWord);
+                        Snackbar.make(mRecyclerView,
+                                getString(R.string.delete_word_preamble) + " " + myWord.getWord(),
+                                Snackbar.LENGTH_LONG)
+                                .setAction(R.string.undo, new View.OnClickListener() {
+                                    @Override
+                                    public void onClick(View view) {
+                                        mWordViewModel.undoDelete(myWord);
+                                    }
+                                })
+                                .show();
                     }
                 });
         //Se conecta el elemento táctil auxiliar a la vista de reciclador
         helper.attachToRecyclerView(recyclerView);
 
-        adapter.setOnItemClickListener(new WordListAdapter.ClickListener()  {
+        WordListAdapter.ClickListener clickListener = new WordListAdapter.ClickListener()  {
 
             @Override
             public void onItemClick(View v, int position) {
-                Word word = adapter.getWordAtPosition(position);
-                launchUpdateWordActivity(word);
+                RecyclerView.ViewHolder holder = mRecyclerView.findContainingViewHolder(v);
+                Word word = holder != null ? wordFor(holder) : null;
+                if (word != null) {
+                    mWordViewModel.recordUse(word);
+                    launchUpdateWordActivity(word);
+                }
             }
-        });
+        };
+        adapter.setOnItemClickListener(clickListener);
+        mSearchAdapter.setOnItemClickListener(clickListener);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mFrameMonitor.start();
+    }
+
+    @Override
+    protected void onPause() {
+        mFrameMonitor.stop();
+        super.onPause();
+    }
+
+    /**
+     * Cambia la lista guardada por la paginada, en la misma posición si esa fila ya
+     * está cargada. Las dos empiezan por la primera palabra, así que las posiciones coinciden.
+     */
+    private void replaceColdStartList() {
+        if (mRecyclerView.getAdapter() == mColdStartAdapter) {
+            LinearLayoutManager layoutManager =
+                    (LinearLayoutManager) mRecyclerView.getLayoutManager();
+            int first = layoutManager.findFirstVisibleItemPosition();
+            View firstRow = layoutManager.findViewByPosition(first);
+            int offset = firstRow != null ? firstRow.getTop() : 0;
+            mRecyclerView.swapAdapter(mListAdapter, true);
+            if (first != RecyclerView.NO_POSITION && first < mAdapter.getItemCount()) {
+                layoutManager.scrollToPositionWithOffset(
+                        mPendingAdapter.getItemCount() + first, offset);
+            }
+        }
+        mColdStartAdapter.setSnapshot(WordSnapshot.EMPTY);
+    }
+
+    /**
+     * Después de saltar a una letra, la nueva lista empieza media página antes de ella;
+     * se desplaza hasta la primera palabra con esa letra.
+     */
+    private void scrollToJumpLabel(@Nullable PagedList<Word> words) {
+        if (mJumpLabel == null || words == null) {
+            return;
+        }
+        String label = mJumpLabel;
+        mJumpLabel = null;
+        for (int i = 0; i < words.size(); i++) {
+            Word word = words.get(i);
+            if (word != null && label.equals(WordSectionIndex.labelOf(word.getWord()))) {
+                ((LinearLayoutManager) mRecyclerView.getLayoutManager())
+                        .scrollToPositionWithOffset(mPendingAdapter.getItemCount() + i, 0);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Obtiene la palabra que muestra una fila, o null si la fila no tiene
+     * una palabra guardada (aún no cargada o pendiente de insertar).
+     */
+    @Nullable
+    private Word wordFor(RecyclerView.ViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        if (position == RecyclerView.NO_POSITION) {
+            return null;
+        }
+        RecyclerView.Adapter<?> owner = holder.getBindingAdapter();
+        if (owner == mSearchAdapter) {
+            return mSearchAdapter.getWordAtPosition(position);
+        }
+        if (owner == mAdapter) {
+            return mAdapter.getWordAtPosition(position);
+        }
+        return null;
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         //Inflar el menú; esto agrega elementos a la barra de acciones si está presente
         getMenuInflater().inflate(R.menu.menu_main, menu);
+
+        //Búsqueda mientras se escribe; el ViewModel espera a que el usuario deje de escribir
+        SearchView searchView = (SearchView) menu.findItem(R.id.search).getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                mWordViewModel.setSearchQuery(query);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                mWordViewModel.setSearchQuery(newText);
+                return true;
+            }
+        });
         return true;
     }
 
@@ -138,16 +409,170 @@ public class MainActivity extends AppCompatActivity {
 
         //noinspection SimplifiableIfStatement
         if (id == R.id.clear_data) {
-            //Toast de confirmación
-            Toast.makeText(this, R.string.clear_data_toast_text, Toast.LENGTH_LONG).show();
-
-            //Borrar los datos existentes
+            //Borrar los datos existentes; el borrado es lógico y se puede deshacer
             mWordViewModel.deleteAll();
+            Snackbar.make(mRecyclerView, R.string.clear_data_toast_text, Snackbar.LENGTH_LONG)
+                    .setAction(R.string.undo, new View.OnClickListener() {
+                        @Override
+                        public void onClick(View view) {
+                            mWordViewModel.undoDeleteAll();
+                        }
+                    })
+                    .show();
+            return true;
+        }
+        if (id == R.id.show_metrics) {
+            showMetrics();
+            return true;
+        }
+        //Importar y exportar usan el selector de documentos del sistema
+        if (id == R.id.import_words) {
+            Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType("text/*");
+            startActivityForResult(intent, IMPORT_WORDS_REQUEST_CODE);
+            return true;
+        }
+        if (id == R.id.export_words) {
+            Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType("text/plain");
+            intent.putExtra(Intent.EXTRA_TITLE, "words.txt");
+            startActivityForResult(intent, EXPORT_WORDS_REQUEST_CODE);
             return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
+    /**
+     * Pantalla de métricas: muestra latencias, contadores, caché y estado de SQLite,
+     * y permite guardarlos en un archivo.
+     */
+    private void showMetrics() {
+        mWordViewModel.collectMetrics(new WordDatabaseExecutors.Callback<String>() {
+            @Override
+            public void onSuccess(final String metrics) {
+                TextView text = new TextView(MainActivity.this);
+                text.setTypeface(Typeface.MONOSPACE);
+                text.setTextIsSelectable(true);
+                text.setText(metrics);
+                int padding = getResources().getDimensionPixelSize(R.dimen.fab_margin);
+                text.setPadding(padding, padding, padding, padding);
+                HorizontalScrollView wide = new HorizontalScrollView(MainActivity.this);
+                wide.addView(text);
+                ScrollView scroll = new ScrollView(MainActivity.this);
+                scroll.addView(wide);
+
+                new AlertDialog.Builder(MainActivity.this)
+                        .setTitle(R.string.metrics)
+                        .setView(scroll)
+                        .setPositiveButton(R.string.save_metrics,
+                                new DialogInterface.OnClickListener() {
+                                    @Override
+                                    public void onClick(DialogInterface dialog, int which) {
+                                        saveMetrics(metrics);
+                                    }
+                                })
+                        .setNegativeButton(android.R.string.ok, null)
+                        .show();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                Toast.makeText(MainActivity.this, R.string.metrics_failed,
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private void saveMetrics(String metrics) {
+        mWordViewModel.saveMetrics(metrics, new WordDatabaseExecutors.Callback<File>() {
+            @Override
+            public void onSuccess(File file) {
+                Toast.makeText(MainActivity.this,
+                        getString(R.string.metrics_saved, file.getAbsolutePath()),
+                        Toast.LENGTH_LONG).show();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                Toast.makeText(MainActivity.this, R.string.metrics_failed,
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    /**
+     * Importa las palabras del documento elegido, mostrando el avance
+     * en un Snackbar que permite cancelar.
+     */
+    private void importWords(Uri uri) {
+        InputStream in;
+        try {
+            in = getContentResolver().openInputStream(uri);
+        } catch (FileNotFoundException e) {
+            Toast.makeText(this, R.string.import_failed, Toast.LENGTH_LONG).show();
+            return;
+        }
+        final Snackbar progress = Snackbar.make(mRecyclerView,
+                R.string.import_started, Snackbar.LENGTH_INDEFINITE);
+        progress.setAction(R.string.cancel, new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                //Los bloques ya importados se conservan
+                mWordViewModel.cancelTransfer();
+                Toast.makeText(MainActivity.this, R.string.import_cancelled,
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+        progress.show();
+
+        mWordViewModel.importWords(in, new WordImporter.ProgressListener() {
+            @Override
+            public void onProgress(long wordsRead, long wordsAdded) {
+                progress.setText(getString(R.string.import_progress, wordsRead, wordsAdded));
+            }
+        }, new WordDatabaseExecutors.Callback<WordImporter.Result>() {
+            @Override
+            public void onSuccess(WordImporter.Result result) {
+                progress.dismiss();
+                Toast.makeText(MainActivity.this,
+                        getString(R.string.import_done, result.mWordsAdded),
+                        Toast.LENGTH_LONG).show();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                progress.dismiss();
+                Toast.makeText(MainActivity.this, R.string.import_failed,
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private void exportWords(Uri uri) {
+        OutputStream out;
+        try {
+            out = getContentResolver().openOutputStream(uri);
+        } catch (FileNotFoundException e) {
+            Toast.makeText(this, R.string.export_failed, Toast.LENGTH_LONG).show();
+            return;
+        }
+        mWordViewModel.exportWords(out, new WordDatabaseExecutors.Callback<Long>() {
+            @Override
+            public void onSuccess(Long written) {
+                Toast.makeText(MainActivity.this, getString(R.string.export_done, written),
+                        Toast.LENGTH_LONG).show();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                Toast.makeText(MainActivity.this, R.string.export_failed,
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
     /**
      * Cuando el usuario escribe una nueva palabra en el NewWordActivity,
      * esa actividad devuelve el resultado a esta actividad.
@@ -161,16 +586,28 @@ public class MainActivity extends AppCompatActivity {
     public void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
 
+        if (requestCode == IMPORT_WORDS_REQUEST_CODE || requestCode == EXPORT_WORDS_REQUEST_CODE) {
+            if (resultCode == RESULT_OK && data != null && data.getData() != null) {
+                if (requestCode == IMPORT_WORDS_REQUEST_CODE) {
+                    importWords(data.getData());
+                } else {
+                    exportWords(data.getData());
+                }
+            }
+            return;
+        }
+
         if (requestCode == NEW_WORD_ACTIVITY_REQUEST_CODE && resultCode == RESULT_OK) {
             Word word = new Word(data.getStringExtra(NewWordActivity.EXTRA_REPLY));
-            //Guardar la info
+            //Guardar la info; si la palabra ya existe, el ViewModel la retira y avisa
             mWordViewModel.insert(word);
         } else if (requestCode == UPDATE_WORD_ACTIVITY_REQUEST_CODE
                 && resultCode == RESULT_OK) {
-            String word_data = data.getStringExtra(NewWordActivity.EXTRA_REPLY);
-            int id = data.getIntExtra(NewWordActivity.EXTRA_REPLY_ID, -1);
+            final String word_data = data.getStringExtra(NewWordActivity.EXTRA_REPLY);
+            final int id = data.getIntExtra(NewWordActivity.EXTRA_REPLY_ID, -1);
 
             if (id != -1) {
+                //Si el texto no cambió, el ViewModel no escribe nada
                 mWordViewModel.update(new Word(id, word_data));
             } else {
                 Toast.makeText(this, R.string.unable_to_update,
@@ -0,0 +1,48 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Una etiqueta que se puede asignar a varias palabras (ver WordTag).
+ * Como las palabras, el nombre es único sin distinguir mayúsculas.
+ */
+
+@Entity(tableName = "tag", indices = {@Index(value = {"name"}, unique = true)})
+public class Tag {
+
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "id")
+    private int mId;
+
+    @NonNull
+    @ColumnInfo(name = "name", collate = ColumnInfo.NOCASE)
+    private String mName;
+
+    public Tag(@NonNull String name) {
+        this.mName = name;
+    }
+
+    @Ignore
+    public Tag(int id, @NonNull String name) {
+        this.mId = id;
+        this.mName = name;
+    }
+
+    public int getId() {
+        return this.mId;
+    }
+
+    public void setId(int id) {
+        this.mId = id;
+    }
+
+    @NonNull
+    public String getName() {
+        return this.mName;
+    }
+}
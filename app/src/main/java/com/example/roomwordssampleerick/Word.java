@@ -4,23 +4,35 @@ import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /**
  * Entidad representada en una clase
  * Una palabra en una BD
+ * El texto es único sin distinguir mayúsculas: la columna usa COLLATE NOCASE
+ * y el índice único sirve también para ordenar la lista y paginarla por clave.
+ *
+ * Los borrados son lógicos: deleted_at guarda cuándo se borró la palabra y WordCompactor
+ * quita la fila más tarde. Las consultas de la lista filtran deleted_at = 0 con el índice
+ * (deleted_at, word), que también les sirve para ordenar.
  */
 
-@Entity(tableName = "word_table")
+@Entity(tableName = "word_table", indices = {@Index(value = {"word"}, unique = true),
+        @Index(value = {"deleted_at", "word"})})
 public class Word {
 
     @PrimaryKey(autoGenerate = true)
     private int id;
 
     @NonNull
-    @ColumnInfo(name = "word")
+    @ColumnInfo(name = "word", collate = ColumnInfo.NOCASE)
     private String mWord;
 
+    //Momento del borrado en System.currentTimeMillis(); 0 si la palabra no está borrada
+    @ColumnInfo(name = "deleted_at", defaultValue = "0")
+    private long mDeletedAt;
+
     public Word(@NonNull String word) {
         this.mWord = word;
     }
@@ -45,4 +57,16 @@ public class Word {
     public void setId(int id) {
         this.id = id;
     }
+
+    public long getDeletedAt() {
+        return mDeletedAt;
+    }
+
+    public void setDeletedAt(long deletedAt) {
+        this.mDeletedAt = deletedAt;
+    }
+
+    public boolean isDeleted() {
+        return mDeletedAt != 0;
+    }
 }
\ No newline at end of file
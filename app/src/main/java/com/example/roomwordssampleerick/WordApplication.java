@@ -0,0 +1,19 @@
+package com.example.roomwordssampleerick;
+
+import android.app.Application;
+
+/**
+ * Aplicación. Empieza a abrir la base de datos en segundo plano apenas inicia el proceso,
+ * para que esté lista cuando MainActivity pida la primera página, y programa su mantenimiento.
+ */
+
+public class WordApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        WordStartupMetrics.onProcessStart();
+        WordRoomDatabase.warmUp(this);
+        WordRoomDatabase.scheduleMaintenance(this);
+    }
+}
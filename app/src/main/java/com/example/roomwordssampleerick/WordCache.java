@@ -0,0 +1,152 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché LRU en memoria de palabras, por id y por texto.
+ * El tamaño se mide en bytes aproximados, así que las palabras largas ocupan más lugar.
+ * También recuerda los textos que no existen, para que comprobar duplicados
+ * antes de insertar no tenga que consultar SQLite otra vez.
+ *
+ * Se vacía completa cuando cambia word_table. Para que una lectura que empezó antes
+ * de un cambio no guarde datos viejos, cada lectura toma la generación actual con
+ * generation() y sólo guarda su resultado si la generación no cambió.
+ */
+
+class WordCache {
+
+    //Marca de "este texto no existe" en la caché por texto
+    private static final Word MISSING = new Word(0, "");
+
+    //Costo aproximado de una entrada: objeto, referencia, entrada del mapa y el texto
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final LruCache<Integer, Word> mById;
+    private final LruCache<String, Word> mByText;
+    private final AtomicLong mGeneration = new AtomicLong();
+    private final AtomicLong mInvalidations = new AtomicLong();
+
+    WordCache(int maxBytes) {
+        mById = new LruCache<Integer, Word>(maxBytes / 2) {
+            @Override
+            protected int sizeOf(@NonNull Integer id, @NonNull Word word) {
+                return sizeOfWord(word);
+            }
+        };
+        mByText = new LruCache<String, Word>(maxBytes / 2) {
+            @Override
+            protected int sizeOf(@NonNull String text, @NonNull Word word) {
+                return ENTRY_OVERHEAD_BYTES + 2 * text.length();
+            }
+        };
+    }
+
+    long generation() {
+        return mGeneration.get();
+    }
+
+    @Nullable
+    Word getById(int id) {
+        return mById.get(id);
+    }
+
+    /**
+     * @return la palabra, MISSING si se sabe que no existe, o null si no está en la caché
+     */
+    @Nullable
+    Word getByText(String text) {
+        return mByText.get(key(text));
+    }
+
+    static boolean isMissing(@Nullable Word word) {
+        return word == MISSING;
+    }
+
+    /**
+     * Guarda el resultado de una lectura hecha en la generación indicada.
+     * Si word es null, se recuerda que el texto no existe.
+     */
+    void put(long generation, String text, @Nullable Word word) {
+        synchronized (this) {
+            if (generation != mGeneration.get()) {
+                return;
+            }
+            if (word == null) {
+                mByText.put(key(text), MISSING);
+            } else {
+                mById.put(word.getId(), word);
+                mByText.put(key(word.getWord()), word);
+            }
+        }
+    }
+
+    void put(long generation, @NonNull Word word) {
+        put(generation, word.getWord(), word);
+    }
+
+    /**
+     * Descarta todo el contenido; lo llama el InvalidationTracker cuando cambia word_table.
+     */
+    void invalidate() {
+        synchronized (this) {
+            mGeneration.incrementAndGet();
+            mInvalidations.incrementAndGet();
+            mById.evictAll();
+            mByText.evictAll();
+        }
+    }
+
+    long hitCount() {
+        return mById.hitCount() + mByText.hitCount();
+    }
+
+    long missCount() {
+        return mById.missCount() + mByText.missCount();
+    }
+
+    long evictionCount() {
+        return mById.evictionCount() + mByText.evictionCount();
+    }
+
+    long invalidationCount() {
+        return mInvalidations.get();
+    }
+
+    int sizeBytes() {
+        return mById.size() + mByText.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "WordCache[hits=%d, misses=%d, evictions=%d, invalidations=%d, bytes=%d]",
+                hitCount(), missCount(), evictionCount(), invalidationCount(), sizeBytes());
+    }
+
+    private static int sizeOfWord(Word word) {
+        return ENTRY_OVERHEAD_BYTES + 2 * word.getWord().length();
+    }
+
+    /**
+     * COLLATE NOCASE de SQLite sólo iguala mayúsculas y minúsculas ASCII,
+     * así que la clave hace exactamente lo mismo.
+     */
+    static String key(String text) {
+        StringBuilder key = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                if (key == null) {
+                    key = new StringBuilder(text);
+                }
+                key.setCharAt(i, (char) (c + ('a' - 'A')));
+            }
+        }
+        return key != null ? key.toString() : text;
+    }
+}
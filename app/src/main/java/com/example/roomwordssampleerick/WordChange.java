@@ -0,0 +1,71 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Cambio local pendiente de enviar al servidor. Los triggers de
+ * WordMigrations.createSyncTriggers agregan una fila al insertar una palabra,
+ * cambiar su texto o borrarla y recuperarla; las filas se borran cuando el
+ * servidor responde al envío.
+ *
+ * Cada fila guarda el estado completo de la palabra, así el cambio se puede enviar
+ * aunque la palabra ya se haya purgado, y base_version, la versión del servidor
+ * sobre la que se hizo: si el servidor ya tiene otra, el cambio es un conflicto.
+ */
+
+@Entity(tableName = "word_change", indices = {@Index("sync_id")})
+public class WordChange {
+
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "seq")
+    private long mSeq;
+
+    @NonNull
+    @ColumnInfo(name = "sync_id")
+    private String mSyncId;
+
+    @NonNull
+    @ColumnInfo(name = "word")
+    private String mWord;
+
+    @ColumnInfo(name = "deleted")
+    private boolean mDeleted;
+
+    @ColumnInfo(name = "base_version")
+    private long mBaseVersion;
+
+    public WordChange(long seq, @NonNull String syncId, @NonNull String word, boolean deleted,
+                      long baseVersion) {
+        this.mSeq = seq;
+        this.mSyncId = syncId;
+        this.mWord = word;
+        this.mDeleted = deleted;
+        this.mBaseVersion = baseVersion;
+    }
+
+    public long getSeq() {
+        return this.mSeq;
+    }
+
+    @NonNull
+    public String getSyncId() {
+        return this.mSyncId;
+    }
+
+    @NonNull
+    public String getWord() {
+        return this.mWord;
+    }
+
+    public boolean isDeleted() {
+        return this.mDeleted;
+    }
+
+    public long getBaseVersion() {
+        return this.mBaseVersion;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.roomwordssampleerick;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quita de word_table las palabras borradas lógicamente y devuelve el espacio libre.
+ *
+ * Una palabra borrada se conserva GRACE_MS para poder deshacer el borrado; después se
+ * purga en bloques de CHUNK_ROWS filas, cada uno en su propia transacción y como
+ * escritura en segundo plano, así las escrituras del usuario se intercalan entre bloques.
+ * Al terminar se ejecuta PRAGMA incremental_vacuum, también por partes.
+ *
+ * El trabajo corre en el hilo de trabajos de WordDatabaseExecutors; cuando quedan
+ * palabras borradas más recientes, la purga se vuelve a programar para cuando venzan.
+ */
+
+class WordCompactor {
+
+    private static final String TAG = "WordCompactor";
+
+    //Tiempo que se conserva una palabra borrada; debe superar la ventana para deshacer
+    static final long GRACE_MS = 30000;
+
+    private static final int CHUNK_ROWS = 500;
+    private static final int VACUUM_PAGES = 256;
+    //PRAGMA auto_vacuum: 2 es INCREMENTAL
+    private static final long AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final WordRoomDatabase mDb;
+    private final WordDao mWordDao;
+    private final WordDatabaseExecutors mExecutors;
+
+    private ScheduledFuture<?> mScheduled;
+
+    private final Runnable mStart = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (WordCompactor.this) {
+                mScheduled = null;
+            }
+            mExecutors.executeJob(new Callable<Void>() {
+                @Override
+                public Void call() throws InterruptedException {
+                    compact();
+                    return null;
+                }
+            }, null);
+        }
+    };
+
+    WordCompactor(WordRoomDatabase db) {
+        mDb = db;
+        mWordDao = db.wordDao();
+        mExecutors = db.getExecutors();
+    }
+
+    /**
+     * Programa una purga para dentro de delayMs. Si ya hay una programada antes, se conserva.
+     */
+    synchronized void schedule(long delayMs) {
+        if (mScheduled != null) {
+            if (mScheduled.getDelay(TimeUnit.MILLISECONDS) <= delayMs) {
+                return;
+            }
+            mScheduled.cancel(false);
+        }
+        mScheduled = mExecutors.scheduler().schedule(mStart, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Programa la purga de una palabra borrada ahora, para cuando venza su plazo.
+     */
+    void scheduleAfterDelete() {
+        schedule(GRACE_MS);
+    }
+
+    private void compact() throws InterruptedException {
+        long cutoff = System.currentTimeMillis() - GRACE_MS;
+        long purged = 0;
+        int chunk;
+        do {
+            chunk = await(purgeChunk(cutoff));
+            purged += chunk;
+        } while (chunk == CHUNK_ROWS);
+
+        if (purged > 0) {
+            WordMetrics.PURGED_ROWS.addAndGet(purged);
+            int pages;
+            do {
+                pages = await(vacuumStep());
+                WordMetrics.VACUUMED_PAGES.addAndGet(pages);
+            } while (pages == VACUUM_PAGES);
+        }
+
+        Long oldest = mWordDao.getOldestDeletedAt();
+        if (oldest != null) {
+            schedule(Math.max(0, oldest + GRACE_MS - System.currentTimeMillis()));
+        }
+    }
+
+    private Future<Integer> purgeChunk(final long cutoff) {
+        return mExecutors.executeWrite(WordDatabaseExecutors.PRIORITY_BACKGROUND,
+                new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        long start = System.nanoTime();
+                        int purged = mWordDao.purgeDeleted(cutoff, CHUNK_ROWS);
+                        WordMetrics.recordSince(WordMetrics.PURGE_CHUNK, start);
+                        return purged;
+                    }
+                }, null);
+    }
+
+    /**
+     * Devuelve al sistema de archivos hasta VACUUM_PAGES páginas libres; devuelve cuántas.
+     * Una base de datos creada antes de activar auto_vacuum necesita un VACUUM completo
+     * para convertirse, que sólo se hace una vez y si hay mucho espacio libre.
+     */
+    private Future<Integer> vacuumStep() {
+        return mExecutors.executeWrite(WordDatabaseExecutors.PRIORITY_BACKGROUND,
+                new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        SupportSQLiteDatabase db = mDb.getOpenHelper().getWritableDatabase();
+                        long free = WordDatabaseStats.longPragma(db, "freelist_count");
+                        if (free <= 0) {
+                            return 0;
+                        }
+                        long autoVacuum = WordDatabaseStats.longPragma(db, "auto_vacuum");
+                        if (autoVacuum != AUTO_VACUUM_INCREMENTAL) {
+                            if (free * 4 >= WordDatabaseStats.longPragma(db, "page_count")) {
+                                db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+                                db.execSQL("VACUUM");
+                            }
+                            //Después del VACUUM no quedan páginas libres; si no se hizo, se espera
+                            return 0;
+                        }
+                        //incremental_vacuum libera una página por cada paso de la sentencia,
+                        //así que hay que recorrer el cursor completo
+                        Cursor cursor = db.query("PRAGMA incremental_vacuum(" + VACUUM_PAGES + ")");
+                        try {
+                            cursor.getCount();
+                        } finally {
+                            cursor.close();
+                        }
+                        return (int) (free - WordDatabaseStats.longPragma(db, "freelist_count"));
+                    }
+                }, null);
+    }
+
+    private static int await(Future<Integer> step) throws InterruptedException {
+        try {
+            return step.get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Compaction step failed", e.getCause());
+            return 0;
+        }
+    }
+}
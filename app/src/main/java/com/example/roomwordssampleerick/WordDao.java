@@ -1,39 +1,222 @@
 package com.example.roomwordssampleerick;
 
+import android.database.Cursor;
+
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
-import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import java.util.List;
 
+import io.reactivex.Flowable;
+
 /**
  * Objeto de acceso a datos (DAO) para una palabra.
  * Cada método realiza una operación de base de datos, como insertar o eliminar una palabra,
  * ejecutar una consulta de base de datos o eliminar todas las palabras.
+ * Es una clase abstracta para poder declarar operaciones compuestas con @Transaction.
+ *
+ * Los borrados son lógicos (ver Word): las consultas de lectura sólo devuelven filas con
+ * deleted_at = 0 y purgeDeleted() quita las filas borradas en bloques pequeños.
  */
 
 @Dao
-public interface WordDao {
+public abstract class WordDao {
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    public abstract long insert(Word word);
 
+    //Inserta varias palabras en una sola transacción; devuelve los ids generados
     @Insert(onConflict = OnConflictStrategy.IGNORE)
-    void insert(Word word);
+    public abstract List<Long> insertAll(List<Word> words);
+
+    /**
+     * Como insertAll(), pero una palabra cuyo texto sólo existe en una fila borrada
+     * recupera esa fila con el texto nuevo en lugar de ignorarse.
+     * @return el id de cada palabra insertada o recuperada; -1 si ya existía
+     */
+    @Transaction
+    public List<Long> insertOrRevive(List<Word> words) {
+        List<Long> ids = insertAll(words);
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == -1) {
+                ids.set(i, revive(words.get(i)));
+            }
+        }
+        return ids;
+    }
+
+    //Recupera la fila borrada que tiene el texto de la palabra; -1 si no hay ninguna
+    private long revive(Word word) {
+        Word existing = findAnyWord(word.getWord());
+        if (existing == null || !existing.isDeleted()) {
+            return -1;
+        }
+        restoreWith(existing.getId(), word.getWord());
+        return existing.getId();
+    }
+
+    @Query("UPDATE word_table SET word = :word, deleted_at = 0 WHERE id = :id")
+    abstract void restoreWith(int id, String word);
+
+    /**
+     * Borra lógicamente una palabra; la fila queda hasta que la purga la quite.
+     * @return 1 si se borró, 0 si no existía o ya estaba borrada
+     */
+    @Query("UPDATE word_table SET deleted_at = :deletedAt WHERE id = :id AND deleted_at = 0")
+    public abstract int softDelete(int id, long deletedAt);
+
+    //Borra lógicamente todas las palabras; deletedAt identifica el borrado para deshacerlo
+    @Query("UPDATE word_table SET deleted_at = :deletedAt WHERE deleted_at = 0")
+    public abstract int softDeleteAll(long deletedAt);
+
+    @Query("UPDATE word_table SET deleted_at = 0 WHERE id = :id AND deleted_at != 0")
+    public abstract int restore(int id);
+
+    //Deshace un borrado completo: recupera las palabras borradas con ese deletedAt
+    @Query("UPDATE word_table SET deleted_at = 0 WHERE deleted_at = :deletedAt")
+    public abstract int restoreDeleted(long deletedAt);
+
+    /**
+     * Quita físicamente hasta limit palabras borradas antes de before; devuelve cuántas.
+     * Cada llamada es una transacción corta, así que no retiene al escritor.
+     */
+    @Query("DELETE FROM word_table WHERE id IN (SELECT id FROM word_table "
+            + "WHERE deleted_at > 0 AND deleted_at <= :before LIMIT :limit)")
+    public abstract int purgeDeleted(long before, int limit);
+
+    //Momento del borrado más antiguo que aún no se purgó; null si no hay palabras borradas
+    @Query("SELECT MIN(deleted_at) from word_table WHERE deleted_at > 0")
+    public abstract Long getOldestDeletedAt();
+
+    @Query("SELECT * from word_table WHERE deleted_at = 0 LIMIT 1")
+    public abstract Word[] getAnyWord();
+
+    @Query("SELECT * from word_table WHERE deleted_at = 0 ORDER BY word ASC")
+    public abstract LiveData<List<Word>> getAllWords();
 
-    @Query("DELETE FROM word_table")
-    void deleteAll();
+    //Misma consulta que getAllWords(), pero síncrona; debe llamarse fuera del hilo principal
+    @Query("SELECT * from word_table WHERE deleted_at = 0 ORDER BY word ASC")
+    public abstract List<Word> getAllWordsList();
 
-    @Delete
-    void deleteWord(Word word);
+    //Recorre todas las palabras en orden sin cargarlas en una lista; quien llama cierra el cursor
+    @Query("SELECT id, word from word_table WHERE deleted_at = 0 ORDER BY word ASC")
+    public abstract Cursor getWordsCursor();
 
-    @Query("SELECT * from word_table LIMIT 1")
-    Word[] getAnyWord();
+    /*
+     * Consultas para la paginación por clave (keyset) sobre (word, id).
+     * Se usa la forma expandida de la comparación en lugar de (word, id) > (:word, :id)
+     * porque los row values sólo existen a partir de SQLite 3.15 (API 26).
+     */
 
-    @Query("SELECT * from word_table ORDER BY word ASC")
-    LiveData<List<Word>> getAllWords();
+    @Query("SELECT * from word_table WHERE deleted_at = 0 ORDER BY word ASC, id ASC LIMIT :limit")
+    public abstract List<Word> getWordsPage(int limit);
+
+    @Query("SELECT * from word_table WHERE deleted_at = 0 "
+            + "AND (word > :word OR (word = :word AND id >= :id)) "
+            + "ORDER BY word ASC, id ASC LIMIT :limit")
+    public abstract List<Word> getWordsFrom(String word, int id, int limit);
+
+    @Query("SELECT * from word_table WHERE deleted_at = 0 "
+            + "AND (word > :word OR (word = :word AND id > :id)) "
+            + "ORDER BY word ASC, id ASC LIMIT :limit")
+    public abstract List<Word> getWordsAfter(String word, int id, int limit);
+
+    @Query("SELECT * from word_table WHERE deleted_at = 0 "
+            + "AND (word < :word OR (word = :word AND id < :id)) "
+            + "ORDER BY word DESC, id DESC LIMIT :limit")
+    public abstract List<Word> getWordsBefore(String word, int id, int limit);
+
+    /**
+     * Busca palabras con una consulta MATCH de FTS4 (ver WordSearch.toMatchQuery).
+     * word_fts sigue indexando las palabras borradas hasta la purga; el JOIN las descarta.
+     */
+    @Query("SELECT word_table.* from word_table JOIN word_fts ON word_table.id = word_fts.rowid "
+            + "WHERE word_fts MATCH :query AND word_table.deleted_at = 0 "
+            + "ORDER BY word_table.word ASC LIMIT :limit")
+    public abstract List<Word> searchWords(String query, int limit);
 
     @Update
-    void update(Word... word);
+    public abstract void update(Word... word);
+
+    @Update
+    public abstract void updateAll(List<Word> words);
+
+    /**
+     * Cambia sólo el texto, y sólo si la palabra no está borrada: una palabra borrada
+     * mientras se editaba no se recupera.
+     * @return el número de filas actualizadas; 0 si no existe, está borrada o si el texto
+     * ya lo usa otra palabra
+     */
+    @Query("UPDATE OR IGNORE word_table SET word = :word WHERE id = :id AND deleted_at = 0")
+    public abstract int updateOrIgnore(int id, String word);
+
+    /**
+     * Secciones de la lista en el mismo orden que las palabras; la tabla tiene
+     * a lo sumo una fila por letra.
+     */
+    @Query("SELECT * from word_section ORDER BY section COLLATE NOCASE ASC")
+    public abstract List<WordSection> getSections();
+
+    //Como getSections(), pero emite otra vez cada vez que cambia word_section
+    @Query("SELECT * from word_section ORDER BY section COLLATE NOCASE ASC")
+    public abstract Flowable<List<WordSection>> observeSections();
+
+    @Query("SELECT * from word_table WHERE id = :id AND deleted_at = 0")
+    public abstract Word getWordById(int id);
+
+    @Query("SELECT * from word_table WHERE word = :word AND deleted_at = 0 LIMIT 1")
+    public abstract Word findWord(String word);
+
+    //Como findWord(), pero también encuentra la fila si está borrada: el índice único la incluye
+    @Query("SELECT * from word_table WHERE word = :word LIMIT 1")
+    abstract Word findAnyWord(String word);
+
+    @Query("DELETE FROM word_table WHERE id = :id")
+    public abstract void deleteById(int id);
+
+    /**
+     * Inserta o actualiza una palabra respetando que el texto es único (sin distinguir mayúsculas).
+     * <ul>
+     * <li>Sin id: se inserta; si el texto ya existe no se cambia nada.</li>
+     * <li>Con id: se actualiza el texto; si otra palabra ya tiene ese texto, ambas se
+     * fusionan y se conserva la existente; la editada se borra lógicamente, así su
+     * borrado llega al servidor como cualquier otro. Si el id no existe o está
+     * borrado, se inserta como una palabra nueva.</li>
+     * </ul>
+     * Una palabra borrada que aún ocupa el texto no cuenta: al editar se purga,
+     * y al insertar se recupera.
+     * @return el id de la fila que contiene el texto
+     */
+    @Transaction
+    public long upsert(Word word) {
+        if (word.getId() != 0) {
+            if (updateOrIgnore(word.getId(), word.getWord()) > 0) {
+                return word.getId();
+            }
+            Word existing = findAnyWord(word.getWord());
+            if (existing != null && existing.isDeleted() && existing.getId() != word.getId()) {
+                deleteById(existing.getId());
+                if (updateOrIgnore(word.getId(), word.getWord()) > 0) {
+                    return word.getId();
+                }
+            } else if (existing != null && existing.getId() != word.getId()
+                    && getWordById(word.getId()) != null) {
+                softDelete(word.getId(), System.currentTimeMillis());
+                return existing.getId();
+            }
+            //El id no existe o está borrado: su fila no se toca
+            word = new Word(word.getWord());
+        }
+        long id = insert(word);
+        if (id != -1) {
+            return id;
+        }
+        id = revive(word);
+        return id != -1 ? id : findWord(word.getWord()).getId();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.example.roomwordssampleerick;
+
+/**
+ * Parámetros de SQLite para la base de datos de palabras.
+ * La base de datos usa write-ahead logging, así que las lecturas de la interfaz
+ * nunca esperan a las escrituras en segundo plano.
+ */
+
+final class WordDatabaseConfig {
+
+    /**
+     * Valores por defecto. El grupo de conexiones WAL del framework tiene 4 conexiones
+     * en la mayoría de los dispositivos: una para el escritor y el resto para los lectores.
+     */
+    static final WordDatabaseConfig DEFAULT = new WordDatabaseConfig(
+            3, "NORMAL", 8 * 1024, 64L * 1024 * 1024, 1000, 4L * 1024 * 1024, 1);
+
+    //Hilos del grupo de lectores (y conexiones de lectura que se usan a la vez)
+    final int readerThreads;
+    //PRAGMA synchronous; NORMAL es seguro con WAL y evita un fsync por transacción
+    final String synchronous;
+    //PRAGMA cache_size en KiB por conexión
+    final int cacheSizeKb;
+    //PRAGMA mmap_size en bytes; 0 lo desactiva
+    final long mmapSizeBytes;
+    //Páginas en el WAL antes de un checkpoint automático
+    final int walAutoCheckpointPages;
+    //Tamaño al que se trunca el WAL después de un checkpoint
+    final long journalSizeLimitBytes;
+    //Archivos entre los que se reparten las palabras (ver WordShards); 1 es una sola base
+    //de datos. No debe cambiar una vez creadas, porque cada palabra vive en el de su hash
+    final int shardCount;
+
+    WordDatabaseConfig(int readerThreads, String synchronous, int cacheSizeKb,
+                       long mmapSizeBytes, int walAutoCheckpointPages,
+                       long journalSizeLimitBytes, int shardCount) {
+        this.readerThreads = readerThreads;
+        this.synchronous = synchronous;
+        this.cacheSizeKb = cacheSizeKb;
+        this.mmapSizeBytes = mmapSizeBytes;
+        this.walAutoCheckpointPages = walAutoCheckpointPages;
+        this.journalSizeLimitBytes = journalSizeLimitBytes;
+        this.shardCount = shardCount;
+    }
+}
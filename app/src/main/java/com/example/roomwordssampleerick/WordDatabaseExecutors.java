@@ -0,0 +1,228 @@
+package com.example.roomwordssampleerick;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ejecutores de la base de datos de palabras.
+ * Hay un único hilo escritor, de modo que las escrituras nunca compiten entre sí,
+ * un grupo pequeño de lectores que Room usa para sus consultas,
+ * un hilo para trabajos largos (importar y exportar) que no debe ocupar a los lectores,
+ * y un hilo de temporización para las tareas diferidas.
+ *
+ * Las escrituras del usuario (PRIORITY_USER) se adelantan a las de segundo plano
+ * (PRIORITY_BACKGROUND), como las importaciones. Las escrituras en segundo plano
+ * ocupan un lugar de una cola acotada y bloquean a quien las envía cuando está llena.
+ */
+
+class WordDatabaseExecutors {
+
+    static final int PRIORITY_USER = 0;
+    static final int PRIORITY_BACKGROUND = 1;
+
+    private static final int MAX_QUEUED_BACKGROUND_WRITES = 64;
+
+    /**
+     * Recibe el resultado de una tarea en el hilo principal.
+     */
+    interface Callback<T> {
+        void onSuccess(T result);
+
+        void onError(Throwable error);
+    }
+
+    private final ThreadPoolExecutor mWriter;
+    private final ExecutorService mReaders;
+    private final ExecutorService mJobs;
+    private final ScheduledExecutorService mScheduler;
+    private final Semaphore mBackgroundSlots = new Semaphore(MAX_QUEUED_BACKGROUND_WRITES);
+    private final AtomicLong mSequence = new AtomicLong();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    //Room ejecuta sus transacciones en el escritor con prioridad de usuario
+    private final Executor mTransactionExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            executeWrite(PRIORITY_USER, Executors.callable(command), null);
+        }
+    };
+
+    WordDatabaseExecutors(int readerThreads) {
+        mWriter = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), namedThreads("word-db-writer"));
+        mReaders = Executors.newFixedThreadPool(readerThreads, namedThreads("word-db-reader"));
+        mJobs = Executors.newSingleThreadExecutor(namedThreads("word-db-job"));
+        mScheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("word-db-scheduler"));
+    }
+
+    /**
+     * Encola una escritura en el hilo escritor.
+     * Si la prioridad es PRIORITY_BACKGROUND y la cola está llena, bloquea hasta que haya lugar,
+     * así que nunca debe llamarse así desde el hilo principal.
+     *
+     * @param callback opcional; se llama en el hilo principal al terminar
+     * @return un Future para esperar o cancelar la escritura
+     */
+    <T> Future<T> executeWrite(int priority, Callable<T> task, @Nullable Callback<T> callback) {
+        boolean holdsSlot = false;
+        if (priority == PRIORITY_BACKGROUND) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                throw new IllegalStateException("Background writes may block; "
+                        + "submit them from a worker thread");
+            }
+            try {
+                mBackgroundSlots.acquire();
+                holdsSlot = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for a write slot", e);
+            }
+        }
+        WriteTask<T> writeTask =
+                new WriteTask<>(task, priority, mSequence.getAndIncrement(), holdsSlot, callback);
+        mWriter.execute(writeTask);
+        return writeTask;
+    }
+
+    /**
+     * Ejecuta una lectura en el grupo de lectores.
+     */
+    <T> Future<T> executeRead(Callable<T> task, @Nullable Callback<T> callback) {
+        CallbackTask<T> readTask = new CallbackTask<>(task, callback);
+        mReaders.execute(readTask);
+        return readTask;
+    }
+
+    /**
+     * Ejecuta un trabajo largo en su propio hilo. El trabajo puede enviar escrituras
+     * en segundo plano (y bloquearse esperando lugar en la cola) o esperar sus Future.
+     * Cancelar el Future con interrupción detiene el trabajo en el siguiente punto de control.
+     */
+    <T> Future<T> executeJob(Callable<T> task, @Nullable Callback<T> callback) {
+        CallbackTask<T> job = new CallbackTask<>(task, callback);
+        mJobs.execute(job);
+        return job;
+    }
+
+    /**
+     * Ejecutor de consultas que se entrega a Room (LiveData, InvalidationTracker)
+     * y a la lista paginada.
+     */
+    Executor readers() {
+        return mReaders;
+    }
+
+    Executor transactionExecutor() {
+        return mTransactionExecutor;
+    }
+
+    /**
+     * Hilo de temporización para tareas diferidas; las tareas deben ser breves
+     * y enviar el trabajo real al escritor o a los lectores.
+     */
+    ScheduledExecutorService scheduler() {
+        return mScheduler;
+    }
+
+    private static ThreadFactory namedThreads(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                return new Thread(runnable, name + "-" + count.incrementAndGet());
+            }
+        };
+    }
+
+    /**
+     * Tarea que entrega su resultado a un Callback en el hilo principal.
+     */
+    private class CallbackTask<T> extends FutureTask<T> {
+
+        private final Callback<T> mCallback;
+
+        CallbackTask(Callable<T> task, @Nullable Callback<T> callback) {
+            super(task);
+            mCallback = callback;
+        }
+
+        @Override
+        protected void done() {
+            if (mCallback == null || isCancelled()) {
+                return;
+            }
+            try {
+                final T result = get();
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mCallback.onSuccess(result);
+                    }
+                });
+            } catch (final ExecutionException e) {
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mCallback.onError(e.getCause());
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Escritura ordenada por prioridad y, dentro de la misma prioridad, por orden de llegada.
+     */
+    private class WriteTask<T> extends CallbackTask<T> implements Comparable<WriteTask<?>> {
+
+        private final int mPriority;
+        private final long mSequence;
+        private final boolean mHoldsSlot;
+
+        WriteTask(Callable<T> task, int priority, long sequence, boolean holdsSlot,
+                  @Nullable Callback<T> callback) {
+            super(task, callback);
+            mPriority = priority;
+            mSequence = sequence;
+            mHoldsSlot = holdsSlot;
+        }
+
+        @Override
+        protected void done() {
+            if (mHoldsSlot) {
+                mBackgroundSlots.release();
+            }
+            super.done();
+        }
+
+        @Override
+        public int compareTo(WriteTask<?> other) {
+            if (mPriority != other.mPriority) {
+                return mPriority < other.mPriority ? -1 : 1;
+            }
+            return Long.compare(mSequence, other.mSequence);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.roomwordssampleerick;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDebug;
+
+import androidx.annotation.WorkerThread;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.Locale;
+
+/**
+ * Fotografía del estado de SQLite para la base de datos de palabras:
+ * tamaño del archivo, páginas libres, configuración efectiva de los PRAGMA,
+ * y las estadísticas del caché de sentencias preparadas que lleva el framework.
+ */
+
+final class WordDatabaseStats {
+
+    final long pageSize;
+    final long pageCount;
+    final long freelistCount;
+    final long cacheSize;
+    final long mmapSize;
+    final String journalMode;
+    //"aciertos/fallos/tamaño" del caché de sentencias de cada conexión abierta
+    final String statementCache;
+
+    private WordDatabaseStats(long pageSize, long pageCount, long freelistCount, long cacheSize,
+                              long mmapSize, String journalMode, String statementCache) {
+        this.pageSize = pageSize;
+        this.pageCount = pageCount;
+        this.freelistCount = freelistCount;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.journalMode = journalMode;
+        this.statementCache = statementCache;
+    }
+
+    @WorkerThread
+    static WordDatabaseStats collect(SupportSQLiteDatabase db, String name) {
+        return new WordDatabaseStats(
+                longPragma(db, "page_size"),
+                longPragma(db, "page_count"),
+                longPragma(db, "freelist_count"),
+                longPragma(db, "cache_size"),
+                longPragma(db, "mmap_size"),
+                stringPragma(db, "journal_mode"),
+                statementCacheStats(name));
+    }
+
+    static long longPragma(SupportSQLiteDatabase db, String pragma) {
+        Cursor cursor = db.query("PRAGMA " + pragma);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static String stringPragma(SupportSQLiteDatabase db, String pragma) {
+        Cursor cursor = db.query("PRAGMA " + pragma);
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : "";
+        } finally {
+            cursor.close();
+        }
+    }
+
+    //dbName es la ruta del archivo, con " (n)" al final en las conexiones secundarias;
+    //se compara el nombre completo para no mezclar "word_database" con "word_database_1"
+    private static String statementCacheStats(String name) {
+        StringBuilder stats = new StringBuilder();
+        for (SQLiteDebug.DbStats db : SQLiteDebug.getDatabaseInfo().dbStats) {
+            if (db.dbName != null && (db.dbName.endsWith("/" + name)
+                    || db.dbName.contains("/" + name + " ("))) {
+                if (stats.length() > 0) {
+                    stats.append(", ");
+                }
+                stats.append(db.cache);
+            }
+        }
+        return stats.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "journal=%s pages=%d x %dB free=%d cache_size=%d mmap=%dB statements=[%s]",
+                journalMode, pageCount, pageSize, freelistCount, cacheSize, mmapSize,
+                statementCache);
+    }
+}
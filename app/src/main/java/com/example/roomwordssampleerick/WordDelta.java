@@ -0,0 +1,38 @@
+package com.example.roomwordssampleerick;
+
+/**
+ * Estado de una palabra tal como viaja entre el dispositivo y el servidor.
+ * Al enviar, version es la versión sobre la que se hizo el cambio; en las respuestas
+ * del servidor es la versión que el servidor le asignó.
+ */
+
+final class WordDelta {
+
+    final String mSyncId;
+    final String mWord;
+    final boolean mDeleted;
+    final long mVersion;
+
+    WordDelta(String syncId, String word, boolean deleted, long version) {
+        mSyncId = syncId;
+        mWord = word;
+        mDeleted = deleted;
+        mVersion = version;
+    }
+
+    static WordDelta of(WordChange change) {
+        return new WordDelta(change.getSyncId(), change.getWord(), change.isDeleted(),
+                change.getBaseVersion());
+    }
+
+    //Mismo contenido, sin comparar versiones; el texto distingue mayúsculas
+    boolean sameStateAs(WordDelta other) {
+        return mSyncId.equals(other.mSyncId) && mWord.equals(other.mWord)
+                && mDeleted == other.mDeleted;
+    }
+
+    @Override
+    public String toString() {
+        return mSyncId + "@" + mVersion + (mDeleted ? " -" : " ") + mWord;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.Nullable;
+import androidx.room.Embedded;
+import androidx.room.Junction;
+import androidx.room.Relation;
+
+import java.util.List;
+
+/**
+ * Una palabra con sus datos y los nombres de sus etiquetas, para la pantalla de detalle.
+ * Room carga las relaciones con una consulta por tabla; de las etiquetas sólo lee
+ * la columna name, a través de word_tag.
+ */
+
+public class WordDetails {
+
+    @Embedded
+    private Word mWord;
+
+    @Nullable
+    @Relation(parentColumn = "id", entityColumn = "word_id")
+    private WordMeta mMeta;
+
+    @Relation(parentColumn = "id", entityColumn = "id", entity = Tag.class,
+            associateBy = @Junction(value = WordTag.class,
+                    parentColumn = "word_id", entityColumn = "tag_id"),
+            projection = {"name"})
+    private List<String> mTags;
+
+    public Word getWord() {
+        return mWord;
+    }
+
+    public void setWord(Word word) {
+        mWord = word;
+    }
+
+    @Nullable
+    public WordMeta getMeta() {
+        return mMeta;
+    }
+
+    public void setMeta(@Nullable WordMeta meta) {
+        mMeta = meta;
+    }
+
+    public List<String> getTags() {
+        return mTags;
+    }
+
+    public void setTags(List<String> tags) {
+        mTags = tags;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Exporta todas las palabras, en orden, a un archivo de texto con una palabra por línea.
+ * Las filas se leen en páginas de WordImporter.CHUNK_SIZE con la consulta por clave
+ * de WordDao.getWordsAfter(), como la lista paginada, así que nunca se materializa la
+ * lista completa. Cada página es una consulta corta: no retiene una transacción ni un
+ * cursor que SQLite tenga que volver a recorrer desde el principio al llenar su ventana,
+ * y una escritura entre dos páginas no hace que se salten ni se repitan filas.
+ *
+ * Con varios fragmentos (WordShards) se leen las páginas de cada fragmento y se escribe
+ * siempre la menor de las palabras actuales, en el orden de WordShardRouter.
+ */
+
+class WordExporter {
+
+    private final WordShards mShards;
+
+    WordExporter(WordShards shards) {
+        mShards = shards;
+    }
+
+    /**
+     * Escribe las palabras en writer y lo cierra. Si el hilo se interrumpe,
+     * se detiene y lanza InterruptedException.
+     *
+     * @return el número de palabras escritas
+     */
+    @WorkerThread
+    long exportWords(Writer writer) throws IOException, InterruptedException {
+        BufferedWriter out = new BufferedWriter(writer);
+        ShardPages[] shards = new ShardPages[mShards.count()];
+        //Palabra actual de cada fragmento; null cuando se terminó
+        Word[] heads = new Word[shards.length];
+        long written = 0;
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new ShardPages(mShards.get(i).wordDao());
+                heads[i] = shards[i].next();
+            }
+            while (true) {
+                int best = -1;
+                for (int i = 0; i < heads.length; i++) {
+                    if (heads[i] != null && (best == -1 || WordShardRouter.compareText(
+                            heads[i].getWord(), heads[best].getWord()) < 0)) {
+                        best = i;
+                    }
+                }
+                if (best == -1) {
+                    return written;
+                }
+                out.write(heads[best].getWord());
+                out.newLine();
+                heads[best] = shards[best].next();
+                written++;
+                if (written % WordImporter.CHUNK_SIZE == 0
+                        && Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Las palabras de un fragmento, página por página, a partir de la última leída.
+     */
+    private static class ShardPages {
+        private final WordDao mWordDao;
+        private List<Word> mPage;
+        private int mNext;
+
+        ShardPages(WordDao wordDao) {
+            mWordDao = wordDao;
+        }
+
+        //La siguiente palabra, o null cuando no quedan
+        @Nullable
+        Word next() {
+            if (mPage == null) {
+                mPage = mWordDao.getWordsPage(WordImporter.CHUNK_SIZE);
+            } else if (mNext == mPage.size()) {
+                if (mPage.size() < WordImporter.CHUNK_SIZE) {
+                    return null;
+                }
+                Word last = mPage.get(mPage.size() - 1);
+                mPage = mWordDao.getWordsAfter(last.getWord(), last.getId(),
+                        WordImporter.CHUNK_SIZE);
+                mNext = 0;
+            }
+            return mNext < mPage.size() ? mPage.get(mNext++) : null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.roomwordssampleerick;
+
+import android.view.Choreographer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el intervalo entre cuadros mientras la pantalla está visible y cuenta los cuadros
+ * perdidos: un intervalo de N presupuestos de cuadro cuenta como N - 1 cuadros perdidos.
+ */
+
+class WordFrameMonitor implements Choreographer.FrameCallback {
+
+    private final long mFrameBudgetNanos;
+    private long mLastFrameNanos;
+    private boolean mRunning;
+
+    WordFrameMonitor(float refreshRate) {
+        mFrameBudgetNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refreshRate);
+    }
+
+    void start() {
+        if (!mRunning) {
+            mRunning = true;
+            mLastFrameNanos = 0;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void stop() {
+        mRunning = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        if (mLastFrameNanos != 0) {
+            long interval = frameTimeNanos - mLastFrameNanos;
+            WordMetrics.FRAME.record(TimeUnit.NANOSECONDS.toMicros(interval));
+            //Se tolera medio cuadro de retraso antes de contar uno perdido
+            long frames = (interval + mFrameBudgetNanos / 2) / mFrameBudgetNanos;
+            if (frames > 1) {
+                WordMetrics.DROPPED_FRAMES.addAndGet(frames - 1);
+            }
+        }
+        mLastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Tabla virtual FTS4 para buscar palabras.
+ * Usa word_table como tabla de contenido externo: Room crea los triggers
+ * que la mantienen sincronizada y la tabla no duplica el texto de las palabras.
+ * El rowid de cada fila es el id de la palabra en word_table.
+ * Las palabras borradas lógicamente siguen indexadas hasta que se purgan
+ * (ver WordMigrations.narrowFtsUpdateTriggers).
+ */
+
+@Fts4(contentEntity = Word.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "word_fts")
+public class WordFts {
+
+    @NonNull
+    @ColumnInfo(name = "word")
+    private String mWord;
+
+    public WordFts(@NonNull String word) {
+        this.mWord = word;
+    }
+
+    @NonNull
+    public String getWord() {
+        return this.mWord;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.roomwordssampleerick;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Importa palabras desde un archivo de texto (una por línea) o CSV (primera columna).
+ * El archivo se lee por bloques y cada bloque se inserta en su propia transacción
+ * en el escritor, con prioridad de segundo plano. Mientras un bloque se escribe se lee
+ * el siguiente, y nunca hay más de dos bloques en memoria, sea cual sea el tamaño del archivo.
+ *
+ * Las palabras repetidas dentro de un bloque se descartan antes de insertar;
+ * las que ya existen en la base de datos las ignora el índice único.
+ *
+ * Con varios fragmentos (WordShards), cada bloque se reparte por fragmento y las partes
+ * se escriben a la vez, cada una en el escritor de su fragmento.
+ */
+
+class WordImporter {
+
+    //Palabras por transacción
+    static final int CHUNK_SIZE = 5000;
+
+    /**
+     * Recibe el avance después de cada bloque, en el hilo principal.
+     */
+    interface ProgressListener {
+        void onProgress(long wordsRead, long wordsAdded);
+    }
+
+    /**
+     * Resultado de una importación.
+     */
+    static class Result {
+        final long mWordsRead;
+        final long mWordsAdded;
+
+        Result(long wordsRead, long wordsAdded) {
+            mWordsRead = wordsRead;
+            mWordsAdded = wordsAdded;
+        }
+    }
+
+    private final WordShards mShards;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    WordImporter(WordShards shards) {
+        mShards = shards;
+    }
+
+    /**
+     * Importa todas las palabras de reader. Si el hilo se interrumpe, se detiene
+     * después del bloque en curso; los bloques ya confirmados se conservan.
+     */
+    @WorkerThread
+    Result importWords(Reader reader, @Nullable ProgressListener listener)
+            throws IOException, InterruptedException {
+        BufferedReader lines = new BufferedReader(reader);
+        long read = 0;
+        long added = 0;
+        List<Future<Integer>> inFlight = Collections.emptyList();
+
+        try {
+            List<Word> chunk = new ArrayList<>(CHUNK_SIZE);
+            Set<String> seen = new HashSet<>();
+            String line;
+            while ((line = lines.readLine()) != null) {
+                String text = parseLine(line);
+                if (text == null || !seen.add(WordCache.key(text))) {
+                    continue;
+                }
+                chunk.add(new Word(text));
+                read++;
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    added += await(inFlight);
+                    report(listener, read, added);
+                    inFlight = insertChunk(chunk);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    seen.clear();
+                }
+            }
+            added += await(inFlight);
+            inFlight = Collections.emptyList();
+            if (!chunk.isEmpty()) {
+                added += await(insertChunk(chunk));
+            }
+            report(listener, read, added);
+            return new Result(read, added);
+        } finally {
+            lines.close();
+        }
+    }
+
+    /**
+     * Toma la primera columna de una línea CSV (sin comillas) o la línea completa.
+     *
+     * @return la palabra, o null si la línea está vacía
+     */
+    @Nullable
+    static String parseLine(String line) {
+        String text = line;
+        if (text.startsWith("\"")) {
+            int end = text.indexOf('"', 1);
+            text = end > 0 ? text.substring(1, end) : text.substring(1);
+        } else {
+            int comma = text.indexOf(',');
+            if (comma >= 0) {
+                text = text.substring(0, comma);
+            }
+        }
+        text = text.trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    //Reparte el bloque por fragmento y encola una escritura por cada parte
+    private List<Future<Integer>> insertChunk(List<Word> chunk) throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+        int count = mShards.count();
+        if (count == 1) {
+            return Collections.singletonList(insertPart(mShards.get(0), chunk));
+        }
+        List<List<Word>> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            parts.add(new ArrayList<Word>(chunk.size() / count + 16));
+        }
+        for (Word word : chunk) {
+            parts.get(WordShards.shardOf(word.getWord(), count)).add(word);
+        }
+        List<Future<Integer>> writes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (!parts.get(i).isEmpty()) {
+                writes.add(insertPart(mShards.get(i), parts.get(i)));
+            }
+        }
+        return writes;
+    }
+
+    private static Future<Integer> insertPart(WordRoomDatabase db, final List<Word> part) {
+        final WordDao wordDao = db.wordDao();
+        return db.getExecutors().executeWrite(WordDatabaseExecutors.PRIORITY_BACKGROUND,
+                new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        long start = System.nanoTime();
+                        int inserted = 0;
+                        for (long id : wordDao.insertOrRevive(part)) {
+                            if (id != -1) {
+                                inserted++;
+                            }
+                        }
+                        WordMetrics.recordSince(WordMetrics.IMPORT_CHUNK, start);
+                        return inserted;
+                    }
+                }, null);
+    }
+
+    private static int await(List<Future<Integer>> chunk) throws InterruptedException {
+        int inserted = 0;
+        try {
+            for (Future<Integer> part : chunk) {
+                inserted += part.get();
+            }
+            return inserted;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Import chunk failed", e.getCause());
+        }
+    }
+
+    private void report(@Nullable final ProgressListener listener,
+                        final long read, final long added) {
+        if (listener == null) {
+            return;
+        }
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                listener.onProgress(read, added);
+            }
+        });
+    }
+}
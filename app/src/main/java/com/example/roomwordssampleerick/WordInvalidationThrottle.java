@@ -0,0 +1,117 @@
+package com.example.roomwordssampleerick;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrupa las invalidaciones de Room. La primera invalidación abre una ventana;
+ * las que llegan dentro de ella sólo marcan los datos como sucios, y al cerrarse
+ * la acción se ejecuta una sola vez en el ejecutor dado.
+ *
+ * Mientras la acción está en curso no se lanza otra; si llegaron invalidaciones
+ * entretanto, al terminar se abre una nueva ventana. Así una ráfaga de miles de
+ * escrituras produce unas pocas consultas.
+ */
+
+class WordInvalidationThrottle {
+
+    private final ScheduledExecutorService mScheduler;
+    private final Executor mExecutor;
+    private final long mWindowMs;
+    private final Runnable mAction;
+
+    private final Object mLock = new Object();
+    private boolean mDirty;
+    private boolean mRunning;
+    //Ventana abierta; null si no hay ninguna
+    private ScheduledFuture<?> mScheduled;
+    //Acción enviada al ejecutor sin esperar la ventana
+    private boolean mQueued;
+
+    private final Runnable mFire = new Runnable() {
+        @Override
+        public void run() {
+            mExecutor.execute(mRun);
+        }
+    };
+
+    private final Runnable mRun = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (mLock) {
+                if (mRunning) {
+                    return;
+                }
+                mScheduled = null;
+                mQueued = false;
+                mRunning = true;
+                mDirty = false;
+            }
+            try {
+                mAction.run();
+            } finally {
+                synchronized (mLock) {
+                    mRunning = false;
+                    if (mDirty) {
+                        scheduleLocked();
+                    }
+                }
+            }
+        }
+    };
+
+    WordInvalidationThrottle(ScheduledExecutorService scheduler, Executor executor,
+                             long windowMs, Runnable action) {
+        mScheduler = scheduler;
+        mExecutor = executor;
+        mWindowMs = windowMs;
+        mAction = action;
+    }
+
+    /**
+     * Marca los datos como sucios; la acción se ejecuta cuando se cierre la ventana.
+     * Puede llamarse desde cualquier hilo.
+     */
+    void onInvalidated() {
+        synchronized (mLock) {
+            mDirty = true;
+            if (!mRunning && mScheduled == null && !mQueued) {
+                scheduleLocked();
+            }
+        }
+    }
+
+    /**
+     * Ejecuta la acción sin esperar la ventana, por ejemplo para la primera carga.
+     * Si ya está en curso, se repite al terminar.
+     */
+    void runNow() {
+        synchronized (mLock) {
+            mDirty = true;
+            if (mRunning || mQueued) {
+                return;
+            }
+            if (mScheduled != null) {
+                mScheduled.cancel(false);
+                mScheduled = null;
+            }
+            mQueued = true;
+        }
+        mExecutor.execute(mRun);
+    }
+
+    /**
+     * Indica si llegó una invalidación después de que empezara la acción en curso.
+     */
+    boolean isDirty() {
+        synchronized (mLock) {
+            return mDirty;
+        }
+    }
+
+    private void scheduleLocked() {
+        mScheduled = mScheduler.schedule(mFire, mWindowMs, TimeUnit.MILLISECONDS);
+    }
+}
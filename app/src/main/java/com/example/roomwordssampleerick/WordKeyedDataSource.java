@@ -0,0 +1,157 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.NonNull;
+import androidx.paging.DataSource;
+import androidx.paging.ItemKeyedDataSource;
+import androidx.room.InvalidationTracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fuente de datos paginada para la lista de palabras.
+ * Usa paginación por clave (keyset) sobre (word, id) en lugar de LIMIT/OFFSET,
+ * de modo que cada página cuesta lo mismo sin importar qué tan lejos esté en la lista
+ * y sólo se materializa la ventana visible más la precarga.
+ *
+ * La fuente se invalida cuando Room notifica un cambio en word_table, una sola vez por
+ * ventana de invalidaciones; el PagedList se vuelve a construir alrededor de la última
+ * palabra cargada.
+ *
+ * Las páginas se leen con WordShardRouter: con varios fragmentos, cada página es la mezcla
+ * de las páginas de todos, y un cambio en cualquiera invalida la fuente.
+ */
+
+class WordKeyedDataSource extends ItemKeyedDataSource<Word, Word> {
+
+    private final WordShardRouter mRouter;
+    //Instante (System.nanoTime()) a partir del cual esta fuente ve todos los cambios confirmados
+    private final long mCreatedNanos;
+
+    WordKeyedDataSource(WordShardRouter router, long invalidationWindowMs) {
+        mRouter = router;
+        final WordShards shards = router.getShards();
+        WordDatabaseExecutors executors = shards.get(0).getExecutors();
+        final WordInvalidationThrottle throttle = new WordInvalidationThrottle(
+                executors.scheduler(), executors.readers(), invalidationWindowMs,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        invalidate();
+                    }
+                });
+
+        final InvalidationTracker.Observer observer =
+                new InvalidationTracker.Observer("word_table") {
+                    @Override
+                    public void onInvalidated(@NonNull Set<String> tables) {
+                        throttle.onInvalidated();
+                    }
+                };
+        //Se llama desde el hilo de carga del PagedList, nunca desde el hilo principal
+        shards.addObserver(observer);
+        addInvalidatedCallback(new InvalidatedCallback() {
+            @Override
+            public void onInvalidated() {
+                shards.removeObserver(observer);
+            }
+        });
+        //Se toma después de registrar el observador: un cambio confirmado antes de este
+        //instante ya está en la tabla cuando se lea la primera página
+        mCreatedNanos = System.nanoTime();
+    }
+
+    /**
+     * Toda escritura confirmada antes de este instante (System.nanoTime())
+     * se refleja en las páginas que cargue esta fuente.
+     */
+    long getCreatedNanos() {
+        return mCreatedNanos;
+    }
+
+    /**
+     * Carga la primera página. Si hay una clave inicial (por ejemplo después de una invalidación),
+     * se carga media página antes de la clave y el resto desde la clave, para que la
+     * vista conserve contexto alrededor de la posición del usuario.
+     */
+    @Override
+    public void loadInitial(@NonNull LoadInitialParams<Word> params,
+                            @NonNull LoadInitialCallback<Word> callback) {
+        Word key = params.requestedInitialKey;
+        int size = params.requestedLoadSize;
+
+        long start = System.nanoTime();
+        List<Word> words;
+        if (key == null) {
+            words = mRouter.getWordsPage(size);
+        } else {
+            List<Word> before = mRouter.getWordsBefore(key.getWord(), key.getId(), size / 2);
+            Collections.reverse(before);
+            words = new ArrayList<>(size);
+            words.addAll(before);
+            words.addAll(mRouter.getWordsFrom(key.getWord(), key.getId(), size - before.size()));
+        }
+        recordLoad(start, words);
+        callback.onResult(words);
+    }
+
+    @Override
+    public void loadAfter(@NonNull LoadParams<Word> params,
+                          @NonNull LoadCallback<Word> callback) {
+        Word key = params.key;
+        long start = System.nanoTime();
+        List<Word> words =
+                mRouter.getWordsAfter(key.getWord(), key.getId(), params.requestedLoadSize);
+        recordLoad(start, words);
+        callback.onResult(words);
+    }
+
+    @Override
+    public void loadBefore(@NonNull LoadParams<Word> params,
+                           @NonNull LoadCallback<Word> callback) {
+        Word key = params.key;
+        long start = System.nanoTime();
+        List<Word> words =
+                mRouter.getWordsBefore(key.getWord(), key.getId(), params.requestedLoadSize);
+        recordLoad(start, words);
+        Collections.reverse(words);
+        callback.onResult(words);
+    }
+
+    private static void recordLoad(long startNanos, List<Word> words) {
+        WordMetrics.recordSince(WordMetrics.PAGE_LOAD, startNanos);
+        WordMetrics.PAGE_ROWS.record(words.size());
+    }
+
+    /**
+     * La clave de una palabra es la propia palabra: (word, id) la ubica de forma única
+     * dentro del orden de la lista.
+     */
+    @NonNull
+    @Override
+    public Word getKey(@NonNull Word item) {
+        return item;
+    }
+
+    /**
+     * Crea una nueva fuente de datos cada vez que la anterior se invalida.
+     */
+    static class Factory extends DataSource.Factory<Word, Word> {
+
+        private final WordShardRouter mRouter;
+        private final long mInvalidationWindowMs;
+
+        Factory(WordShardRouter router, long invalidationWindowMs) {
+            mRouter = router;
+            mInvalidationWindowMs = invalidationWindowMs;
+        }
+
+        @NonNull
+        @Override
+        public DataSource<Word, Word> create() {
+            return new WordKeyedDataSource(mRouter, mInvalidationWindowMs);
+        }
+    }
+}
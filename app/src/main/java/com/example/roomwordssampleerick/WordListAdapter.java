@@ -1,64 +1,150 @@
 package com.example.roomwordssampleerick;
 
-import android.content.Context;
-import android.view.LayoutInflater;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 
 /**
  * Adaptador para el RecyclerView que muestra una lista de palabras
+ * Guarda la lista como una WordSnapshot y enlaza cada fila directamente desde
+ * su arreglo de caracteres. Las filas las crea y enlaza un WordRowRenderer.
  */
 
-public class WordListAdapter extends RecyclerView.Adapter<WordListAdapter.WordViewHolder> {
+public class WordListAdapter extends RecyclerView.Adapter<WordRowRenderer.Holder>
+        implements WordRowRenderer.TextSource {
 
-    private final LayoutInflater mInflater;
-    private List<Word> mWords; //Copia almacenada en caché de palabras
-    private static ClickListener clickListener;
+    /**
+     * Dos palabras son el mismo elemento si tienen el mismo id,
+     * y tienen el mismo contenido si el texto no cambió.
+     */
+    static final DiffUtil.ItemCallback<Word> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Word>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Word oldWord, @NonNull Word newWord) {
+                    return oldWord.getId() == newWord.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull Word oldWord, @NonNull Word newWord) {
+                    return oldWord.getWord().equals(newWord.getWord());
+                }
+            };
+
+    //Las diferencias entre instantáneas se calculan fuera del hilo principal
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
 
-    WordListAdapter(Context context) {
-        mInflater = LayoutInflater.from(context);
+    private final WordRowRenderer mRenderer = new WordRowRenderer();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    //Copia almacenada en caché de palabras
+    private WordSnapshot mSnapshot = WordSnapshot.EMPTY;
+    //Identifica la lista más reciente; las diferencias de listas anteriores se descartan
+    private int mGeneration;
+    private ClickListener mClickListener;
+
+    WordListAdapter() {
+        setHasStableIds(true);
     }
 
+    @NonNull
     @Override
-    public WordViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        View itemView = mInflater.inflate(R.layout.recyclerview_item, parent, false);
-        return new WordViewHolder(itemView);
+    public WordRowRenderer.Holder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return mRenderer.createHolder(parent);
     }
 
     @Override
-    public void onBindViewHolder(WordViewHolder holder, int position) {
-        if (mWords != null) {
-            Word current = mWords.get(position);
-            holder.wordItemView.setText(current.getWord());
-        } else {
-            //Cubre el caso de que los datos aún no estén listos
-            holder.wordItemView.setText(R.string.no_word);
-        }
+    public void onBindViewHolder(@NonNull WordRowRenderer.Holder holder, int position) {
+        long start = System.nanoTime();
+        WordSnapshot words = mSnapshot;
+        holder.mClickListener = mClickListener;
+        mRenderer.bind(holder, words.chars(), words.start(position), words.length(position));
+        mRenderer.onBound(position, this);
+        WordMetrics.recordSince(WordMetrics.BIND, start);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return WordRowRenderer.VIEW_TYPE;
+    }
+
+    @Nullable
+    @Override
+    public String getTextAt(int position) {
+        return mSnapshot.getText(position);
+    }
+
+    WordRowRenderer getRenderer() {
+        return mRenderer;
     }
 
     /**
-     * Asocia una lista de palabras con este adaptador
+     * Asocia una lista de palabras con este adaptador; null equivale a una lista vacía.
      */
-    void setWords(List<Word> words) {
-        mWords = words;
-        notifyDataSetChanged();
+    void setWords(@Nullable List<Word> words) {
+        setSnapshot(words != null ? WordSnapshot.of(words) : WordSnapshot.EMPTY);
     }
 
     /**
-     * getItemCount() se llama muchas veces, y cuando se llama por primera vez,
-     * mWords no se ha actualizado (significa inicialmente, es null, y no podemos devolver null).
+     * Asocia una instantánea de palabras con este adaptador.
+     * Sólo se notifican las inserciones, eliminaciones, movimientos y cambios reales;
+     * si una de las dos listas está vacía, el cambio se aplica de inmediato.
      */
+    void setSnapshot(final WordSnapshot snapshot) {
+        final long start = System.nanoTime();
+        final int generation = ++mGeneration;
+        final WordSnapshot old = mSnapshot;
+        if (snapshot == old) {
+            return;
+        }
+        if (old.size() == 0 || snapshot.size() == 0) {
+            mSnapshot = snapshot;
+            if (old.size() > 0) {
+                notifyItemRangeRemoved(0, old.size());
+            }
+            if (snapshot.size() > 0) {
+                notifyItemRangeInserted(0, snapshot.size());
+            }
+            WordMetrics.recordSince(WordMetrics.DIFF, start);
+            return;
+        }
+
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result =
+                        DiffUtil.calculateDiff(new WordSnapshot.DiffCallback(old, snapshot));
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            mSnapshot = snapshot;
+                            result.dispatchUpdatesTo(WordListAdapter.this);
+                            WordMetrics.recordSince(WordMetrics.DIFF, start);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
     @Override
     public int getItemCount() {
-        if (mWords != null)
-            return mWords.size();
-        else return 0;
+        return mSnapshot.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mSnapshot.getId(position);
     }
 
     /**
@@ -69,30 +155,15 @@ public class WordListAdapter extends RecyclerView.Adapter<WordListAdapter.WordVi
      * @return
      */
     public Word getWordAtPosition(int position) {
-        return mWords.get(position);
-    }
-
-    class WordViewHolder extends RecyclerView.ViewHolder {
-        private final TextView wordItemView;
-
-        private WordViewHolder(View itemView) {
-            super(itemView);
-            wordItemView = itemView.findViewById(R.id.textView);
-            itemView.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View view) {
-                    clickListener.onItemClick(view, getAdapterPosition());
-                }
-            });
-        }
+        return mSnapshot.get(position);
     }
 
     public void setOnItemClickListener(ClickListener clickListener) {
-        WordListAdapter.clickListener = clickListener;
+        mClickListener = clickListener;
     }
 
     public interface ClickListener {
         void onItemClick(View v, int position);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.example.roomwordssampleerick;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calendario del mantenimiento de la base de datos: qué tareas tocan en cada pasada
+ * de WordMaintenanceWorker, según la última vez que se ejecutó cada una.
+ *
+ * El reloj y el lugar donde se guardan las fechas se reciben de fuera, así que el
+ * calendario se prueba con un reloj falso sin base de datos ni WorkManager.
+ */
+
+final class WordMaintenance {
+
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    interface Store {
+        //0 si la tarea nunca se ha ejecutado
+        long getLastRun(String task);
+
+        void setLastRun(String task, long timeMillis);
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    //Tareas, en el orden en que se ejecutan
+    static final String CHECKPOINT = "checkpoint";
+    static final String FTS_MERGE = "fts_merge";
+    static final String OPTIMIZE = "optimize";
+    static final String ANALYZE = "analyze";
+    static final String QUICK_CHECK = "quick_check";
+
+    private static final String[] TASKS = {CHECKPOINT, FTS_MERGE, OPTIMIZE, ANALYZE, QUICK_CHECK};
+    //El checkpoint es barato y se hace en cada pasada
+    private static final long[] INTERVALS = {
+            0,
+            TimeUnit.DAYS.toMillis(1),
+            TimeUnit.DAYS.toMillis(1),
+            TimeUnit.DAYS.toMillis(7),
+            TimeUnit.DAYS.toMillis(7)};
+
+    private final Clock mClock;
+    private final Store mStore;
+
+    WordMaintenance(Clock clock, Store store) {
+        mClock = clock;
+        mStore = store;
+    }
+
+    /**
+     * Tareas que ya vencieron. Una fecha guardada en el futuro (el usuario atrasó el reloj)
+     * cuenta como vencida, para que la tarea no quede detenida hasta alcanzarla.
+     */
+    List<String> getDueTasks() {
+        long now = mClock.currentTimeMillis();
+        List<String> due = new ArrayList<>(TASKS.length);
+        for (int i = 0; i < TASKS.length; i++) {
+            long lastRun = mStore.getLastRun(TASKS[i]);
+            if (lastRun == 0 || lastRun > now || now - lastRun >= INTERVALS[i]) {
+                due.add(TASKS[i]);
+            }
+        }
+        return due;
+    }
+
+    void markRun(String task) {
+        mStore.setLastRun(task, mClock.currentTimeMillis());
+    }
+}
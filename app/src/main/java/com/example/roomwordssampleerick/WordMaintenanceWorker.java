@@ -0,0 +1,242 @@
+package com.example.roomwordssampleerick;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.ProcessLifecycleOwner;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantenimiento periódico de la base de datos: checkpoint del WAL, mezcla de los
+ * segmentos del índice FTS, PRAGMA optimize, ANALYZE y PRAGMA quick_check.
+ * WordMaintenance decide qué tareas tocan en cada pasada.
+ *
+ * WorkManager lo ejecuta una vez al día, con el dispositivo cargando y, desde API 23,
+ * inactivo. Las tareas que escriben van a la cola de escrituras en segundo plano, así
+ * que las del usuario pasan primero; quick_check sólo lee y corre en el hilo del worker
+ * con su propia conexión, sin ocupar el grupo de lectores. Si la aplicación pasa a
+ * primer plano, la pasada se interrumpe y se reintenta más tarde.
+ *
+ * La duración de cada tarea se registra en WordMetrics como "maint.<tarea>", y el
+ * espacio que devuelve en "maint.freed_kb".
+ */
+
+public class WordMaintenanceWorker extends Worker {
+
+    private static final String TAG = "WordMaintenance";
+    private static final String WORK_NAME = "word-maintenance";
+    private static final String PREFERENCES = "word_maintenance";
+
+    //Páginas que mezcla cada paso de FTS y segmentos mínimos por nivel
+    private static final String FTS_MERGE_STEP = "merge=256,8";
+    private static final int MAX_FTS_MERGE_STEPS = 64;
+    //Filas por índice que examina ANALYZE; no tiene efecto antes de SQLite 3.32
+    private static final int ANALYSIS_LIMIT = 1000;
+
+    public WordMaintenanceWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Programa la pasada diaria; si ya está programada se conserva la existente.
+     */
+    static void schedule(Context context) {
+        Constraints.Builder constraints = new Constraints.Builder()
+                .setRequiresCharging(true)
+                .setRequiresBatteryNotLow(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            constraints.setRequiresDeviceIdle(true);
+        }
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                WordMaintenanceWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints.build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        WordShards shards = WordShards.get(context);
+        WordMaintenance maintenance = new WordMaintenance(WordMaintenance.SYSTEM_CLOCK,
+                new PreferencesStore(context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE)));
+
+        for (String task : maintenance.getDueTasks()) {
+            //Cada fragmento es un archivo aparte; la tarea se hace en uno a la vez
+            boolean failed = false;
+            for (int shard = 0; shard < shards.count(); shard++) {
+                if (isStopped()) {
+                    return Result.retry();
+                }
+                if (isInForeground()) {
+                    Log.i(TAG, "App in foreground, postponing " + task);
+                    return Result.retry();
+                }
+                long sizeBefore = databaseBytes(context, shard);
+                long start = System.nanoTime();
+                try {
+                    String effect = run(shards.get(shard), task);
+                    WordMetrics.recordSince(WordMetrics.latency("maint." + task), start);
+                    long freed = sizeBefore - databaseBytes(context, shard);
+                    if (freed > 0) {
+                        WordMetrics.MAINTENANCE_FREED_KB.record(freed / 1024);
+                    }
+                    Log.i(TAG, task + " (shard " + shard + "): " + effect + ", "
+                            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, "
+                            + freed / 1024 + " KB freed");
+                } catch (ExecutionException e) {
+                    Log.e(TAG, task + " failed on shard " + shard, e.getCause());
+                    failed = true;
+                } catch (InterruptedException e) {
+                    return Result.retry();
+                }
+            }
+            if (!failed) {
+                maintenance.markRun(task);
+            }
+        }
+        return Result.success();
+    }
+
+    private String run(WordRoomDatabase db, String task)
+            throws ExecutionException, InterruptedException {
+        switch (task) {
+            case WordMaintenance.CHECKPOINT:
+                return write(db, "PRAGMA wal_checkpoint(TRUNCATE)");
+            case WordMaintenance.FTS_MERGE:
+                return mergeFts(db);
+            case WordMaintenance.OPTIMIZE:
+                //No tiene efecto antes de SQLite 3.18 (API 28)
+                return write(db, "PRAGMA optimize");
+            case WordMaintenance.ANALYZE:
+                write(db, "PRAGMA analysis_limit = " + ANALYSIS_LIMIT);
+                return write(db, "ANALYZE");
+            case WordMaintenance.QUICK_CHECK:
+                return quickCheck(db);
+            default:
+                throw new IllegalArgumentException(task);
+        }
+    }
+
+    /**
+     * Mezcla los segmentos de word_fts por pasos, cada uno en su propia escritura,
+     * hasta que un paso ya no cambia nada. A diferencia de 'optimize', que lo hace de una
+     * vez, cada paso toma el escritor poco tiempo.
+     */
+    private String mergeFts(WordRoomDatabase db) throws ExecutionException, InterruptedException {
+        final SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+        Callable<Long> step = new Callable<Long>() {
+            @Override
+            public Long call() {
+                long before = longQuery(sqlite, "SELECT total_changes()");
+                sqlite.execSQL("INSERT INTO word_fts(word_fts) VALUES('" + FTS_MERGE_STEP + "')");
+                return longQuery(sqlite, "SELECT total_changes()") - before;
+            }
+        };
+        int steps = 0;
+        //Según la documentación de FTS4, menos de 2 cambios indica que ya no queda qué mezclar
+        while (steps < MAX_FTS_MERGE_STEPS && !isStopped() && !isInForeground()) {
+            steps++;
+            if (db.getExecutors().executeWrite(WordDatabaseExecutors.PRIORITY_BACKGROUND,
+                    step, null).get() < 2) {
+                break;
+            }
+        }
+        return steps + " merge steps";
+    }
+
+    private static String write(WordRoomDatabase db, final String sql)
+            throws ExecutionException, InterruptedException {
+        final SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+        return db.getExecutors().executeWrite(WordDatabaseExecutors.PRIORITY_BACKGROUND,
+                new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return firstRow(sqlite, sql);
+                    }
+                }, null).get();
+    }
+
+    private static String quickCheck(WordRoomDatabase db) {
+        String result = firstRow(db.getOpenHelper().getReadableDatabase(), "PRAGMA quick_check");
+        if (!"ok".equals(result)) {
+            WordMetrics.INTEGRITY_ERRORS.incrementAndGet();
+            Log.e(TAG, "quick_check: " + result);
+        }
+        return result;
+    }
+
+    //getCount() recorre el cursor completo, así la sentencia termina de ejecutarse
+    private static String firstRow(SupportSQLiteDatabase db, String sql) {
+        Cursor cursor = db.query(sql);
+        try {
+            if (cursor.getCount() == 0 || !cursor.moveToFirst()) {
+                return "done";
+            }
+            StringBuilder row = new StringBuilder(cursor.getString(0));
+            for (int i = 1; i < cursor.getColumnCount(); i++) {
+                row.append('|').append(cursor.getString(i));
+            }
+            return row.toString();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static long longQuery(SupportSQLiteDatabase db, String sql) {
+        Cursor cursor = db.query(sql);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static boolean isInForeground() {
+        return ProcessLifecycleOwner.get().getLifecycle().getCurrentState()
+                .isAtLeast(Lifecycle.State.STARTED);
+    }
+
+    private static long databaseBytes(Context context, int shard) {
+        File database = context.getDatabasePath(WordRoomDatabase.databaseName(shard));
+        File wal = new File(database.getPath() + "-wal");
+        return database.length() + wal.length();
+    }
+
+    private static final class PreferencesStore implements WordMaintenance.Store {
+
+        private final SharedPreferences mPreferences;
+
+        PreferencesStore(SharedPreferences preferences) {
+            mPreferences = preferences;
+        }
+
+        @Override
+        public long getLastRun(String task) {
+            return mPreferences.getLong(task, 0);
+        }
+
+        @Override
+        public void setLastRun(String task, long timeMillis) {
+            mPreferences.edit().putLong(task, timeMillis).apply();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Datos de una palabra que no hacen falta para mostrar la lista: definición, idioma,
+ * fechas y cuántas veces se usó. Está en su propia tabla para que word_table siga
+ * siendo angosta y las consultas de la lista no lean estas columnas.
+ *
+ * Los triggers de WordMigrations.createMetaTriggers crean la fila al insertar la palabra
+ * y actualizan updated_at al cambiar su texto; al purgar la palabra se borra en cascada.
+ * Los índices sobre usage_count y updated_at sirven a las consultas "más usadas" y "recientes".
+ */
+
+@Entity(tableName = "word_meta",
+        foreignKeys = @ForeignKey(entity = Word.class, parentColumns = "id",
+                childColumns = "word_id", onDelete = ForeignKey.CASCADE),
+        indices = {@Index("usage_count"), @Index("updated_at")})
+public class WordMeta {
+
+    @PrimaryKey
+    @ColumnInfo(name = "word_id")
+    private int mWordId;
+
+    @Nullable
+    @ColumnInfo(name = "definition")
+    private String mDefinition;
+
+    //Código de idioma, por ejemplo "es"; null si no se conoce
+    @Nullable
+    @ColumnInfo(name = "language")
+    private String mLanguage;
+
+    //Fechas en System.currentTimeMillis()
+    @ColumnInfo(name = "created_at")
+    private long mCreatedAt;
+
+    @ColumnInfo(name = "updated_at")
+    private long mUpdatedAt;
+
+    @ColumnInfo(name = "usage_count", defaultValue = "0")
+    private int mUsageCount;
+
+    public WordMeta(int wordId, @Nullable String definition, @Nullable String language,
+                    long createdAt, long updatedAt, int usageCount) {
+        this.mWordId = wordId;
+        this.mDefinition = definition;
+        this.mLanguage = language;
+        this.mCreatedAt = createdAt;
+        this.mUpdatedAt = updatedAt;
+        this.mUsageCount = usageCount;
+    }
+
+    public int getWordId() {
+        return this.mWordId;
+    }
+
+    @Nullable
+    public String getDefinition() {
+        return this.mDefinition;
+    }
+
+    @Nullable
+    public String getLanguage() {
+        return this.mLanguage;
+    }
+
+    public long getCreatedAt() {
+        return this.mCreatedAt;
+    }
+
+    public long getUpdatedAt() {
+        return this.mUpdatedAt;
+    }
+
+    public int getUsageCount() {
+        return this.mUsageCount;
+    }
+}
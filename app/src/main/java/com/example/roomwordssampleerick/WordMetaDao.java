@@ -0,0 +1,94 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.Nullable;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+import io.reactivex.Flowable;
+
+/**
+ * DAO de los datos de cada palabra y de sus etiquetas.
+ * Las consultas de listas recorren un índice en el orden pedido y se detienen en el
+ * LIMIT; word_table sólo se consulta por clave primaria para descartar las borradas.
+ */
+
+@Dao
+public abstract class WordMetaDao {
+
+    /**
+     * Palabras más usadas primero, recorriendo el índice de usage_count.
+     */
+    @Query("SELECT w.id, w.word, m.usage_count, m.updated_at FROM word_meta AS m "
+            + "JOIN word_table AS w ON w.id = m.word_id WHERE w.deleted_at = 0 "
+            + "ORDER BY m.usage_count DESC LIMIT :limit")
+    public abstract List<WordUsage> getMostUsed(int limit);
+
+    //Como getMostUsed(), pero emite otra vez cada vez que cambian word_meta o word_table
+    @Query("SELECT w.id, w.word, m.usage_count, m.updated_at FROM word_meta AS m "
+            + "JOIN word_table AS w ON w.id = m.word_id WHERE w.deleted_at = 0 "
+            + "ORDER BY m.usage_count DESC LIMIT :limit")
+    public abstract Flowable<List<WordUsage>> observeMostUsed(int limit);
+
+    /**
+     * Palabras creadas o editadas más recientemente, recorriendo el índice de updated_at.
+     */
+    @Query("SELECT w.id, w.word, m.usage_count, m.updated_at FROM word_meta AS m "
+            + "JOIN word_table AS w ON w.id = m.word_id WHERE w.deleted_at = 0 "
+            + "ORDER BY m.updated_at DESC LIMIT :limit")
+    public abstract List<WordUsage> getRecent(int limit);
+
+    /**
+     * Palabras con una etiqueta, en orden alfabético; las filas se encuentran con
+     * el índice (tag_id, word_id) de word_tag.
+     */
+    @Query("SELECT w.* FROM word_tag AS t JOIN word_table AS w ON w.id = t.word_id "
+            + "WHERE t.tag_id = :tagId AND w.deleted_at = 0 ORDER BY w.word ASC LIMIT :limit")
+    public abstract List<Word> getWordsByTag(int tagId, int limit);
+
+    @Transaction
+    @Query("SELECT * FROM word_table WHERE id = :id AND deleted_at = 0")
+    public abstract WordDetails getDetails(int id);
+
+    //Cuenta un uso de la palabra; no cambia updated_at
+    @Query("UPDATE word_meta SET usage_count = usage_count + 1 WHERE word_id = :wordId")
+    public abstract int recordUse(int wordId);
+
+    @Query("UPDATE word_meta SET definition = :definition, language = :language, "
+            + "updated_at = :updatedAt WHERE word_id = :wordId")
+    public abstract int setDefinition(int wordId, @Nullable String definition,
+                                      @Nullable String language, long updatedAt);
+
+    @Query("SELECT * FROM tag ORDER BY name ASC")
+    public abstract List<Tag> getTags();
+
+    @Query("SELECT * FROM tag WHERE name = :name LIMIT 1")
+    public abstract Tag findTag(String name);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    abstract long insertTag(Tag tag);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    abstract long insertWordTag(WordTag wordTag);
+
+    @Query("DELETE FROM word_tag WHERE word_id = :wordId AND tag_id = :tagId")
+    public abstract int untagWord(int wordId, int tagId);
+
+    /**
+     * Asigna una etiqueta a una palabra, creando la etiqueta si no existe.
+     * @return el id de la etiqueta
+     */
+    @Transaction
+    public int tagWord(int wordId, String tagName) {
+        long tagId = insertTag(new Tag(tagName));
+        if (tagId == -1) {
+            tagId = findTag(tagName).getId();
+        }
+        insertWordTag(new WordTag(wordId, (int) tagId));
+        return (int) tagId;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.roomwordssampleerick;
+
+import android.content.Context;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métricas del proceso: histogramas de latencia y de tamaño, y contadores.
+ * Las métricas de uso frecuente se guardan en constantes para que registrar
+ * un valor no pase por el mapa. Todo es concurrente y sin bloqueos.
+ *
+ * dump() escribe una tabla de texto que se puede ver en la pantalla de métricas
+ * o guardar en un archivo con dumpToFile() y sacar del dispositivo con adb.
+ */
+
+final class WordMetrics {
+
+    //Deben declararse antes que las constantes que los llenan
+    private static final Map<String, Histogram> sLatencies = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> sSizes = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> sCounters = new ConcurrentHashMap<>();
+
+    //Latencias en microsegundos
+    static final Histogram WRITE_LATENCY = latency("repo.write");
+    static final Histogram WRITE_BATCH = latency("db.write_batch");
+    static final Histogram SEARCH = latency("repo.search");
+    static final Histogram LOOKUP = latency("repo.lookup");
+    static final Histogram IMPORT_CHUNK = latency("repo.import_chunk");
+    static final Histogram EXPORT = latency("repo.export");
+    static final Histogram PURGE_CHUNK = latency("db.purge_chunk");
+    //Lectura y escritura de la copia de la lista para el arranque en frío (WordSnapshotFile)
+    static final Histogram SNAPSHOT_READ = latency("repo.snapshot_read");
+    static final Histogram SNAPSHOT_WRITE = latency("repo.snapshot_write");
+    //Un lote de sincronización: red y transacción
+    static final Histogram SYNC_PUSH = latency("sync.push");
+    static final Histogram SYNC_PULL = latency("sync.pull");
+    static final Histogram PAGE_LOAD = latency("paging.load");
+    static final Histogram BIND = latency("ui.bind");
+    static final Histogram DIFF = latency("ui.diff");
+    static final Histogram FRAME = latency("ui.frame");
+    //Medición de un texto por adelantado, en el hilo de WordRowRenderer
+    static final Histogram PRECOMPUTE = latency("ui.precompute_text");
+
+    //Tamaños
+    static final Histogram WRITE_BATCH_SIZE = size("db.write_batch_rows");
+    static final Histogram PAGE_ROWS = size("paging.rows");
+    static final Histogram SEARCH_ROWS = size("repo.search_rows");
+    static final Histogram MAINTENANCE_FREED_KB = size("maint.freed_kb");
+    //Bytes comprimidos de cada cuerpo enviado o recibido por WordSyncClient
+    static final Histogram SYNC_BYTES = size("sync.batch_bytes");
+
+    static final AtomicLong INVALIDATIONS = counter("room.invalidations");
+    //Consultas repetidas por invalidación, y resultados descartados por llegar ya viejos
+    static final AtomicLong REQUERIES = counter("room.requeries");
+    static final AtomicLong DROPPED_RESULTS = counter("room.dropped_results");
+    static final AtomicLong DROPPED_FRAMES = counter("ui.dropped_frames");
+    //Filas enlazadas con el texto ya medido, y las que tuvieron que esperarlo
+    static final AtomicLong TEXT_READY = counter("ui.text_ready");
+    static final AtomicLong TEXT_PENDING = counter("ui.text_pending");
+    //Filas borradas quitadas por WordCompactor y páginas devueltas al sistema de archivos
+    static final AtomicLong PURGED_ROWS = counter("db.purged_rows");
+    static final AtomicLong VACUUMED_PAGES = counter("db.vacuumed_pages");
+    //Pasadas de PRAGMA quick_check que no devolvieron "ok"
+    static final AtomicLong INTEGRITY_ERRORS = counter("db.integrity_errors");
+    static final AtomicLong SYNC_PUSHED_ROWS = counter("sync.pushed_rows");
+    static final AtomicLong SYNC_PULLED_ROWS = counter("sync.pulled_rows");
+    static final AtomicLong SYNC_CONFLICTS = counter("sync.conflicts");
+
+    private WordMetrics() {
+    }
+
+    /**
+     * Histograma de latencias; los valores se registran con recordSince().
+     */
+    static synchronized Histogram latency(String name) {
+        return getOrCreate(sLatencies, name);
+    }
+
+    static synchronized Histogram size(String name) {
+        return getOrCreate(sSizes, name);
+    }
+
+    static synchronized AtomicLong counter(String name) {
+        AtomicLong counter = sCounters.get(name);
+        if (counter == null) {
+            counter = new AtomicLong();
+            sCounters.put(name, counter);
+        }
+        return counter;
+    }
+
+    private static Histogram getOrCreate(Map<String, Histogram> histograms, String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram();
+            histograms.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * Registra en el histograma el tiempo transcurrido desde startNanos (de System.nanoTime()).
+     */
+    static void recordSince(Histogram histogram, long startNanos) {
+        histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Escribe todas las métricas como tabla de texto, una por línea.
+     * Las latencias se muestran en milisegundos.
+     */
+    static void dump(Writer out) throws IOException {
+        out.write("# latency (ms)        count      p50      p99      max\n");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(sLatencies).entrySet()) {
+            Histogram h = entry.getValue();
+            out.write(String.format(Locale.US, "%-20s %8d %8.2f %8.2f %8.2f\n", entry.getKey(),
+                    h.count(), h.percentile(0.5) / 1000.0, h.percentile(0.99) / 1000.0,
+                    h.max() / 1000.0));
+        }
+        out.write("# size                count      p50      p99      max\n");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(sSizes).entrySet()) {
+            Histogram h = entry.getValue();
+            out.write(String.format(Locale.US, "%-20s %8d %8d %8d %8d\n", entry.getKey(),
+                    h.count(), h.percentile(0.5), h.percentile(0.99), h.max()));
+        }
+        out.write("# counter             value\n");
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(sCounters).entrySet()) {
+            out.write(String.format(Locale.US, "%-20s %8d\n", entry.getKey(),
+                    entry.getValue().get()));
+        }
+        out.write(String.format(Locale.US, "# startup: db_open=%d ms, first_list=%d ms\n",
+                WordStartupMetrics.databaseOpenMs(), WordStartupMetrics.timeToFirstListMs()));
+    }
+
+    /**
+     * Guarda dump() y los datos adicionales en un archivo del directorio externo de la app,
+     * que se puede copiar con adb pull sin permisos especiales.
+     *
+     * @return el archivo escrito
+     */
+    @WorkerThread
+    static File dumpToFile(Context context, String extra) throws IOException {
+        File dir = context.getExternalFilesDir(null);
+        if (dir == null) {
+            dir = context.getFilesDir();
+        }
+        File file = new File(dir, "word-metrics-" + System.currentTimeMillis() + ".txt");
+        Writer out = new FileWriter(file);
+        try {
+            dump(out);
+            out.write(extra);
+            out.write('\n');
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.roomwordssampleerick;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Migraciones del esquema de WordRoomDatabase.
+ * Cada migración conserva los datos existentes; el SQL de las tablas y triggers
+ * coincide con el que Room genera para las entidades.
+ */
+
+final class WordMigrations {
+
+    private WordMigrations() {
+    }
+
+    /**
+     * Versión 3: tabla FTS4 word_fts con contenido externo en word_table,
+     * sus triggers de sincronización y el índice inicial de las palabras existentes.
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `word_fts` USING FTS4("
+                    + "`word` TEXT NOT NULL, tokenize=unicode61, content=`word_table`)");
+            createFtsTriggers(db);
+            db.execSQL("INSERT INTO word_fts(word_fts) VALUES ('rebuild')");
+        }
+    };
+
+    /**
+     * Versión 4: la columna word pasa a COLLATE NOCASE con un índice único.
+     * SQLite no permite cambiar la collation de una columna, así que la tabla se
+     * reconstruye; de las palabras repetidas (sin distinguir mayúsculas) se conserva
+     * la de menor id. Al borrar la tabla vieja se borran sus triggers FTS,
+     * que se vuelven a crear antes de reconstruir el índice de búsqueda.
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `word_table_new` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`word` TEXT NOT NULL COLLATE NOCASE)");
+            db.execSQL("INSERT INTO word_table_new (id, word) "
+                    + "SELECT MIN(id), word FROM word_table GROUP BY word COLLATE NOCASE");
+            db.execSQL("DROP TABLE word_table");
+            db.execSQL("ALTER TABLE word_table_new RENAME TO word_table");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_word_table_word` "
+                    + "ON `word_table` (`word`)");
+            createFtsTriggers(db);
+            db.execSQL("INSERT INTO word_fts(word_fts) VALUES ('rebuild')");
+        }
+    };
+
+    /**
+     * Versión 5: tabla word_section con el número de palabras por primera letra,
+     * calculada una vez con GROUP BY y mantenida desde entonces por triggers.
+     * Los triggers usan la columna deleted_at, así que los crea MIGRATION_5_6.
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `word_section` ("
+                    + "`section` TEXT NOT NULL, `count` INTEGER NOT NULL, PRIMARY KEY(`section`))");
+            db.execSQL("INSERT INTO word_section (section, count) "
+                    + "SELECT " + sectionOf("word") + ", COUNT(*) FROM word_table GROUP BY 1");
+        }
+    };
+
+    /**
+     * Versión 6: borrado lógico con la columna deleted_at. Los triggers de word_section
+     * pasan a contar sólo las palabras no borradas, y los de word_fts dejan de
+     * reindexar cuando sólo cambia deleted_at. Las bases de datos que ya estaban en la
+     * versión 5 tienen los triggers anteriores, que se reemplazan.
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE word_table ADD COLUMN `deleted_at` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_word_table_deleted_at_word` "
+                    + "ON `word_table` (`deleted_at`, `word`)");
+            db.execSQL("DROP TRIGGER IF EXISTS word_section_AFTER_INSERT");
+            db.execSQL("DROP TRIGGER IF EXISTS word_section_AFTER_DELETE");
+            db.execSQL("DROP TRIGGER IF EXISTS word_section_AFTER_UPDATE");
+            createSectionTriggers(db);
+            narrowFtsUpdateTriggers(db);
+        }
+    };
+
+    /**
+     * Versión 7: datos por palabra (word_meta), etiquetas (tag) y la relación word_tag.
+     * Cada palabra existente recibe su fila de word_meta con la fecha de la migración.
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `word_meta` (`word_id` INTEGER NOT NULL, "
+                    + "`definition` TEXT, `language` TEXT, `created_at` INTEGER NOT NULL, "
+                    + "`updated_at` INTEGER NOT NULL, `usage_count` INTEGER NOT NULL DEFAULT 0, "
+                    + "PRIMARY KEY(`word_id`), FOREIGN KEY(`word_id`) REFERENCES `word_table`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_word_meta_usage_count` "
+                    + "ON `word_meta` (`usage_count`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_word_meta_updated_at` "
+                    + "ON `word_meta` (`updated_at`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `tag` ("
+                    + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`name` TEXT NOT NULL COLLATE NOCASE)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_tag_name` ON `tag` (`name`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `word_tag` (`word_id` INTEGER NOT NULL, "
+                    + "`tag_id` INTEGER NOT NULL, PRIMARY KEY(`word_id`, `tag_id`), "
+                    + "FOREIGN KEY(`word_id`) REFERENCES `word_table`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`tag_id`) REFERENCES `tag`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_word_tag_tag_id_word_id` "
+                    + "ON `word_tag` (`tag_id`, `word_id`)");
+            db.execSQL("INSERT INTO word_meta (word_id, created_at, updated_at) "
+                    + "SELECT id, " + NOW_MILLIS + ", " + NOW_MILLIS + " FROM word_table");
+            createMetaTriggers(db);
+        }
+    };
+
+    /**
+     * Versión 8: tablas de sincronización. Cada palabra existente recibe su sync_id,
+     * y las no borradas quedan como cambios pendientes para el primer envío.
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `word_sync` (`word_id` INTEGER NOT NULL, "
+                    + "`sync_id` TEXT NOT NULL, `version` INTEGER NOT NULL DEFAULT 0, "
+                    + "PRIMARY KEY(`word_id`), FOREIGN KEY(`word_id`) REFERENCES `word_table`(`id`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_word_sync_sync_id` "
+                    + "ON `word_sync` (`sync_id`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `word_change` ("
+                    + "`seq` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `sync_id` TEXT NOT NULL, "
+                    + "`word` TEXT NOT NULL, `deleted` INTEGER NOT NULL, "
+                    + "`base_version` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_word_change_sync_id` "
+                    + "ON `word_change` (`sync_id`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `word_sync_state` (`id` INTEGER NOT NULL, "
+                    + "`watermark` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+            db.execSQL("INSERT INTO word_sync (word_id, sync_id) "
+                    + "SELECT id, " + RANDOM_SYNC_ID + " FROM word_table");
+            db.execSQL("INSERT INTO word_change (sync_id, word, deleted, base_version) "
+                    + "SELECT s.sync_id, w.word, 0, 0 FROM word_table AS w "
+                    + "JOIN word_sync AS s ON s.word_id = w.id WHERE w.deleted_at = 0 ORDER BY w.id");
+            createSyncTriggers(db);
+        }
+    };
+
+    static final Migration[] ALL = {MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5,
+            MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8};
+
+    //Instante actual en milisegundos, como System.currentTimeMillis(), calculado por SQLite
+    private static final String NOW_MILLIS =
+            "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+
+    //128 bits aleatorios en hexadecimal; no se repiten entre dispositivos en la práctica
+    private static final String RANDOM_SYNC_ID = "lower(hex(randomblob(16)))";
+
+    /**
+     * Crea los triggers que Room no genera al crear la base de datos desde cero, y al
+     * abrirla vuelve a acotar los de word_fts (ver ensureNarrowFtsUpdateTriggers).
+     * Toda base de datos WordRoomDatabase debe agregarlo, incluidas las de prueba.
+     */
+    static final RoomDatabase.Callback CREATE_TRIGGERS = new RoomDatabase.Callback() {
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            createSectionTriggers(db);
+            createMetaTriggers(db);
+            createSyncTriggers(db);
+        }
+
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            ensureNarrowFtsUpdateTriggers(db);
+        }
+    };
+
+    /**
+     * Triggers que mantienen los conteos de word_section al insertar, borrar,
+     * cambiar el texto de una palabra o borrarla y recuperarla (deleted_at).
+     * Sólo cuentan las palabras no borradas; las secciones que quedan en cero se borran.
+     */
+    static void createSectionTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS word_section_AFTER_INSERT "
+                + "AFTER INSERT ON `word_table` WHEN NEW.deleted_at = 0 BEGIN "
+                + sectionDelta("NEW", "+ 1") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS word_section_AFTER_DELETE "
+                + "AFTER DELETE ON `word_table` WHEN OLD.deleted_at = 0 BEGIN "
+                + sectionDelta("OLD", "- 1") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS word_section_AFTER_UPDATE_OLD "
+                + "AFTER UPDATE OF `word`, `deleted_at` ON `word_table` WHEN OLD.deleted_at = 0 BEGIN "
+                + sectionDelta("OLD", "- 1") + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS word_section_AFTER_UPDATE_NEW "
+                + "AFTER UPDATE OF `word`, `deleted_at` ON `word_table` WHEN NEW.deleted_at = 0 BEGIN "
+                + sectionDelta("NEW", "+ 1") + "END");
+    }
+
+    /**
+     * Triggers que crean la fila de word_meta de cada palabra nueva y actualizan
+     * updated_at cuando cambia su texto. Así todas las formas de insertar
+     * (la lista inicial, las importaciones, el escritor) dejan la tabla completa.
+     */
+    static void createMetaTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS word_meta_AFTER_INSERT "
+                + "AFTER INSERT ON `word_table` BEGIN "
+                + "INSERT OR IGNORE INTO word_meta (word_id, created_at, updated_at) "
+                + "VALUES (NEW.id, " + NOW_MILLIS + ", " + NOW_MILLIS + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS word_meta_AFTER_UPDATE "
+                + "AFTER UPDATE OF `word` ON `word_table` BEGIN "
+                + "UPDATE word_meta SET updated_at = " + NOW_MILLIS
+                + " WHERE word_id = NEW.id; END");
+    }
+
+    /**
+     * Triggers que registran en word_change cada palabra nueva, cada cambio de texto
+     * (también sólo de mayúsculas) y cada borrado o recuperación; al insertar crean
+     * además su fila de word_sync. Cambiar deleted_at de una palabra ya borrada no se
+     * registra. WordSyncDao borra los cambios que producen sus propias escrituras.
+     */
+    static void createSyncTriggers(SupportSQLiteDatabase db) {
+        String logChange = "INSERT INTO word_change (sync_id, word, deleted, base_version) "
+                + "SELECT sync_id, NEW.word, NEW.deleted_at != 0, version FROM word_sync "
+                + "WHERE word_id = NEW.id; ";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS word_change_AFTER_INSERT "
+                + "AFTER INSERT ON `word_table` BEGIN "
+                + "INSERT OR IGNORE INTO word_sync (word_id, sync_id) "
+                + "VALUES (NEW.id, " + RANDOM_SYNC_ID + "); " + logChange + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS word_change_AFTER_UPDATE "
+                + "AFTER UPDATE OF `word`, `deleted_at` ON `word_table` "
+                + "WHEN OLD.word != NEW.word COLLATE BINARY "
+                + "OR (OLD.deleted_at = 0) != (NEW.deleted_at = 0) BEGIN " + logChange + "END");
+    }
+
+    /**
+     * Los triggers de actualización que genera Room reindexan word_fts con cualquier
+     * UPDATE de word_table; se reemplazan por unos que sólo reaccionan a cambios de word,
+     * así un borrado lógico (o deshacerlo) no toca el índice de búsqueda.
+     */
+    static void narrowFtsUpdateTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_word_fts_BEFORE_UPDATE");
+        db.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_word_fts_AFTER_UPDATE");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_word_fts_BEFORE_UPDATE "
+                + "BEFORE UPDATE OF `word` ON `word_table` BEGIN "
+                + "DELETE FROM `word_fts` WHERE `docid`=OLD.`rowid`; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_word_fts_AFTER_UPDATE "
+                + "AFTER UPDATE OF `word` ON `word_table` BEGIN "
+                + "INSERT INTO `word_fts`(`docid`, `word`) VALUES (NEW.`rowid`, NEW.`word`); END");
+    }
+
+    /**
+     * Room borra sus triggers de word_fts antes de cada migración y los vuelve a crear
+     * después, con los de actualización completos; también los crea así en una base de
+     * datos nueva. Al abrir se acotan otra vez, pero sólo si Room los reemplazó: lo
+     * normal es que ya estén acotados y no se escriba nada.
+     */
+    static void ensureNarrowFtsUpdateTriggers(SupportSQLiteDatabase db) {
+        Cursor cursor = db.query("SELECT sql FROM sqlite_master WHERE type = 'trigger' "
+                + "AND name = 'room_fts_content_sync_word_fts_AFTER_UPDATE'");
+        try {
+            if (cursor.moveToFirst() && cursor.getString(0).contains("UPDATE OF `word`")) {
+                return;
+            }
+        } finally {
+            cursor.close();
+        }
+        narrowFtsUpdateTriggers(db);
+    }
+
+    //Sección de una palabra; WordSectionIndex.labelOf calcula lo mismo en Java
+    private static String sectionOf(String word) {
+        return "upper(substr(" + word + ", 1, 1))";
+    }
+
+    private static String sectionDelta(String row, String delta) {
+        String section = sectionOf(row + ".word");
+        return "INSERT OR IGNORE INTO word_section (section, count) VALUES (" + section + ", 0); "
+                + "UPDATE word_section SET count = count " + delta
+                + " WHERE section = " + section + "; "
+                + "DELETE FROM word_section WHERE section = " + section + " AND count <= 0; ";
+    }
+
+    /**
+     * Triggers que mantienen word_fts al día con word_table.
+     */
+    static void createFtsTriggers(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_word_fts_BEFORE_UPDATE "
+                + "BEFORE UPDATE ON `word_table` BEGIN "
+                + "DELETE FROM `word_fts` WHERE `docid`=OLD.`rowid`; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_word_fts_BEFORE_DELETE "
+                + "BEFORE DELETE ON `word_table` BEGIN "
+                + "DELETE FROM `word_fts` WHERE `docid`=OLD.`rowid`; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_word_fts_AFTER_UPDATE "
+                + "AFTER UPDATE ON `word_table` BEGIN "
+                + "INSERT INTO `word_fts`(`docid`, `word`) VALUES (NEW.`rowid`, NEW.`word`); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_word_fts_AFTER_INSERT "
+                + "AFTER INSERT ON `word_table` BEGIN "
+                + "INSERT INTO `word_fts`(`docid`, `word`) VALUES (NEW.`rowid`, NEW.`word`); END");
+    }
+}
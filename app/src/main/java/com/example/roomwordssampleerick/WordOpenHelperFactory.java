@@ -0,0 +1,105 @@
+package com.example.roomwordssampleerick;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+
+/**
+ * Fábrica del open helper de Room que aplica los PRAGMA de WordDatabaseConfig
+ * cada vez que se abre la base de datos, antes de que Room la use.
+ *
+ * El resto del trabajo lo hace el open helper del framework, que ya reutiliza
+ * las sentencias preparadas por conexión; Room además reutiliza las sentencias
+ * de inserción, actualización y borrado de cada DAO.
+ */
+
+class WordOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+
+    private final SupportSQLiteOpenHelper.Factory mDelegate = new FrameworkSQLiteOpenHelperFactory();
+    private final WordDatabaseConfig mConfig;
+
+    WordOpenHelperFactory(WordDatabaseConfig config) {
+        mConfig = config;
+    }
+
+    @Override
+    public SupportSQLiteOpenHelper create(SupportSQLiteOpenHelper.Configuration configuration) {
+        SupportSQLiteOpenHelper.Configuration configured =
+                SupportSQLiteOpenHelper.Configuration.builder(configuration.context)
+                        .name(configuration.name)
+                        .callback(new ConfiguringCallback(configuration.callback, mConfig))
+                        .build();
+        return mDelegate.create(configured);
+    }
+
+    /**
+     * Ejecuta un PRAGMA que puede devolver una fila (execSQL no lo permite).
+     */
+    static void pragma(SupportSQLiteDatabase db, String pragma) {
+        Cursor cursor = db.query("PRAGMA " + pragma);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Delega en el callback de Room y aplica la configuración en onConfigure,
+     * que se ejecuta fuera de cualquier transacción.
+     * Los PRAGMA se aplican a la conexión principal (la del escritor);
+     * las conexiones de lectura del framework usan sus valores globales.
+     */
+    private static class ConfiguringCallback extends SupportSQLiteOpenHelper.Callback {
+
+        private final SupportSQLiteOpenHelper.Callback mDelegate;
+        private final WordDatabaseConfig mConfig;
+
+        ConfiguringCallback(SupportSQLiteOpenHelper.Callback delegate, WordDatabaseConfig config) {
+            super(delegate.version);
+            mDelegate = delegate;
+            mConfig = config;
+        }
+
+        @Override
+        public void onConfigure(@NonNull SupportSQLiteDatabase db) {
+            mDelegate.onConfigure(db);
+            pragma(db, "synchronous = " + mConfig.synchronous);
+            pragma(db, "cache_size = " + -mConfig.cacheSizeKb);
+            pragma(db, "mmap_size = " + mConfig.mmapSizeBytes);
+            pragma(db, "wal_autocheckpoint = " + mConfig.walAutoCheckpointPages);
+            pragma(db, "journal_size_limit = " + mConfig.journalSizeLimitBytes);
+            //Sólo tiene efecto antes de crear la primera tabla; WordCompactor convierte
+            //las bases de datos existentes
+            pragma(db, "auto_vacuum = INCREMENTAL");
+        }
+
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            mDelegate.onCreate(db);
+        }
+
+        @Override
+        public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+            mDelegate.onUpgrade(db, oldVersion, newVersion);
+        }
+
+        @Override
+        public void onDowngrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+            mDelegate.onDowngrade(db, oldVersion, newVersion);
+        }
+
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            mDelegate.onOpen(db);
+        }
+
+        @Override
+        public void onCorruption(@NonNull SupportSQLiteDatabase db) {
+            mDelegate.onCorruption(db);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.roomwordssampleerick;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cambios que el usuario ya ve en pantalla pero que la lista cargada de la base de datos
+ * todavía no refleja: inserciones, ediciones y borrados pendientes.
+ *
+ * Es inmutable; cada cambio produce un overlay nuevo que el ViewModel publica y los
+ * adaptadores aplican al enlazar las filas. Un cambio se descarta cuando llega una lista
+ * cargada después de que su escritura se confirmó.
+ */
+
+final class WordOverlay {
+
+    static final int INSERT = 0;
+    static final int UPDATE = 1;
+    static final int DELETE = 2;
+
+    static final WordOverlay EMPTY = new WordOverlay(new LinkedHashMap<Integer, Change>());
+
+    //Por id de palabra; las inserciones pendientes usan ids temporales negativos
+    private final Map<Integer, Change> mChanges;
+
+    private WordOverlay(Map<Integer, Change> changes) {
+        mChanges = changes;
+    }
+
+    boolean isEmpty() {
+        return mChanges.isEmpty();
+    }
+
+    boolean isDeleted(int id) {
+        Change change = mChanges.get(id);
+        return change != null && change.mType == DELETE;
+    }
+
+    /**
+     * La palabra tal como debe mostrarse: con el texto editado si hay una edición pendiente.
+     */
+    Word shown(Word word) {
+        Change change = mChanges.get(word.getId());
+        if (change != null && change.mType == UPDATE) {
+            return change.mWord;
+        }
+        return word;
+    }
+
+    /**
+     * Ids de las palabras que se muestran distinto con este overlay que con el anterior:
+     * tienen un cambio en uno solo de los dos, o cambios que no muestran lo mismo.
+     */
+    Set<Integer> changedSince(WordOverlay previous) {
+        Set<Integer> ids = new HashSet<>();
+        for (Map.Entry<Integer, Change> entry : mChanges.entrySet()) {
+            if (!showsTheSame(entry.getValue(), previous.mChanges.get(entry.getKey()))) {
+                ids.add(entry.getKey());
+            }
+        }
+        for (Integer id : previous.mChanges.keySet()) {
+            if (!mChanges.containsKey(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    //Confirmar un cambio no cambia lo que se muestra
+    private static boolean showsTheSame(Change change, Change other) {
+        return other != null && change.mType == other.mType
+                && change.mWord.getWord().equals(other.mWord.getWord());
+    }
+
+    /**
+     * Palabras insertadas que aún no aparecen en la lista de la base de datos,
+     * en el orden en que se insertaron.
+     */
+    List<Word> pendingInserts() {
+        List<Word> words = new ArrayList<>();
+        for (Change change : mChanges.values()) {
+            if (change.mType == INSERT) {
+                words.add(change.mWord);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Aplica los borrados y ediciones a una lista completa, como los resultados de búsqueda.
+     */
+    List<Word> apply(List<Word> words) {
+        if (mChanges.isEmpty()) {
+            return words;
+        }
+        List<Word> result = new ArrayList<>(words.size());
+        for (Word word : words) {
+            if (!isDeleted(word.getId())) {
+                result.add(shown(word));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Agrega un cambio; reemplaza a cualquier otro cambio pendiente sobre la misma palabra.
+     */
+    WordOverlay with(Change change) {
+        Map<Integer, Change> changes = new LinkedHashMap<>(mChanges);
+        changes.put(change.mWord.getId(), change);
+        return new WordOverlay(changes);
+    }
+
+    /**
+     * Quita un cambio (por ejemplo al deshacerlo o al revertirlo porque la escritura falló).
+     * No hace nada si el cambio ya fue reemplazado por otro.
+     */
+    WordOverlay without(Change change) {
+        int id = change.mWord.getId();
+        if (mChanges.get(id) != change) {
+            return this;
+        }
+        Map<Integer, Change> changes = new LinkedHashMap<>(mChanges);
+        changes.remove(id);
+        return new WordOverlay(changes);
+    }
+
+    /**
+     * Marca un cambio como confirmado en la base de datos en el instante dado
+     * (System.nanoTime()). No hace nada si el cambio ya fue reemplazado por otro.
+     */
+    WordOverlay committed(Change change, long committedNanos) {
+        int id = change.mWord.getId();
+        if (mChanges.get(id) != change) {
+            return this;
+        }
+        Map<Integer, Change> changes = new LinkedHashMap<>(mChanges);
+        changes.put(id, new Change(change, committedNanos));
+        return new WordOverlay(changes);
+    }
+
+    /**
+     * Descarta los cambios confirmados antes de que se empezara a cargar una lista
+     * (loadedNanos, en System.nanoTime()): esa lista ya los incluye.
+     */
+    WordOverlay reconciled(long loadedNanos) {
+        Map<Integer, Change> changes = null;
+        for (Change change : mChanges.values()) {
+            if (change.isCommitted() && change.mCommittedNanos - loadedNanos < 0) {
+                if (changes == null) {
+                    changes = new LinkedHashMap<>(mChanges);
+                }
+                changes.remove(change.mWord.getId());
+            }
+        }
+        return changes != null ? new WordOverlay(changes) : this;
+    }
+
+    /**
+     * Un cambio pendiente. Las inserciones llevan una palabra con id temporal,
+     * las ediciones la palabra con su texto nuevo y los borrados la palabra borrada.
+     */
+    static final class Change {
+        final int mType;
+        final Word mWord;
+        //Sólo es válido si isCommitted()
+        final long mCommittedNanos;
+        private final boolean mCommitted;
+
+        Change(int type, Word word) {
+            mType = type;
+            mWord = word;
+            mCommittedNanos = 0;
+            mCommitted = false;
+        }
+
+        private Change(Change pending, long committedNanos) {
+            mType = pending.mType;
+            mWord = pending.mWord;
+            mCommittedNanos = committedNanos;
+            mCommitted = true;
+        }
+
+        boolean isCommitted() {
+            return mCommitted;
+        }
+    }
+}
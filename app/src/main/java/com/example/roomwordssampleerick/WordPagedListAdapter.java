@@ -0,0 +1,160 @@
+package com.example.roomwordssampleerick;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.PagedList;
+import androidx.paging.PagedListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Set;
+
+/**
+ * Adaptador paginado para el RecyclerView que muestra la lista de palabras.
+ * Sólo mantiene en memoria las páginas cargadas por WordKeyedDataSource,
+ * y las diferencias entre listas se calculan en segundo plano.
+ * Sobre cada fila aplica el WordOverlay: las palabras con un borrado pendiente se
+ * colapsan y las que tienen una edición pendiente muestran el texto nuevo.
+ * Las filas las crea y enlaza un WordRowRenderer, con el texto medido en segundo plano.
+ */
+
+public class WordPagedListAdapter extends PagedListAdapter<Word, WordRowRenderer.Holder>
+        implements WordRowRenderer.TextSource {
+
+    //Indica que sólo cambió el overlay; las filas se vuelven a enlazar sin animación de cambio
+    private static final Object OVERLAY_PAYLOAD = new Object();
+
+    private final WordRowRenderer mRenderer = new WordRowRenderer();
+    private WordListAdapter.ClickListener mClickListener;
+    private WordOverlay mOverlay = WordOverlay.EMPTY;
+
+    WordPagedListAdapter() {
+        super(WordListAdapter.DIFF_CALLBACK);
+        setHasStableIds(true);
+    }
+
+    @NonNull
+    @Override
+    public WordRowRenderer.Holder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return mRenderer.createHolder(parent);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull WordRowRenderer.Holder holder, int position) {
+        long start = System.nanoTime();
+        Word current = getItem(position);
+        holder.mClickListener = mClickListener;
+        if (current != null) {
+            setCollapsed(holder.itemView, mOverlay.isDeleted(current.getId()));
+            mRenderer.bind(holder, mOverlay.shown(current).getWord());
+        } else {
+            //Cubre el caso de que la página aún no esté cargada
+            setCollapsed(holder.itemView, false);
+            mRenderer.bind(holder, R.string.no_word);
+        }
+        mRenderer.onBound(position, this);
+        WordMetrics.recordSince(WordMetrics.BIND, start);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return WordRowRenderer.VIEW_TYPE;
+    }
+
+    /**
+     * Texto de una fila ya cargada, tal como se mostrará; no dispara la carga de páginas.
+     */
+    @Nullable
+    @Override
+    public String getTextAt(int position) {
+        PagedList<Word> words = getCurrentList();
+        Word word = words != null ? words.get(position) : null;
+        return word != null ? mOverlay.shown(word).getWord() : null;
+    }
+
+    /**
+     * Una fila borrada conserva su posición en la lista, pero no ocupa espacio.
+     */
+    private static void setCollapsed(View itemView, boolean collapsed) {
+        ViewGroup.LayoutParams params = itemView.getLayoutParams();
+        int height = collapsed ? 0 : ViewGroup.LayoutParams.WRAP_CONTENT;
+        if (params.height != height) {
+            params.height = height;
+            itemView.setLayoutParams(params);
+        }
+        itemView.setVisibility(collapsed ? View.INVISIBLE : View.VISIBLE);
+    }
+
+    /**
+     * Aplica un nuevo overlay. Sólo se avisa de las filas cargadas cuyo id tiene un cambio
+     * en el overlay anterior o en el nuevo; de ellas, sólo las visibles se vuelven a enlazar.
+     */
+    void setOverlay(WordOverlay overlay) {
+        if (overlay == mOverlay) {
+            return;
+        }
+        Set<Integer> changed = overlay.changedSince(mOverlay);
+        mOverlay = overlay;
+        PagedList<Word> words = getCurrentList();
+        if (changed.isEmpty() || words == null) {
+            return;
+        }
+        //Se lee la lista directamente, como en getItemId(), para no disparar cargas
+        for (int position = 0; position < words.size(); position++) {
+            Word word = words.get(position);
+            if (word != null && changed.contains(word.getId())) {
+                notifyItemChanged(position, OVERLAY_PAYLOAD);
+            }
+        }
+    }
+
+    @Override
+    public void submitList(@Nullable PagedList<Word> pagedList) {
+        submitList(pagedList, null);
+    }
+
+    /**
+     * Entrega una nueva lista y registra cuánto tardó en calcularse y aplicarse la diferencia.
+     * commitCallback se ejecuta cuando la lista ya se muestra.
+     */
+    @Override
+    public void submitList(@Nullable PagedList<Word> pagedList,
+                           @Nullable final Runnable commitCallback) {
+        final long start = System.nanoTime();
+        super.submitList(pagedList, new Runnable() {
+            @Override
+            public void run() {
+                WordMetrics.recordSince(WordMetrics.DIFF, start);
+                if (commitCallback != null) {
+                    commitCallback.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Se lee directamente de la lista actual para no disparar cargas de páginas
+     * desde getItemId().
+     */
+    @Override
+    public long getItemId(int position) {
+        PagedList<Word> words = getCurrentList();
+        Word word = words != null ? words.get(position) : null;
+        return word != null ? word.getId() : RecyclerView.NO_ID;
+    }
+
+    /**
+     * Obtiene la palabra en una posición dada, tal como se muestra,
+     * o null si aún no se ha cargado.
+     */
+    public Word getWordAtPosition(int position) {
+        Word word = getItem(position);
+        return word != null ? mOverlay.shown(word) : null;
+    }
+
+    public void setOnItemClickListener(WordListAdapter.ClickListener clickListener) {
+        mClickListener = clickListener;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.roomwordssampleerick;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+import androidx.room.InvalidationTracker;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LiveData que vuelve a ejecutar una consulta cuando cambian sus tablas, como la que
+ * genera Room, pero agrupando las invalidaciones con un WordInvalidationThrottle:
+ * las que llegan dentro de la ventana producen una sola consulta, y no se lanza otra
+ * mientras haya una en curso.
+ *
+ * Si las tablas cambiaron mientras se consultaba, el resultado ya es viejo y se descarta
+ * (la siguiente consulta está en camino), salvo que lo publicado tenga más de MAX_STALE_MS.
+ *
+ * Con varios fragmentos (WordShards) observa las tablas en todos; las consultas corren
+ * en los lectores del fragmento 0.
+ */
+
+class WordQueryLiveData<T> extends LiveData<T> {
+
+    private static final String TAG = "WordQueryLiveData";
+
+    //Tiempo máximo sin publicar un resultado durante una ráfaga continua de escrituras
+    private static final long MAX_STALE_MS = 1000;
+
+    private final Callable<T> mQuery;
+    private final WordInvalidationThrottle mThrottle;
+    //Las tablas cambiaron mientras no había observadores
+    private final AtomicBoolean mStale = new AtomicBoolean(true);
+    private volatile long mPublishedNanos;
+    private volatile boolean mPublished;
+
+    WordQueryLiveData(final WordShards shards, long windowMs, Callable<T> query,
+                      String... tables) {
+        mQuery = query;
+        WordDatabaseExecutors executors = shards.get(0).getExecutors();
+        mThrottle = new WordInvalidationThrottle(executors.scheduler(), executors.readers(),
+                windowMs, new Runnable() {
+                    @Override
+                    public void run() {
+                        refresh();
+                    }
+                });
+
+        final InvalidationTracker.Observer observer = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> changed) {
+                if (hasActiveObservers()) {
+                    mThrottle.onInvalidated();
+                } else {
+                    mStale.set(true);
+                }
+            }
+        };
+        //addObserver puede tocar la base de datos, así que no se llama en el hilo principal
+        executors.readers().execute(new Runnable() {
+            @Override
+            public void run() {
+                shards.addObserver(observer);
+            }
+        });
+    }
+
+    /**
+     * Al volver a tener observadores se consulta de inmediato si algo cambió entretanto.
+     */
+    @Override
+    protected void onActive() {
+        if (mStale.compareAndSet(true, false)) {
+            mThrottle.runNow();
+        }
+    }
+
+    @WorkerThread
+    private void refresh() {
+        T value;
+        try {
+            value = mQuery.call();
+        } catch (Exception e) {
+            Log.e(TAG, "Query failed", e);
+            return;
+        }
+        WordMetrics.REQUERIES.incrementAndGet();
+
+        long now = System.nanoTime();
+        if (mPublished && mThrottle.isDirty()
+                && now - mPublishedNanos < TimeUnit.MILLISECONDS.toNanos(MAX_STALE_MS)) {
+            WordMetrics.DROPPED_RESULTS.incrementAndGet();
+            return;
+        }
+        mPublished = true;
+        mPublishedNanos = now;
+        postValue(value);
+    }
+}
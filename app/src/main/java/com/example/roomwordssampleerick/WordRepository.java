@@ -1,11 +1,48 @@
 package com.example.roomwordssampleerick;
 
 import android.app.Application;
-import android.os.AsyncTask;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ProcessLifecycleOwner;
+import androidx.paging.LivePagedListBuilder;
+import androidx.paging.PagedList;
+import androidx.room.InvalidationTracker;
+import androidx.room.RxRoom;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * Esta clase contiene el código de implementación para los métodos que interactúan con la base de datos.
@@ -17,108 +54,709 @@ import java.util.List;
  *
  * Normalmente, todo lo que necesita hacer para implementar un método de base de datos
  * es llamarlo en el objeto de acceso a datos (DAO), en segundo plano si corresponde.
+ * Las escrituras se agrupan con WordWriteCoalescer para confirmar varias en una
+ * sola transacción. Las que deben confirmarse juntas, sin estados intermedios visibles,
+ * se preparan en una WordTransaction y se confirman con commit().
+ *
+ * Hay un solo repositorio por proceso (getInstance), compartido por todos los ViewModel.
+ * Las búsquedas puntuales por id o por texto pasan primero por una WordCache.
+ * Las consultas que se combinan o transforman fuera del hilo principal se exponen
+ * también como flujos de RxJava (observe*), con contrapresión y cancelación.
+ * Los borrados son lógicos y se pueden deshacer; WordCompactor purga las filas después.
+ *
+ * Con varios fragmentos (WordShards), cada escritura va al fragmento de su palabra, con
+ * su propio WordWriteCoalescer y WordCompactor, y las lecturas pasan por WordShardRouter.
+ *
+ * La lista ordenada se guarda además en un WordSnapshotFile, que se reescribe cuando la
+ * app pasa a segundo plano si la lista cambió; en un arranque en frío se lee antes de abrir
+ * la base de datos y se muestra hasta que llega la primera lista de Room.
  */
 
 public class WordRepository {
 
+    private static final String TAG = "WordRepository";
+
+    //Tamaño de página y distancia de precarga de la lista paginada
+    static final int PAGE_SIZE = 50;
+    private static final PagedList.Config PAGED_LIST_CONFIG = new PagedList.Config.Builder()
+            .setPageSize(PAGE_SIZE)
+            .setPrefetchDistance(PAGE_SIZE * 2)
+            .setInitialLoadSizeHint(PAGE_SIZE * 3)
+            .setEnablePlaceholders(false)
+            .build();
+
+    //Ventana durante la cual se agrupan las invalidaciones de word_table antes de volver a consultar
+    static final long INVALIDATION_WINDOW_MS = 100;
+
+    //Tamaño máximo aproximado de la caché de palabras
+    private static final int CACHE_BYTES = 1024 * 1024;
+
+    //Espera antes de purgar lo que quedó borrado de una sesión anterior, lejos del arranque
+    private static final long STARTUP_COMPACTION_DELAY_MS = 10000;
+
+
+    private static volatile WordRepository INSTANCE;
+
+    //Fragmento 0; con un solo fragmento, la base de datos completa
+    private final WordRoomDatabase mDb;
+    private final WordShards mShards;
+    private final WordShardRouter mRouter;
     private WordDao mWordDao;
-    private LiveData<List<Word>> mAllWords;
+    private final WordMetaDao mWordMetaDao;
+    private WordDatabaseExecutors mExecutors;
+    private final WordCache mCache = new WordCache(CACHE_BYTES);
+    //Los flujos reactivos consultan en el grupo de lectores
+    private final Scheduler mReadScheduler;
+    private final WordKeyedDataSource.Factory mDataSourceFactory;
+    private LiveData<WordSectionIndex> mSections;
+    //Todas las escrituras pasan por aquí y se agrupan en transacciones; uno por fragmento
+    private final WordWriteCoalescer[] mWriteCoalescers;
+    private final WordCompactor[] mCompactors;
+    //Último valor de deleted_at entregado; cada borrado recibe uno distinto
+    private final AtomicLong mLastDeletedAt = new AtomicLong();
+    //Copia de la lista para el arranque en frío, y la lista leída de ella
+    private final WordSnapshotFile mSnapshotFile;
+    //true si word_table cambió desde la última copia guardada
+    private final AtomicBoolean mSnapshotDirty = new AtomicBoolean();
+    private final MutableLiveData<WordSnapshot> mColdStartWords = new MutableLiveData<>();
 
-    WordRepository(Application application) {
-        WordRoomDatabase db = WordRoomDatabase.getDatabase(application);
+    static WordRepository getInstance(Application application) {
+        if (INSTANCE == null) {
+            synchronized (WordRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new WordRepository(application);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private WordRepository(Application application) {
+        mShards = WordShards.get(application);
+        mRouter = new WordShardRouter(mShards);
+        final WordRoomDatabase db = mShards.get(0);
+        mDb = db;
         mWordDao = db.wordDao();
-        mAllWords = mWordDao.getAllWords();
+        mWordMetaDao = db.wordMetaDao();
+        mExecutors = db.getExecutors();
+        //La copia se lee primero, en el hilo de trabajos, mientras Room abre la base de datos
+        mSnapshotFile = WordSnapshotFile.forApp(application, mShards.count());
+        //Cada escritura de la copia lee y guarda la lista completa, así que se hace una vez
+        //por sesión, al pasar a segundo plano, y no tras cada ráfaga de cambios
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                ProcessLifecycleOwner.get().getLifecycle().addObserver(
+                        new LifecycleEventObserver() {
+                            @Override
+                            public void onStateChanged(@NonNull LifecycleOwner source,
+                                                       @NonNull Lifecycle.Event event) {
+                                if (event == Lifecycle.Event.ON_STOP) {
+                                    onAppStopped();
+                                }
+                            }
+                        });
+            }
+        });
+        mExecutors.executeJob(new Callable<Void>() {
+            @Override
+            public Void call() {
+                mColdStartWords.postValue(readSnapshotFile());
+                return null;
+            }
+        }, null);
+        mReadScheduler = Schedulers.from(mExecutors.readers());
+        mWriteCoalescers = new WordWriteCoalescer[mShards.count()];
+        mCompactors = new WordCompactor[mShards.count()];
+        for (int i = 0; i < mShards.count(); i++) {
+            mWriteCoalescers[i] = new WordWriteCoalescer(mShards.get(i));
+            mCompactors[i] = new WordCompactor(mShards.get(i));
+            mCompactors[i].schedule(STARTUP_COMPACTION_DELAY_MS);
+        }
+        mDataSourceFactory = new WordKeyedDataSource.Factory(mRouter, INVALIDATION_WINDOW_MS);
+        //Una ráfaga de escrituras produce unas pocas consultas en lugar de una por escritura;
+        //word_section tiene una fila por letra, así que leerla es barato
+        mSections = new WordQueryLiveData<>(mShards, INVALIDATION_WINDOW_MS,
+                new Callable<WordSectionIndex>() {
+                    @Override
+                    public WordSectionIndex call() {
+                        return WordSectionIndex.of(mRouter.getSections());
+                    }
+                }, "word_section");
+
+        //Cualquier cambio en word_table vacía la caché
+        mExecutors.readers().execute(new Runnable() {
+            @Override
+            public void run() {
+                mShards.addObserver(
+                        new InvalidationTracker.Observer("word_table") {
+                            @Override
+                            public void onInvalidated(@NonNull Set<String> tables) {
+                                WordMetrics.INVALIDATIONS.incrementAndGet();
+                                mCache.invalidate();
+                                mSnapshotDirty.set(true);
+                            }
+                        });
+            }
+        });
     }
 
-    LiveData<List<Word>> getAllWords() {
-        return mAllWords;
+    /**
+     * La lista guardada en el último uso, para mostrar mientras se abre la base de datos.
+     * Vacía si no había una copia válida o si ya se llamó a releaseColdStartWords().
+     */
+    LiveData<WordSnapshot> getColdStartWords() {
+        return mColdStartWords;
     }
 
-    public void insert (Word word) {
-        new insertAsyncTask(mWordDao).execute(word);
+    /**
+     * Suelta la lista guardada una vez que se muestra la de la base de datos.
+     * Debe llamarse en el hilo principal.
+     */
+    void releaseColdStartWords() {
+        if (mColdStartWords.getValue() != WordSnapshot.EMPTY) {
+            mColdStartWords.setValue(WordSnapshot.EMPTY);
+        }
     }
 
-    public void update(Word word)  {
-        new updateWordAsyncTask(mWordDao).execute(word);
+    /**
+     * Lista paginada de palabras ordenadas; sólo se cargan las páginas cercanas
+     * a la posición visible. Con una clave inicial, la lista empieza alrededor de
+     * esa clave sin cargar las filas anteriores, por ejemplo al saltar a una letra.
+     */
+    LiveData<PagedList<Word>> getPagedWords(@Nullable Word initialKey) {
+        return new LivePagedListBuilder<>(mDataSourceFactory, PAGED_LIST_CONFIG)
+                .setInitialLoadKey(initialKey)
+                .setFetchExecutor(mExecutors.readers())
+                .build();
     }
 
-    public void deleteAll()  {
-        new deleteAllWordsAsyncTask(mWordDao).execute();
+    /**
+     * Índice de secciones por primera letra, mantenido por triggers en word_section.
+     */
+    LiveData<WordSectionIndex> getSections() {
+        return mSections;
     }
 
-    //Debe ejecutarse fuera del hilo principal
-    public void deleteWord(Word word) {
-        new deleteWordAsyncTask(mWordDao).execute(word);
+    /**
+     * Flujo que ejecuta la consulta al suscribirse y otra vez cada vez que cambian las tablas.
+     * Las invalidaciones se agrupan en INVALIDATION_WINDOW_MS y, si el suscriptor va atrasado,
+     * sólo se conserva la última, así que nunca hay más de una consulta pendiente.
+     * Las consultas corren en el grupo de lectores; cancelar la suscripción quita el
+     * observador de Room.
+     */
+    <T> Flowable<T> observe(final Callable<T> query, String... tables) {
+        List<Flowable<Object>> invalidations = new ArrayList<>(mShards.count());
+        for (int i = 0; i < mShards.count(); i++) {
+            invalidations.add(RxRoom.createFlowable(mShards.get(i), tables));
+        }
+        return Flowable.merge(invalidations)
+                .throttleLatest(INVALIDATION_WINDOW_MS, TimeUnit.MILLISECONDS, mReadScheduler, true)
+                .onBackpressureLatest()
+                .observeOn(mReadScheduler, false, 1)
+                .map(new Function<Object, T>() {
+                    @Override
+                    public T apply(Object ignored) throws Exception {
+                        return query.call();
+                    }
+                });
+    }
+
+    /**
+     * Índice de secciones, como flujo; cada valor se arma en el grupo de lectores.
+     */
+    Flowable<WordSectionIndex> observeSections() {
+        if (mShards.count() > 1) {
+            return observe(new Callable<WordSectionIndex>() {
+                @Override
+                public WordSectionIndex call() {
+                    return WordSectionIndex.of(mRouter.getSections());
+                }
+            }, "word_section");
+        }
+        return mWordDao.observeSections()
+                .map(new Function<List<WordSection>, WordSectionIndex>() {
+                    @Override
+                    public WordSectionIndex apply(List<WordSection> sections) {
+                        return WordSectionIndex.of(sections);
+                    }
+                });
+    }
+
+    Flowable<List<WordUsage>> observeMostUsed(final int limit) {
+        if (mShards.count() > 1) {
+            return observe(new Callable<List<WordUsage>>() {
+                @Override
+                public List<WordUsage> call() {
+                    return mRouter.getMostUsed(limit);
+                }
+            }, "word_meta", "word_table");
+        }
+        return mWordMetaDao.observeMostUsed(limit);
+    }
+
+    /**
+     * Busca palabras por prefijo de cada término y repite la búsqueda cuando cambian
+     * las palabras. Cada resultado incluye cuándo empezó su consulta.
+     */
+    Flowable<WordSearch.Results> observeSearch(String text) {
+        final String query = WordSearch.toMatchQuery(text);
+        if (query == null) {
+            return Flowable.just(
+                    new WordSearch.Results(System.nanoTime(), Collections.<Word>emptyList()));
+        }
+        return observe(new Callable<WordSearch.Results>() {
+            @Override
+            public WordSearch.Results call() {
+                long start = System.nanoTime();
+                List<Word> words = mRouter.searchWords(query, WordSearch.MAX_RESULTS);
+                WordMetrics.recordSince(WordMetrics.SEARCH, start);
+                WordMetrics.SEARCH_ROWS.record(words.size());
+                return new WordSearch.Results(start, words);
+            }
+        }, "word_table");
+    }
+
+    /**
+     * Las palabras más usadas, con su número de usos.
+     */
+    Future<List<WordUsage>> getMostUsed(final int limit,
+                                        WordDatabaseExecutors.Callback<List<WordUsage>> callback) {
+        return mExecutors.executeRead(new Callable<List<WordUsage>>() {
+            @Override
+            public List<WordUsage> call() {
+                return mRouter.getMostUsed(limit);
+            }
+        }, callback);
+    }
+
+    /**
+     * Las palabras creadas o editadas más recientemente.
+     */
+    Future<List<WordUsage>> getRecent(final int limit,
+                                      WordDatabaseExecutors.Callback<List<WordUsage>> callback) {
+        return mExecutors.executeRead(new Callable<List<WordUsage>>() {
+            @Override
+            public List<WordUsage> call() {
+                return mRouter.getRecent(limit);
+            }
+        }, callback);
+    }
+
+    /**
+     * Las palabras con una etiqueta (sin distinguir mayúsculas), en orden alfabético.
+     */
+    Future<List<Word>> getWordsByTag(final String tagName, final int limit,
+                                     WordDatabaseExecutors.Callback<List<Word>> callback) {
+        return mExecutors.executeRead(new Callable<List<Word>>() {
+            @Override
+            public List<Word> call() {
+                return mRouter.getWordsByTag(tagName, limit);
+            }
+        }, callback);
+    }
+
+    /**
+     * Una palabra con sus datos y etiquetas; null si no existe o está borrada.
+     */
+    Future<WordDetails> getDetails(final int id,
+                                   WordDatabaseExecutors.Callback<WordDetails> callback) {
+        return mExecutors.executeRead(new Callable<WordDetails>() {
+            @Override
+            public WordDetails call() {
+                return mShards.forId(id).wordMetaDao().getDetails(id);
+            }
+        }, callback);
     }
 
-    //Clases internas estáticas a continuación aquí para ejecutar interacciones de base de datos en segundo plano
+    /**
+     * Asigna una etiqueta a una palabra, creándola si hace falta.
+     */
+    Future<Integer> tagWord(final Word word, final String tagName,
+                            @Nullable WordDatabaseExecutors.Callback<Integer> callback) {
+        final WordRoomDatabase db = mShards.forId(word.getId());
+        return db.getExecutors().executeWrite(WordDatabaseExecutors.PRIORITY_USER,
+                new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return db.wordMetaDao().tagWord(word.getId(), tagName);
+                    }
+                }, callback);
+    }
 
     /**
-     * Inserta una palabra en la base de datos.
+     * Cuenta un uso de la palabra; se agrupa con las demás escrituras.
      */
-    private static class insertAsyncTask extends AsyncTask<Word, Void, Void> {
+    void recordUse(Word word) {
+        writerForId(word.getId()).recordUse(word);
+    }
 
-        private WordDao mAsyncTaskDao;
+    /**
+     * Busca una palabra por id; con un acierto en la caché no se consulta SQLite.
+     */
+    @WorkerThread
+    @Nullable
+    Word getWordSync(int id) {
+        Word cached = mCache.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = mCache.generation();
+        long start = System.nanoTime();
+        Word word = mRouter.getWordById(id);
+        WordMetrics.recordSince(WordMetrics.LOOKUP, start);
+        if (word != null) {
+            mCache.put(generation, word);
+        }
+        return word;
+    }
 
-        insertAsyncTask(WordDao dao) {
-            mAsyncTaskDao = dao;
+    /**
+     * Indica si ya existe una palabra con ese texto (sin distinguir mayúsculas).
+     * Tanto los aciertos como las ausencias quedan en la caché.
+     */
+    @WorkerThread
+    boolean containsWordSync(String text) {
+        Word cached = mCache.getByText(text);
+        if (cached != null) {
+            return !WordCache.isMissing(cached);
         }
+        long generation = mCache.generation();
+        long start = System.nanoTime();
+        Word word = mRouter.findWord(text);
+        WordMetrics.recordSince(WordMetrics.LOOKUP, start);
+        mCache.put(generation, text, word);
+        return word != null;
+    }
+
+    Future<Word> getWord(final int id, WordDatabaseExecutors.Callback<Word> callback) {
+        return mExecutors.executeRead(new Callable<Word>() {
+            @Override
+            public Word call() {
+                return getWordSync(id);
+            }
+        }, callback);
+    }
+
+    Future<Boolean> containsWord(final String text,
+                                 WordDatabaseExecutors.Callback<Boolean> callback) {
+        return mExecutors.executeRead(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return containsWordSync(text);
+            }
+        }, callback);
+    }
 
-        @Override
-        protected Void doInBackground(final Word... params) {
-            mAsyncTaskDao.insert(params[0]);
-            return null;
+    /**
+     * Importa las palabras de un archivo de texto o CSV en UTF-8, por bloques.
+     * Cancelar el Future con interrupción detiene la importación entre bloques.
+     */
+    Future<WordImporter.Result> importWords(final InputStream in,
+                                            final WordImporter.ProgressListener listener,
+                                            WordDatabaseExecutors.Callback<WordImporter.Result> callback) {
+        return mExecutors.executeJob(new Callable<WordImporter.Result>() {
+            @Override
+            public WordImporter.Result call() throws Exception {
+                return new WordImporter(mShards).importWords(
+                        new InputStreamReader(in, Charset.forName("UTF-8")), listener);
+            }
+        }, callback);
+    }
+
+    /**
+     * Exporta todas las palabras en orden a un archivo de texto en UTF-8.
+     */
+    Future<Long> exportWords(final OutputStream out,
+                             WordDatabaseExecutors.Callback<Long> callback) {
+        return mExecutors.executeJob(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                long start = System.nanoTime();
+                long written = new WordExporter(mShards).exportWords(
+                        new OutputStreamWriter(out, Charset.forName("UTF-8")));
+                WordMetrics.recordSince(WordMetrics.EXPORT, start);
+                return written;
+            }
+        }, callback);
+    }
+
+    /**
+     * Sincroniza las palabras con el servidor en server (una URL que termina en '/').
+     * Corre en el hilo de trabajos; las palabras borradas en otros dispositivos se purgan
+     * como las borradas aquí. La marca de agua es una sola, así que con varios fragmentos
+     * no se puede sincronizar.
+     */
+    Future<WordSyncEngine.Result> sync(final URL server,
+                                       WordDatabaseExecutors.Callback<WordSyncEngine.Result> callback) {
+        if (mShards.count() > 1) {
+            throw new IllegalStateException("Sync is not supported with " + mShards.count()
+                    + " shards");
         }
+        return mExecutors.executeJob(new Callable<WordSyncEngine.Result>() {
+            @Override
+            public WordSyncEngine.Result call() throws Exception {
+                WordSyncEngine.Result result =
+                        new WordSyncEngine(mDb, mExecutors, new WordSyncClient(server)).sync();
+                if (result.mPulled > 0 || result.mConflicts > 0) {
+                    mCompactors[0].scheduleAfterDelete();
+                }
+                return result;
+            }
+        }, callback);
+    }
+
+    /**
+     * Estado de SQLite (páginas, PRAGMA efectivos, caché de sentencias), leído en segundo plano.
+     */
+    Future<WordDatabaseStats> getDatabaseStats(
+            WordDatabaseExecutors.Callback<WordDatabaseStats> callback) {
+        return mExecutors.executeRead(new Callable<WordDatabaseStats>() {
+            @Override
+            public WordDatabaseStats call() {
+                return mDb.getStats();
+            }
+        }, callback);
+    }
+
+    /**
+     * Reúne en texto las métricas del proceso, las de la caché y el estado de SQLite.
+     */
+    Future<String> collectMetrics(WordDatabaseExecutors.Callback<String> callback) {
+        return mExecutors.executeRead(new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                StringWriter out = new StringWriter();
+                WordMetrics.dump(out);
+                out.write(mCache.toString());
+                out.write('\n');
+                for (int i = 0; i < mShards.count(); i++) {
+                    out.write(mShards.get(i).getStats().toString());
+                }
+                return out.toString();
+            }
+        }, callback);
+    }
+
+    /**
+     * Guarda las métricas en un archivo que se puede sacar del dispositivo con adb pull.
+     */
+    Future<File> saveMetrics(final Context context, final String metrics,
+                             WordDatabaseExecutors.Callback<File> callback) {
+        return mExecutors.executeJob(new Callable<File>() {
+            @Override
+            public File call() throws IOException {
+                return WordMetrics.dumpToFile(context, metrics);
+            }
+        }, callback);
     }
 
     /**
-     * Elimina todas las palabras de la base de datos (no elimina la tabla).
+     * Lee la copia de la lista. Si no hay una válida queda marcada para escribirse
+     * al pasar a segundo plano, así el próximo arranque ya la tiene.
      */
-    private static class deleteAllWordsAsyncTask extends AsyncTask<Void, Void, Void> {
-        private WordDao mAsyncTaskDao;
+    @WorkerThread
+    private WordSnapshot readSnapshotFile() {
+        long start = System.nanoTime();
+        WordSnapshot snapshot = null;
+        try {
+            snapshot = mSnapshotFile.read();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read the word snapshot", e);
+            mSnapshotFile.delete();
+        }
+        if (snapshot == null) {
+            mSnapshotDirty.set(true);
+            return WordSnapshot.EMPTY;
+        }
+        WordMetrics.recordSince(WordMetrics.SNAPSHOT_READ, start);
+        return snapshot;
+    }
 
-        deleteAllWordsAsyncTask(WordDao dao) {
-            mAsyncTaskDao = dao;
+    //Guarda la copia en el hilo de trabajos, lejos de los lectores que usa la interfaz
+    private void onAppStopped() {
+        if (!mSnapshotDirty.getAndSet(false)) {
+            return;
         }
+        mExecutors.executeJob(new Callable<Void>() {
+            @Override
+            public Void call() {
+                writeSnapshotFile();
+                return null;
+            }
+        }, null);
+    }
+
+    @WorkerThread
+    private void writeSnapshotFile() {
+        long start = System.nanoTime();
+        try {
+            mSnapshotFile.write(mRouter.loadSnapshot());
+            WordMetrics.recordSince(WordMetrics.SNAPSHOT_WRITE, start);
+        } catch (IOException e) {
+            //La copia anterior queda intacta; se vuelve a intentar la próxima vez
+            Log.w(TAG, "Could not write the word snapshot", e);
+            mSnapshotDirty.set(true);
+        }
+    }
+
+    /**
+     * Caché de palabras, con sus contadores de aciertos, fallos y desalojos.
+     */
+    WordCache getCache() {
+        return mCache;
+    }
+
+    public void insert (Word word) {
+        writerForText(word.getWord()).insert(word, null);
+    }
+
+    /**
+     * Inserta una palabra y entrega el id generado en el hilo principal.
+     */
+    public void insert(Word word, WordWriteCoalescer.WriteCallback callback) {
+        writerForText(word.getWord()).insert(word, callback);
+    }
 
-        @Override
-        protected Void doInBackground(Void... voids) {
-            mAsyncTaskDao.deleteAll();
-            return null;
+    /**
+     * Inserta varias palabras; las de cada fragmento se confirman en la misma transacción.
+     */
+    public void insertAll(List<Word> words) {
+        if (mShards.count() == 1) {
+            mWriteCoalescers[0].insertAll(words);
+            return;
+        }
+        List<List<Word>> parts = new ArrayList<>(mShards.count());
+        for (int i = 0; i < mShards.count(); i++) {
+            parts.add(new ArrayList<Word>());
         }
+        for (Word word : words) {
+            parts.get(WordShards.shardOf(word.getWord(), mShards.count())).add(word);
+        }
+        for (int i = 0; i < mShards.count(); i++) {
+            if (!parts.get(i).isEmpty()) {
+                mWriteCoalescers[i].insertAll(parts.get(i));
+            }
+        }
+    }
+
+    public void update(Word word)  {
+        update(word, null);
     }
 
     /**
-     * Elimina una sola palabra de la base de datos.
+     * Actualiza una palabra y avisa en el hilo principal cuando se confirmó.
+     * Si el texto nuevo corresponde a otro fragmento, la palabra se borra del suyo y se
+     * inserta en el otro con un id nuevo, que es el que recibe el callback; son dos
+     * transacciones, en archivos distintos.
      */
-    private static class deleteWordAsyncTask extends AsyncTask<Word, Void, Void> {
-        private WordDao mAsyncTaskDao;
+    public void update(Word word, @Nullable WordWriteCoalescer.WriteCallback callback) {
+        int from = WordShards.shardOfId(word.getId(), mShards.count());
+        int to = WordShards.shardOf(word.getWord(), mShards.count());
+        if (word.getId() == 0 || from == to) {
+            mWriteCoalescers[to].update(word, callback);
+            return;
+        }
+        mWriteCoalescers[from].delete(word, nextDeletedAt(), null);
+        mCompactors[from].scheduleAfterDelete();
+        mWriteCoalescers[to].insert(new Word(word.getWord()), callback);
+    }
 
-        deleteWordAsyncTask(WordDao dao) {
-            mAsyncTaskDao = dao;
+    /**
+     * Borra lógicamente todas las palabras con un único UPDATE; las filas se purgan
+     * en segundo plano cuando vence WordCompactor.GRACE_MS.
+     * @return el valor que identifica este borrado, para deshacerlo con restoreAll()
+     */
+    public long deleteAll()  {
+        long deletedAt = nextDeletedAt();
+        for (int i = 0; i < mShards.count(); i++) {
+            mWriteCoalescers[i].deleteAll(deletedAt);
+            mCompactors[i].scheduleAfterDelete();
         }
+        return deletedAt;
+    }
 
-        @Override
-        protected Void doInBackground(final Word... params) {
-            mAsyncTaskDao.deleteWord(params[0]);
-            return null;
+    /**
+     * Recupera las palabras borradas por el deleteAll() que devolvió deletedAt,
+     * si todavía no se purgaron.
+     */
+    void restoreAll(long deletedAt) {
+        for (WordWriteCoalescer writer : mWriteCoalescers) {
+            writer.restoreAll(deletedAt);
         }
     }
 
+    public void deleteWord(Word word) {
+        deleteWord(word, null);
+    }
+
+    /**
+     * Borra lógicamente una palabra y avisa en el hilo principal cuando se confirmó.
+     */
+    public void deleteWord(Word word, @Nullable WordWriteCoalescer.WriteCallback callback) {
+        int shard = WordShards.shardOfId(word.getId(), mShards.count());
+        mWriteCoalescers[shard].delete(word, nextDeletedAt(), callback);
+        mCompactors[shard].scheduleAfterDelete();
+    }
+
     /**
-     * Actualiza una palabra en la base de datos.
+     * Confirma una unidad de trabajo entera, en una sola transacción y en orden con las
+     * demás escrituras; el callback recibe cuántas de sus escrituras tuvieron efecto, o -1
+     * si se revirtió. Todas sus escrituras deben ir al mismo fragmento: entre archivos
+     * distintos no hay una transacción común.
      */
-    private static class updateWordAsyncTask extends AsyncTask<Word, Void, Void> {
-        private WordDao mAsyncTaskDao;
+    void commit(WordTransaction transaction, @Nullable WordWriteCoalescer.WriteCallback callback) {
+        int shard = transaction.getShard(mShards.count());
+        if (shard == -1) {
+            throw new IllegalStateException("A transaction cannot span " + mShards.count()
+                    + " shards");
+        }
+        mWriteCoalescers[shard].commit(transaction, nextDeletedAt(), callback);
+        if (transaction.hasDeletes()) {
+            mCompactors[shard].scheduleAfterDelete();
+        }
+    }
 
-        updateWordAsyncTask(WordDao dao) {
-            mAsyncTaskDao = dao;
+    /**
+     * Reemplaza todas las palabras por words en una sola transacción, así la lista pasa
+     * de la anterior a la nueva sin mostrarse vacía. Las palabras que siguen estando
+     * conservan su id. Sólo con un fragmento, como commit().
+     * @return la unidad, de la que se lee el id de cada palabra después de confirmarla
+     */
+    WordTransaction replaceAll(List<Word> words,
+                               @Nullable WordWriteCoalescer.WriteCallback callback) {
+        WordTransaction transaction = new WordTransaction();
+        transaction.deleteAll();
+        for (Word word : words) {
+            transaction.insert(word);
         }
+        commit(transaction, callback);
+        return transaction;
+    }
+
+    /**
+     * Deshace el borrado de una palabra que todavía no se purgó.
+     */
+    void restoreWord(Word word, @Nullable WordWriteCoalescer.WriteCallback callback) {
+        writerForId(word.getId()).restore(word, callback);
+    }
+
+    private WordWriteCoalescer writerForText(String text) {
+        return mWriteCoalescers[WordShards.shardOf(text, mShards.count())];
+    }
+
+    private WordWriteCoalescer writerForId(int id) {
+        return mWriteCoalescers[WordShards.shardOfId(id, mShards.count())];
+    }
 
-        @Override
-        protected Void doInBackground(final Word... params) {
-            mAsyncTaskDao.update(params[0]);
-            return null;
+    //Instante actual en milisegundos, distinto del de cualquier borrado anterior
+    private long nextDeletedAt() {
+        while (true) {
+            long last = mLastDeletedAt.get();
+            long next = Math.max(System.currentTimeMillis(), last + 1);
+            if (mLastDeletedAt.compareAndSet(last, next)) {
+                return next;
+            }
         }
     }
 }
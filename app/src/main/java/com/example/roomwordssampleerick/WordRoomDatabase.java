@@ -1,39 +1,56 @@
 package com.example.roomwordssampleerick;
 
+import android.content.ContentValues;
 import android.content.Context;
-import android.os.AsyncTask;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import java.util.concurrent.Callable;
+
 /**
  * WordRoomDatabase. Incluye código para crear la base de datos.
  * Después de que la aplicación crea la base de datos, todas las interacciones
  * sucede a través de la WordViewModel.
+ * La base de datos es dueña de sus ejecutores (WordDatabaseExecutors):
+ * Room hace sus consultas en el grupo de lectores y las escrituras pasan por un único escritor.
  */
 
-@Database(entities = {Word.class}, version = 2, exportSchema = false)
+@Database(entities = {Word.class, WordFts.class, WordSection.class, WordMeta.class, Tag.class,
+        WordTag.class, WordSync.class, WordChange.class, WordSyncState.class},
+        version = WordRoomDatabase.VERSION, exportSchema = true)
 public abstract class WordRoomDatabase extends RoomDatabase {
 
+    //Versión del esquema; WordSnapshotFile descarta las copias de otra versión.
+    //Room exporta cada versión a app/schemas, donde la leen las pruebas de migración
+    static final int VERSION = 8;
+
     public abstract WordDao wordDao();
 
+    public abstract WordMetaDao wordMetaDao();
+
+    public abstract WordSyncDao wordSyncDao();
+
+    static final String DATABASE_NAME = "word_database";
+
     private static WordRoomDatabase INSTANCE;
 
+    private WordDatabaseExecutors mExecutors;
+    //Nombre del archivo de este fragmento
+    private String mName;
+
     public static WordRoomDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
             synchronized (WordRoomDatabase.class) {
                 if (INSTANCE == null) {
-                    //Crear base de datos aquí
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                            WordRoomDatabase.class, "word_database")
-                            //Borra y reconstruye en lugar de migrar si no hay ningún objeto Migration
-                            //La migración no forma parte de esta práctica
-                            .fallbackToDestructiveMigration()
-                            .addCallback(sRoomDatabaseCallback)
-                            .build();
+                    INSTANCE = open(context, 0, WordDatabaseConfig.DEFAULT);
                 }
             }
         }
@@ -41,44 +58,167 @@ public abstract class WordRoomDatabase extends RoomDatabase {
     }
 
     /**
-     * Se llama a esta devolución de llamada cuando se ha abierto la base de datos
+     * Abre otro fragmento de la base de datos particionada (ver WordShards), en su propio
+     * archivo y con sus propios ejecutores. El fragmento 0 es getDatabase().
+     */
+    static WordRoomDatabase openShard(Context context, int shard, WordDatabaseConfig config) {
+        return open(context, shard, config);
+    }
+
+    static String databaseName(int shard) {
+        return shard == 0 ? DATABASE_NAME : DATABASE_NAME + "_" + shard;
+    }
+
+    private static WordRoomDatabase open(Context context, int shard, WordDatabaseConfig config) {
+        WordDatabaseExecutors executors = new WordDatabaseExecutors(config.readerThreads);
+        //Crear base de datos aquí
+        WordRoomDatabase db = Room.databaseBuilder(context.getApplicationContext(),
+                WordRoomDatabase.class, databaseName(shard))
+                //Las migraciones conservan los datos desde la versión 2;
+                //sólo las versiones anteriores se borran y se reconstruyen
+                .addMigrations(WordMigrations.ALL)
+                .fallbackToDestructiveMigrationFrom(1)
+                //WAL: las lecturas no esperan a las escrituras
+                .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                .openHelperFactory(new WordOpenHelperFactory(config))
+                .setQueryExecutor(executors.readers())
+                .setTransactionExecutor(executors.transactionExecutor())
+                .addCallback(WordMigrations.CREATE_TRIGGERS)
+                .addCallback(new SeedCallback(shard, config.shardCount))
+                .addCallback(new IdRangeCallback(shard, config.shardCount))
+                .build();
+        db.mExecutors = executors;
+        db.mName = databaseName(shard);
+        return db;
+    }
+
+    /**
+     * Ejecutores de esta base de datos: un escritor serializado con prioridades
+     * y un grupo de lectores.
+     */
+    WordDatabaseExecutors getExecutors() {
+        return mExecutors;
+    }
+
+    /**
+     * Estado actual de SQLite (páginas, PRAGMA efectivos, caché de sentencias).
+     */
+    @WorkerThread
+    WordDatabaseStats getStats() {
+        return WordDatabaseStats.collect(getOpenHelper().getReadableDatabase(), mName);
+    }
+
+    /**
+     * Abre la base de datos en el grupo de lectores, lejos del hilo principal, antes
+     * de que la interfaz la necesite: se aplican las migraciones y se lee la primera
+     * página de la lista para que ya esté en la caché de páginas de SQLite.
+     * Se llama desde WordApplication al iniciar el proceso.
+     */
+    static void warmUp(Context context) {
+        final WordRoomDatabase db = getDatabase(context);
+        db.getExecutors().executeRead(new Callable<Void>() {
+            @Override
+            public Void call() {
+                long start = SystemClock.uptimeMillis();
+                db.getOpenHelper().getWritableDatabase();
+                WordStartupMetrics.onDatabaseOpened(SystemClock.uptimeMillis() - start);
+                db.wordDao().getWordsPage(WordRepository.PAGE_SIZE);
+                return null;
+            }
+        }, null);
+    }
+
+    /**
+     * Programa el mantenimiento periódico de la base de datos con WorkManager.
+     * Se llama desde WordApplication al iniciar el proceso.
+     */
+    static void scheduleMaintenance(Context context) {
+        WordMaintenanceWorker.schedule(context);
+    }
+
+    /**
+     * Se llama a esta devolución de llamada sólo cuando se crea la base de datos,
+     * dentro de la misma transacción que crea las tablas: la lista inicial de palabras
+     * se inserta una sola vez, sin consultar la tabla en cada arranque.
+     * Se registra después de WordMigrations.CREATE_TRIGGERS, así que los conteos de
+     * word_section ya incluyen estas palabras.
      *
-     * En este caso, use PopulateDbAsync para rellenar la base de datos
-     * con el conjunto de datos inicial si la base de datos no tiene entradas
+     * En un fragmento, los ids empiezan en WordShards.firstId() y sólo se insertan las
+     * palabras iniciales que le corresponden.
      */
-    private static RoomDatabase.Callback sRoomDatabaseCallback = new RoomDatabase.Callback(){
+    private static class SeedCallback extends RoomDatabase.Callback {
+
+        private final int mShard;
+        private final int mShardCount;
+
+        SeedCallback(int shard, int shardCount) {
+            mShard = shard;
+            mShardCount = shardCount;
+        }
 
         @Override
-        public void onOpen (@NonNull SupportSQLiteDatabase db){
-            super.onOpen(db);
-            new PopulateDbAsync(INSTANCE).execute();
+        public void onCreate (@NonNull SupportSQLiteDatabase db){
+            super.onCreate(db);
+            if (mShard > 0) {
+                db.execSQL("INSERT INTO sqlite_sequence (name, seq) VALUES ('word_table', "
+                        + (WordShards.firstId(mShard) - 1) + ")");
+            }
+            populate(db, mShard, mShardCount);
         }
-    };
+    }
 
     /**
-     * Rellena la base de datos con el conjunto de datos inicial
-     * sólo si la base de datos no tiene entradas
+     * Al abrir, crea el trigger que rechaza un id fuera del rango del fragmento
+     * (WordShards.idLimit). Un id así se leería como de otro fragmento, así que la
+     * inserción falla con un error en lugar de guardarlo. Con un solo fragmento el límite
+     * es el fin de int. Si cambió el número de fragmentos, el trigger se reemplaza.
      */
-    private static class PopulateDbAsync extends AsyncTask<Void, Void, Void> {
+    private static class IdRangeCallback extends RoomDatabase.Callback {
+
+        private static final String TRIGGER = "word_id_range_AFTER_INSERT";
 
-        private final WordDao mDao;
-        //Se insertan los datos (words) iniciales
-        String [] words = {"Carla", "Ximena", "Natalia", "Julieta", "Ana"};
+        private final long mLimit;
 
-        PopulateDbAsync(WordRoomDatabase db) {
-            mDao = db.wordDao();
+        IdRangeCallback(int shard, int shardCount) {
+            mLimit = WordShards.idLimit(shard, shardCount);
         }
 
         @Override
-        protected Void doInBackground(final Void... params) {
-            //Si no tenemos palabras, entonces crea la lista inicial de palabras
-            if (mDao.getAnyWord().length < 1) {
-                for (int i = 0; i <= words.length - 1; i++) {
-                    Word word = new Word(words[i]);
-                    mDao.insert(word);
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            super.onOpen(db);
+            String condition = "WHEN NEW.id >= " + mLimit + " ";
+            Cursor cursor = db.query("SELECT sql FROM sqlite_master WHERE type = 'trigger' "
+                    + "AND name = '" + TRIGGER + "'");
+            try {
+                if (cursor.moveToFirst() && cursor.getString(0).contains(condition)) {
+                    return;
                 }
+            } finally {
+                cursor.close();
+            }
+            db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER);
+            db.execSQL("CREATE TRIGGER " + TRIGGER + " AFTER INSERT ON `word_table` "
+                    + condition + "BEGIN "
+                    + "SELECT RAISE(ABORT, 'word id out of shard range'); END");
+        }
+    }
+
+    //Se insertan los datos (words) iniciales
+    private static final String [] SEED_WORDS = {"Carla", "Ximena", "Natalia", "Julieta", "Ana"};
+
+    /**
+     * Rellena la base de datos recién creada con el conjunto de datos inicial.
+     * Room todavía no terminó de abrirla, así que se escribe directamente en SQLite;
+     * los triggers de word_fts ya existen y la indexan.
+     */
+    private static void populate(SupportSQLiteDatabase db, int shard, int shardCount) {
+        ContentValues values = new ContentValues();
+        for (String word : SEED_WORDS) {
+            if (WordShards.shardOf(word, shardCount) != shard) {
+                continue;
             }
-            return null;
+            values.put("word", word);
+            db.insert("word_table", SQLiteDatabase.CONFLICT_IGNORE, values);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,239 @@
+package com.example.roomwordssampleerick;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Process;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StringRes;
+import androidx.appcompat.widget.AppCompatTextView;
+import androidx.collection.LruCache;
+import androidx.core.content.ContextCompat;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.view.ViewCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Crea y enlaza las filas de la lista de palabras para WordListAdapter y
+ * WordPagedListAdapter, sin trabajo de texto evitable en el hilo principal:
+ * <ul>
+ * <li>Las filas se construyen en código, con el mismo aspecto que recyclerview_item
+ * (que queda sólo para la vista previa del editor), así que crear una no infla XML.</li>
+ * <li>El texto se mide en un hilo de fondo con PrecomputedTextCompat. Cada fila que se
+ * enlaza encola la de PRECOMPUTE_AHEAD posiciones más adelante, en el sentido del
+ * desplazamiento; cuando esa fila llega, su texto ya está medido. Si no, la fila recibe
+ * un Future y la vista lo espera recién al medirse, lo que con la precarga de
+ * RecyclerView suele ocurrir un cuadro después.</li>
+ * <li>Todas las filas tienen el mismo tipo, así que ambos adaptadores comparten un
+ * RecycledViewPool que se llena con prewarm() mientras el hilo principal está ocioso.</li>
+ * </ul>
+ * Hay un renderer por adaptador: los parámetros del texto se toman de su primera fila.
+ */
+
+final class WordRowRenderer {
+
+    //Tipo de vista de todas las filas, igual en todos los adaptadores
+    static final int VIEW_TYPE = 1;
+
+    //Filas que se guardan en el grupo compartido; el de RecyclerView guarda 5 por tipo
+    static final int POOL_SIZE = 24;
+
+    //Distancia, en filas, a la que se mide el texto por adelantado
+    private static final int PRECOMPUTE_AHEAD = 12;
+
+    //Textos medidos que se conservan; cubre varias pantallas hacia ambos lados
+    private static final int READY_ROWS = 256;
+
+    private static final Executor TEXT_EXECUTOR = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull final Runnable task) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            task.run();
+                        }
+                    }, "word-text");
+                }
+            });
+
+    /**
+     * Texto de una posición del adaptador, o null si todavía no está cargada.
+     */
+    interface TextSource {
+        @Nullable
+        String getTextAt(int position);
+
+        int getItemCount();
+    }
+
+    /**
+     * Una fila: un solo AppCompatTextView, que admite texto precalculado.
+     */
+    static final class Holder extends RecyclerView.ViewHolder {
+        final AppCompatTextView mText;
+        WordListAdapter.ClickListener mClickListener;
+
+        Holder(AppCompatTextView text) {
+            super(text);
+            mText = text;
+            text.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    if (mClickListener != null) {
+                        mClickListener.onItemClick(view, getAdapterPosition());
+                    }
+                }
+            });
+        }
+    }
+
+    private final LruCache<String, PrecomputedTextCompat> mReady = new LruCache<>(READY_ROWS);
+    private PrecomputedTextCompat.Params mParams;
+    private boolean mPrecompute = true;
+    private int mLastBound = RecyclerView.NO_POSITION;
+
+    /**
+     * Con false el texto se asigna con setText() y se mide en el hilo principal,
+     * como antes; sirve para comparar en los benchmarks.
+     */
+    void setPrecompute(boolean precompute) {
+        mPrecompute = precompute;
+        mReady.evictAll();
+    }
+
+    Holder createHolder(ViewGroup parent) {
+        AppCompatTextView text = createRow(parent.getContext());
+        if (mParams == null) {
+            mParams = TextViewCompat.getTextMetricsParams(text);
+        }
+        return new Holder(text);
+    }
+
+    /**
+     * Enlaza el texto de una fila. Si ya se midió, se asigna tal cual; si no,
+     * se mide en segundo plano y la vista lo espera al medirse.
+     */
+    void bind(Holder holder, String text) {
+        if (!mPrecompute) {
+            holder.mText.setTextFuture(null);
+            holder.mText.setText(text);
+            return;
+        }
+        if (mParams == null) {
+            //La fila puede venir del grupo compartido, creada por otro adaptador
+            mParams = TextViewCompat.getTextMetricsParams(holder.mText);
+        }
+        PrecomputedTextCompat ready = mReady.get(text);
+        if (ready != null) {
+            WordMetrics.TEXT_READY.incrementAndGet();
+            //Un Future pendiente reemplazaría este texto al medirse la vista
+            holder.mText.setTextFuture(null);
+            TextViewCompat.setPrecomputedText(holder.mText, ready);
+        } else {
+            WordMetrics.TEXT_PENDING.incrementAndGet();
+            holder.mText.setTextFuture(
+                    PrecomputedTextCompat.getTextFuture(text, mParams, TEXT_EXECUTOR));
+        }
+    }
+
+    void bind(Holder holder, char[] text, int start, int length) {
+        if (mPrecompute) {
+            bind(holder, new String(text, start, length));
+        } else {
+            holder.mText.setTextFuture(null);
+            holder.mText.setText(text, start, length);
+        }
+    }
+
+    void bind(Holder holder, @StringRes int text) {
+        holder.mText.setTextFuture(null);
+        holder.mText.setText(text);
+    }
+
+    /**
+     * Se llama después de enlazar position: mide por adelantado el texto de la fila
+     * que vendrá PRECOMPUTE_AHEAD posiciones después, en el sentido del desplazamiento.
+     */
+    void onBound(int position, TextSource source) {
+        int direction = position >= mLastBound ? 1 : -1;
+        mLastBound = position;
+        int ahead = position + direction * PRECOMPUTE_AHEAD;
+        if (!mPrecompute || mParams == null || ahead < 0 || ahead >= source.getItemCount()) {
+            return;
+        }
+        final String text = source.getTextAt(ahead);
+        if (text == null || mReady.get(text) != null) {
+            return;
+        }
+        final PrecomputedTextCompat.Params params = mParams;
+        TEXT_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                mReady.put(text, PrecomputedTextCompat.create(text, params));
+                WordMetrics.recordSince(WordMetrics.PRECOMPUTE, start);
+            }
+        });
+    }
+
+    /**
+     * Crea un grupo de filas para compartir entre los adaptadores de recyclerView y lo
+     * llena con rows filas, una por cada vez que el hilo principal queda ocioso.
+     * Debe llamarse en el hilo principal, después de asignar el adaptador.
+     */
+    static RecyclerView.RecycledViewPool prewarm(final RecyclerView recyclerView,
+                                                 final int rows) {
+        final RecyclerView.RecycledViewPool pool = new RecyclerView.RecycledViewPool();
+        pool.setMaxRecycledViews(VIEW_TYPE, POOL_SIZE);
+        recyclerView.setRecycledViewPool(pool);
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            private int mCreated;
+
+            @Override
+            public boolean queueIdle() {
+                RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+                if (adapter == null || pool.getRecycledViewCount(VIEW_TYPE) >= rows) {
+                    return false;
+                }
+                pool.putRecycledView(adapter.createViewHolder(recyclerView, VIEW_TYPE));
+                return ++mCreated < rows;
+            }
+        });
+        return pool;
+    }
+
+    /**
+     * La fila de recyclerview_item sin inflar: text_view_style aplicado a mano.
+     */
+    private static AppCompatTextView createRow(Context context) {
+        AppCompatTextView text = new AppCompatTextView(context);
+        RecyclerView.LayoutParams params = new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.topMargin = dp(context, 8);
+        text.setLayoutParams(params);
+        TextViewCompat.setTextAppearance(text, android.R.style.TextAppearance_Large);
+        text.setTextColor(ContextCompat.getColor(context, R.color.colorTextPrimary));
+        text.setBackgroundColor(ContextCompat.getColor(context, R.color.colorPrimaryLight));
+        int padding = dp(context, 16);
+        text.setPadding(padding, padding, padding, padding);
+        ViewCompat.setElevation(text, dp(context, 8));
+        return text;
+    }
+
+    private static int dp(Context context, int value) {
+        return Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value,
+                context.getResources().getDisplayMetrics()));
+    }
+}
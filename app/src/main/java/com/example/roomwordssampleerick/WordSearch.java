@@ -0,0 +1,61 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Convierte el texto que escribe el usuario en una consulta MATCH de FTS4.
+ * Cada término se busca como prefijo ("ana" encuentra "Ana" y "Anabel"),
+ * y todos los términos deben aparecer. Se descartan los caracteres que tienen
+ * significado en la sintaxis de FTS para que la entrada nunca produzca un error.
+ */
+
+final class WordSearch {
+
+    //Número máximo de resultados por búsqueda
+    static final int MAX_RESULTS = 100;
+
+    private WordSearch() {
+    }
+
+    /**
+     * @return la consulta MATCH, o null si el texto no contiene ningún término
+     */
+    @Nullable
+    static String toMatchQuery(@Nullable String input) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String term : input.trim().split("\\s+")) {
+            String cleaned = term.replaceAll("[\"*^():\\-]", "");
+            if (cleaned.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append('"').append(cleaned).append("*\"");
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    /**
+     * Resultado de una búsqueda y el instante (System.nanoTime()) en que empezó la consulta:
+     * los cambios confirmados antes ya están incluidos.
+     */
+    static final class Results {
+        //No hay búsqueda activa
+        static final Results NONE = new Results(0, Collections.<Word>emptyList());
+
+        final long mStartedNanos;
+        final List<Word> mWords;
+
+        Results(long startedNanos, List<Word> words) {
+            mStartedNanos = startedNanos;
+            mWords = words;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Una sección de la lista: cuántas palabras empiezan con una letra.
+ * La letra es el primer carácter de la palabra en mayúsculas (ASCII, como COLLATE NOCASE).
+ * Los triggers de WordMigrations.createSectionTriggers mantienen los conteos
+ * al insertar, editar y borrar palabras, así que leer el índice nunca recorre word_table.
+ */
+
+@Entity(tableName = "word_section")
+public class WordSection {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "section")
+    private String mSection;
+
+    @ColumnInfo(name = "count")
+    private int mCount;
+
+    public WordSection(@NonNull String section, int count) {
+        this.mSection = section;
+        this.mCount = count;
+    }
+
+    @NonNull
+    public String getSection() {
+        return this.mSection;
+    }
+
+    public int getCount() {
+        return this.mCount;
+    }
+}
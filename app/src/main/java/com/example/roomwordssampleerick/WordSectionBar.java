@@ -0,0 +1,130 @@
+package com.example.roomwordssampleerick;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.core.content.ContextCompat;
+
+/**
+ * Barra de letras al costado de la lista para saltar a una sección.
+ * Reparte las letras del WordSectionIndex en su alto y, al tocarla o arrastrar sobre ella,
+ * avisa qué sección quedó bajo el dedo. No carga palabras: sólo conoce el índice.
+ */
+
+public class WordSectionBar extends View {
+
+    /**
+     * Recibe la sección elegida por el usuario.
+     */
+    interface OnSectionSelectedListener {
+        void onSectionSelected(int section);
+    }
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final int mTextColor;
+    private final int mCurrentColor;
+    private WordSectionIndex mSections = WordSectionIndex.EMPTY;
+    //Sección resaltada (la que se ve arriba de la lista) y la que está bajo el dedo
+    private int mCurrent = -1;
+    private int mTouched = -1;
+    private OnSectionSelectedListener mListener;
+
+    public WordSectionBar(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        mPaint.setTextAlign(Paint.Align.CENTER);
+        mPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12,
+                getResources().getDisplayMetrics()));
+        mTextColor = ContextCompat.getColor(context, R.color.colorPrimaryDark);
+        mCurrentColor = ContextCompat.getColor(context, R.color.colorAccent);
+    }
+
+    void setSections(WordSectionIndex sections) {
+        mSections = sections;
+        mCurrent = -1;
+        invalidate();
+    }
+
+    void setCurrentSection(int section) {
+        if (section != mCurrent) {
+            mCurrent = section;
+            invalidate();
+        }
+    }
+
+    void setOnSectionSelectedListener(OnSectionSelectedListener listener) {
+        mListener = listener;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        int count = mSections.size();
+        if (count == 0) {
+            return;
+        }
+        float slot = slotHeight();
+        Paint.FontMetrics metrics = mPaint.getFontMetrics();
+        float textHeight = metrics.descent - metrics.ascent;
+        //Si no caben todas, se dibuja una de cada step; todas siguen siendo seleccionables
+        int step = Math.max(1, (int) Math.ceil(textHeight / slot));
+        float x = getWidth() / 2f;
+        float baseline = -(metrics.ascent + metrics.descent) / 2f;
+        for (int i = 0; i < count; i += step) {
+            mPaint.setColor(i == mCurrent ? mCurrentColor : mTextColor);
+            float y = getPaddingTop() + slot * (i + 0.5f) + baseline;
+            canvas.drawText(mSections.getLabel(i), x, y, mPaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (mSections.size() == 0) {
+            return false;
+        }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                //Mientras se arrastra sobre la barra, la lista no debe desplazarse
+                getParent().requestDisallowInterceptTouchEvent(true);
+                select(event.getY());
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                select(event.getY());
+                return true;
+            case MotionEvent.ACTION_UP:
+                performClick();
+                mTouched = -1;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                mTouched = -1;
+                return true;
+            default:
+                return super.onTouchEvent(event);
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    private void select(float y) {
+        int section = (int) ((y - getPaddingTop()) / slotHeight());
+        section = Math.max(0, Math.min(mSections.size() - 1, section));
+        if (section != mTouched) {
+            mTouched = section;
+            setCurrentSection(section);
+            if (mListener != null) {
+                mListener.onSectionSelected(section);
+            }
+        }
+    }
+
+    private float slotHeight() {
+        int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        return Math.max(1f, height / (float) mSections.size());
+    }
+}
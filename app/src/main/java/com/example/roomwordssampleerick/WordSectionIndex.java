@@ -0,0 +1,93 @@
+package com.example.roomwordssampleerick;
+
+import java.util.List;
+
+/**
+ * Índice de secciones de la lista ordenada: para cada letra, la posición
+ * de su primera palabra. Se arma con los conteos de word_section, en el mismo
+ * orden que la lista (COLLATE NOCASE).
+ */
+
+final class WordSectionIndex {
+
+    static final WordSectionIndex EMPTY = new WordSectionIndex(new String[0], new int[1]);
+
+    private final String[] mLabels;
+    //mOffsets[i] es la posición de la primera palabra de la sección i; mOffsets[size] es el total
+    private final int[] mOffsets;
+
+    private WordSectionIndex(String[] labels, int[] offsets) {
+        mLabels = labels;
+        mOffsets = offsets;
+    }
+
+    /**
+     * Las secciones deben venir en el orden de la lista; las vacías se omiten.
+     */
+    static WordSectionIndex of(List<WordSection> sections) {
+        String[] labels = new String[sections.size()];
+        int[] offsets = new int[sections.size() + 1];
+        int size = 0;
+        for (WordSection section : sections) {
+            if (section.getCount() <= 0) {
+                continue;
+            }
+            labels[size] = section.getSection();
+            offsets[size + 1] = offsets[size] + section.getCount();
+            size++;
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        String[] trimmedLabels = new String[size];
+        System.arraycopy(labels, 0, trimmedLabels, 0, size);
+        int[] trimmedOffsets = new int[size + 1];
+        System.arraycopy(offsets, 0, trimmedOffsets, 0, size + 1);
+        return new WordSectionIndex(trimmedLabels, trimmedOffsets);
+    }
+
+    int size() {
+        return mLabels.length;
+    }
+
+    String getLabel(int section) {
+        return mLabels[section];
+    }
+
+    int getOffset(int section) {
+        return mOffsets[section];
+    }
+
+    int getWordCount() {
+        return mOffsets[mLabels.length];
+    }
+
+    /**
+     * Sección de una palabra según su primera letra, o -1 si no hay ninguna.
+     */
+    int sectionOf(String word) {
+        String label = labelOf(word);
+        for (int i = 0; i < mLabels.length; i++) {
+            if (mLabels[i].equals(label)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * La misma clave que calculan los triggers: upper(substr(word, 1, 1)).
+     * upper() de SQLite sólo convierte letras ASCII.
+     */
+    static String labelOf(String word) {
+        if (word.isEmpty()) {
+            return "";
+        }
+        int end = word.offsetByCodePoints(0, 1);
+        char first = word.charAt(0);
+        if (end == 1 && first >= 'a' && first <= 'z') {
+            return String.valueOf((char) (first - 'a' + 'A'));
+        }
+        return word.substring(0, end);
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.roomwordssampleerick;
+
+import android.database.Cursor;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Lecturas sobre todos los fragmentos de WordShards como si fueran una sola base de datos.
+ *
+ * Una consulta por id o por texto va sólo al fragmento que corresponde. Las demás se
+ * ejecutan en todos a la vez: la del fragmento 0 en el hilo que llama y las otras en los
+ * lectores de cada fragmento. Cada fragmento ya devuelve sus filas ordenadas, así que
+ * los resultados se juntan con una mezcla de k listas ordenadas y se cortan en el límite.
+ *
+ * El orden alfabético es el de COLLATE NOCASE (ver compareText), con el id como desempate,
+ * igual que la paginación por clave de WordDao. Con un solo fragmento no hay mezcla.
+ */
+
+class WordShardRouter {
+
+    /**
+     * Una consulta que se repite en cada fragmento.
+     */
+    interface ShardQuery<T> {
+        T query(WordRoomDatabase db);
+    }
+
+    static final Comparator<Word> ALPHABETICAL = new Comparator<Word>() {
+        @Override
+        public int compare(Word a, Word b) {
+            int order = compareText(a.getWord(), b.getWord());
+            return order != 0 ? order : compareIds(a.getId(), b.getId());
+        }
+    };
+
+    static final Comparator<Word> REVERSE_ALPHABETICAL = Collections.reverseOrder(ALPHABETICAL);
+
+    static final Comparator<WordUsage> MOST_USED = new Comparator<WordUsage>() {
+        @Override
+        public int compare(WordUsage a, WordUsage b) {
+            return compareIds(b.getUsageCount(), a.getUsageCount());
+        }
+    };
+
+    static final Comparator<WordUsage> MOST_RECENT = new Comparator<WordUsage>() {
+        @Override
+        public int compare(WordUsage a, WordUsage b) {
+            return Long.compare(b.getUpdatedAt(), a.getUpdatedAt());
+        }
+    };
+
+    private static final Comparator<WordSection> SECTION_ORDER = new Comparator<WordSection>() {
+        @Override
+        public int compare(WordSection a, WordSection b) {
+            return compareText(a.getSection(), b.getSection());
+        }
+    };
+
+    private final WordShards mShards;
+
+    WordShardRouter(WordShards shards) {
+        mShards = shards;
+    }
+
+    WordShards getShards() {
+        return mShards;
+    }
+
+    @WorkerThread
+    List<Word> getWordsPage(final int limit) {
+        return merge(fanOut(new ShardQuery<List<Word>>() {
+            @Override
+            public List<Word> query(WordRoomDatabase db) {
+                return db.wordDao().getWordsPage(limit);
+            }
+        }), ALPHABETICAL, limit);
+    }
+
+    @WorkerThread
+    List<Word> getWordsFrom(final String word, final int id, final int limit) {
+        return merge(fanOut(new ShardQuery<List<Word>>() {
+            @Override
+            public List<Word> query(WordRoomDatabase db) {
+                return db.wordDao().getWordsFrom(word, id, limit);
+            }
+        }), ALPHABETICAL, limit);
+    }
+
+    @WorkerThread
+    List<Word> getWordsAfter(final String word, final int id, final int limit) {
+        return merge(fanOut(new ShardQuery<List<Word>>() {
+            @Override
+            public List<Word> query(WordRoomDatabase db) {
+                return db.wordDao().getWordsAfter(word, id, limit);
+            }
+        }), ALPHABETICAL, limit);
+    }
+
+    //En orden descendente, como WordDao.getWordsBefore()
+    @WorkerThread
+    List<Word> getWordsBefore(final String word, final int id, final int limit) {
+        return merge(fanOut(new ShardQuery<List<Word>>() {
+            @Override
+            public List<Word> query(WordRoomDatabase db) {
+                return db.wordDao().getWordsBefore(word, id, limit);
+            }
+        }), REVERSE_ALPHABETICAL, limit);
+    }
+
+    @WorkerThread
+    List<Word> searchWords(final String matchQuery, final int limit) {
+        return merge(fanOut(new ShardQuery<List<Word>>() {
+            @Override
+            public List<Word> query(WordRoomDatabase db) {
+                return db.wordDao().searchWords(matchQuery, limit);
+            }
+        }), ALPHABETICAL, limit);
+    }
+
+    @WorkerThread
+    @Nullable
+    Word getWordById(int id) {
+        return mShards.forId(id).wordDao().getWordById(id);
+    }
+
+    @WorkerThread
+    @Nullable
+    Word findWord(String text) {
+        return mShards.forText(text).wordDao().findWord(text);
+    }
+
+    /**
+     * Las secciones de todos los fragmentos; los conteos de una misma letra se suman.
+     */
+    @WorkerThread
+    List<WordSection> getSections() {
+        List<List<WordSection>> parts = fanOut(new ShardQuery<List<WordSection>>() {
+            @Override
+            public List<WordSection> query(WordRoomDatabase db) {
+                return db.wordDao().getSections();
+            }
+        });
+        return parts.size() == 1 ? parts.get(0) : sumSections(parts);
+    }
+
+    @WorkerThread
+    List<WordUsage> getMostUsed(final int limit) {
+        return merge(fanOut(new ShardQuery<List<WordUsage>>() {
+            @Override
+            public List<WordUsage> query(WordRoomDatabase db) {
+                return db.wordMetaDao().getMostUsed(limit);
+            }
+        }), MOST_USED, limit);
+    }
+
+    @WorkerThread
+    List<WordUsage> getRecent(final int limit) {
+        return merge(fanOut(new ShardQuery<List<WordUsage>>() {
+            @Override
+            public List<WordUsage> query(WordRoomDatabase db) {
+                return db.wordMetaDao().getRecent(limit);
+            }
+        }), MOST_RECENT, limit);
+    }
+
+    //Cada fragmento tiene sus propias etiquetas; se busca la del mismo nombre en todos
+    @WorkerThread
+    List<Word> getWordsByTag(final String tagName, final int limit) {
+        return merge(fanOut(new ShardQuery<List<Word>>() {
+            @Override
+            public List<Word> query(WordRoomDatabase db) {
+                Tag tag = db.wordMetaDao().findTag(tagName);
+                if (tag == null) {
+                    return Collections.emptyList();
+                }
+                return db.wordMetaDao().getWordsByTag(tag.getId(), limit);
+            }
+        }), ALPHABETICAL, limit);
+    }
+
+    /**
+     * Todas las palabras ordenadas: una instantánea por fragmento, leída del cursor,
+     * y después una sola mezcla sin crear un Word por fila.
+     */
+    @WorkerThread
+    WordSnapshot loadSnapshot() {
+        List<WordSnapshot> parts = fanOut(new ShardQuery<WordSnapshot>() {
+            @Override
+            public WordSnapshot query(WordRoomDatabase db) {
+                Cursor cursor = db.wordDao().getWordsCursor();
+                try {
+                    return WordSnapshot.fromCursor(cursor);
+                } finally {
+                    cursor.close();
+                }
+            }
+        });
+        return parts.size() == 1 ? parts.get(0) : WordSnapshot.merge(parts);
+    }
+
+    /**
+     * Ejecuta la consulta en todos los fragmentos y devuelve un resultado por fragmento,
+     * en orden. Las excepciones de cualquier fragmento se propagan.
+     */
+    @WorkerThread
+    <T> List<T> fanOut(final ShardQuery<T> query) {
+        int count = mShards.count();
+        if (count == 1) {
+            return Collections.singletonList(query.query(mShards.get(0)));
+        }
+        List<Future<T>> pending = new ArrayList<>(count - 1);
+        for (int i = 1; i < count; i++) {
+            final WordRoomDatabase db = mShards.get(i);
+            pending.add(db.getExecutors().executeRead(new Callable<T>() {
+                @Override
+                public T call() {
+                    return query.query(db);
+                }
+            }, null));
+        }
+        List<T> results = new ArrayList<>(count);
+        try {
+            results.add(query.query(mShards.get(0)));
+            for (Future<T> future : pending) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } finally {
+            for (Future<T> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Mezcla listas ya ordenadas con order y devuelve a lo sumo limit elementos.
+     * Hay pocos fragmentos, así que el menor se busca recorriendo las cabezas.
+     */
+    static <T> List<T> merge(List<List<T>> parts, Comparator<? super T> order, int limit) {
+        if (parts.size() == 1) {
+            List<T> only = parts.get(0);
+            return only.size() <= limit ? only : only.subList(0, limit);
+        }
+        int[] heads = new int[parts.size()];
+        List<T> merged = new ArrayList<>(limit);
+        while (merged.size() < limit) {
+            int best = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] < parts.get(i).size() && (best == -1 || order.compare(
+                        parts.get(i).get(heads[i]), parts.get(best).get(heads[best])) < 0)) {
+                    best = i;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            merged.add(parts.get(best).get(heads[best]++));
+        }
+        return merged;
+    }
+
+    static List<WordSection> sumSections(List<List<WordSection>> parts) {
+        List<WordSection> all = new ArrayList<>();
+        for (List<WordSection> part : parts) {
+            all.addAll(part);
+        }
+        Collections.sort(all, SECTION_ORDER);
+        List<WordSection> summed = new ArrayList<>(all.size());
+        for (WordSection section : all) {
+            int last = summed.size() - 1;
+            if (last >= 0 && summed.get(last).getSection().equals(section.getSection())) {
+                summed.set(last, new WordSection(section.getSection(),
+                        summed.get(last).getCount() + section.getCount()));
+            } else {
+                summed.add(section);
+            }
+        }
+        return summed;
+    }
+
+    /**
+     * Compara como COLLATE NOCASE: sólo se igualan mayúsculas y minúsculas ASCII y el
+     * resto se ordena por punto de código, que es el orden de los bytes UTF-8 que compara
+     * SQLite (y no el de los char de Java, que pone los pares sustitutos antes de U+E000).
+     */
+    static int compareText(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            int order = compareChars(a.charAt(i), b.charAt(i));
+            if (order != 0) {
+                return order;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    //Lo mismo que compareText(String, String) sobre tramos de arreglos de caracteres
+    static int compareText(char[] a, int aStart, int aLength, char[] b, int bStart, int bLength) {
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            int order = compareChars(a[aStart + i], b[bStart + i]);
+            if (order != 0) {
+                return order;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    private static int compareChars(char a, char b) {
+        if (a == b) {
+            return 0;
+        }
+        return codePointOrder(fold(a)) - codePointOrder(fold(b));
+    }
+
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    //Mueve los sustitutos por encima de U+FFFF sin alterar el orden del resto
+    private static int codePointOrder(char c) {
+        if (c < Character.MIN_SURROGATE) {
+            return c;
+        }
+        return c <= Character.MAX_SURROGATE ? c + 0x2000 : c - 0x800;
+    }
+
+    private static int compareIds(int a, int b) {
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.roomwordssampleerick;
+
+import android.content.Context;
+
+import androidx.room.InvalidationTracker;
+
+/**
+ * Las bases de datos entre las que se reparten las palabras cuando
+ * WordDatabaseConfig.shardCount es mayor que 1. Cada fragmento es un archivo aparte
+ * con su propio escritor, así que las escrituras en fragmentos distintos no se esperan
+ * entre sí, y el mantenimiento se hace fragmento por fragmento.
+ *
+ * Una palabra vive en el fragmento del hash de su texto sin distinguir mayúsculas
+ * (el mismo criterio que el índice único), así que la unicidad se sigue comprobando
+ * en un solo archivo. Los ids de cada fragmento empiezan en firstId(), de modo que
+ * un id es único entre todos y dice en qué fragmento está la palabra.
+ *
+ * Con un solo fragmento todo queda como antes: el fragmento 0 es getDatabase().
+ */
+
+final class WordShards {
+
+    //Bits de un id que quedan para cada fragmento; los de arriba son el número de fragmento
+    static final int ID_BITS = 27;
+    static final int MAX_SHARDS = 1 << (31 - ID_BITS);
+
+    private static volatile WordShards INSTANCE;
+
+    private final WordRoomDatabase[] mDbs;
+
+    static WordShards get(Context context) {
+        if (INSTANCE == null) {
+            synchronized (WordShards.class) {
+                if (INSTANCE == null) {
+                    WordDatabaseConfig config = WordDatabaseConfig.DEFAULT;
+                    WordRoomDatabase[] dbs = new WordRoomDatabase[config.shardCount];
+                    dbs[0] = WordRoomDatabase.getDatabase(context);
+                    for (int i = 1; i < dbs.length; i++) {
+                        dbs[i] = WordRoomDatabase.openShard(context, i, config);
+                    }
+                    INSTANCE = new WordShards(dbs);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    WordShards(WordRoomDatabase... dbs) {
+        if (dbs.length == 0 || dbs.length > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be 1.." + MAX_SHARDS);
+        }
+        mDbs = dbs;
+    }
+
+    int count() {
+        return mDbs.length;
+    }
+
+    WordRoomDatabase get(int shard) {
+        return mDbs[shard];
+    }
+
+    //Fragmento en el que se guarda (o se guardaría) una palabra con ese texto
+    WordRoomDatabase forText(String text) {
+        return mDbs[shardOf(text, mDbs.length)];
+    }
+
+    //Fragmento que generó el id
+    WordRoomDatabase forId(int id) {
+        return mDbs[shardOfId(id, mDbs.length)];
+    }
+
+    static int shardOf(String text, int count) {
+        return count == 1 ? 0 : (WordCache.key(text).hashCode() & 0x7fffffff) % count;
+    }
+
+    //Con un solo fragmento, todo id es del fragmento 0, aunque pase de firstId(1)
+    static int shardOfId(int id, int count) {
+        return count == 1 ? 0 : id >>> ID_BITS;
+    }
+
+    //Primer id que genera un fragmento
+    static int firstId(int shard) {
+        return shard == 0 ? 1 : shard << ID_BITS;
+    }
+
+    //Primer id que ya no le corresponde a un fragmento; el último llega hasta el fin de int
+    static long idLimit(int shard, int count) {
+        return shard == count - 1 ? 1L << 31 : firstId(shard + 1);
+    }
+
+    /**
+     * Registra el observador en todos los fragmentos. Puede tocar la base de datos,
+     * así que no debe llamarse en el hilo principal.
+     */
+    void addObserver(InvalidationTracker.Observer observer) {
+        for (WordRoomDatabase db : mDbs) {
+            db.getInvalidationTracker().addObserver(observer);
+        }
+    }
+
+    void removeObserver(InvalidationTracker.Observer observer) {
+        for (WordRoomDatabase db : mDbs) {
+            db.getInvalidationTracker().removeObserver(observer);
+        }
+    }
+}
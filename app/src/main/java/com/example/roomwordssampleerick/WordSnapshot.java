@@ -0,0 +1,262 @@
+package com.example.roomwordssampleerick;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Instantánea compacta de una lista de palabras. En lugar de un objeto Word y un String
+ * por fila guarda tres arreglos: los ids, el inicio de cada palabra y todos los caracteres
+ * seguidos. Una lista de un millón de palabras son tres objetos en lugar de tres millones,
+ * y ocupa una fracción de la memoria.
+ *
+ * Es inmutable. Las filas se leen con los accessors por posición (getId, chars, start,
+ * length); get() crea un Word y sólo debe usarse para filas sueltas.
+ */
+
+final class WordSnapshot {
+
+    static final WordSnapshot EMPTY = new WordSnapshot(new int[0], new int[1], new char[0], 0);
+
+    private final int[] mIds;
+    //mOffsets[i] es el inicio de la palabra i en mChars; mOffsets[size] es el total usado
+    private final int[] mOffsets;
+    private final char[] mChars;
+    private final int mSize;
+
+    private WordSnapshot(int[] ids, int[] offsets, char[] chars, int size) {
+        mIds = ids;
+        mOffsets = offsets;
+        mChars = chars;
+        mSize = size;
+    }
+
+    /**
+     * Lee las columnas id y word del cursor, copiando el texto de cada fila
+     * directamente al arreglo de caracteres sin crear un String. No cierra el cursor.
+     */
+    static WordSnapshot fromCursor(Cursor cursor) {
+        int idColumn = cursor.getColumnIndexOrThrow("id");
+        int wordColumn = cursor.getColumnIndexOrThrow("word");
+        Builder builder = new Builder(Math.max(cursor.getCount(), 0));
+        CharArrayBuffer buffer = new CharArrayBuffer(64);
+        while (cursor.moveToNext()) {
+            cursor.copyStringToBuffer(wordColumn, buffer);
+            builder.add(cursor.getInt(idColumn), buffer.data, buffer.sizeCopied);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Usa los arreglos tal cual, sin copiarlos (ver WordSnapshotFile). El llamador
+     * no debe modificarlos después.
+     */
+    static WordSnapshot wrap(int[] ids, int[] offsets, char[] chars, int size) {
+        return size == 0 ? EMPTY : new WordSnapshot(ids, offsets, chars, size);
+    }
+
+    static WordSnapshot of(List<Word> words) {
+        if (words.isEmpty()) {
+            return EMPTY;
+        }
+        Builder builder = new Builder(words.size());
+        for (Word word : words) {
+            builder.add(word.getId(), word.getWord());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Junta instantáneas ya ordenadas (una por fragmento, ver WordShardRouter) en una sola,
+     * con el mismo orden, copiando el texto de arreglo a arreglo.
+     */
+    static WordSnapshot merge(List<WordSnapshot> parts) {
+        int total = 0;
+        for (WordSnapshot part : parts) {
+            total += part.size();
+        }
+        if (total == 0) {
+            return EMPTY;
+        }
+        Builder builder = new Builder(total);
+        int[] heads = new int[parts.size()];
+        for (int n = 0; n < total; n++) {
+            int best = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] < parts.get(i).size() && (best == -1
+                        || parts.get(i).compare(heads[i], parts.get(best), heads[best]) < 0)) {
+                    best = i;
+                }
+            }
+            WordSnapshot part = parts.get(best);
+            int position = heads[best]++;
+            builder.add(part.getId(position), part.mChars, part.start(position),
+                    part.length(position));
+        }
+        return builder.build();
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    int getId(int position) {
+        return mIds[position];
+    }
+
+    /**
+     * Arreglo compartido con el texto de todas las palabras; no debe modificarse.
+     * La palabra de una posición ocupa length(position) caracteres desde start(position).
+     */
+    char[] chars() {
+        return mChars;
+    }
+
+    int start(int position) {
+        return mOffsets[position];
+    }
+
+    int length(int position) {
+        return mOffsets[position + 1] - mOffsets[position];
+    }
+
+    String getText(int position) {
+        return new String(mChars, start(position), length(position));
+    }
+
+    Word get(int position) {
+        return new Word(getId(position), getText(position));
+    }
+
+    /**
+     * Compara el texto de una posición con el de una posición de otra instantánea,
+     * carácter por carácter y sin crear Strings.
+     */
+    boolean sameText(int position, WordSnapshot other, int otherPosition) {
+        int length = length(position);
+        if (length != other.length(otherPosition)) {
+            return false;
+        }
+        int start = start(position);
+        int otherStart = other.start(otherPosition);
+        for (int i = 0; i < length; i++) {
+            if (mChars[start + i] != other.mChars[otherStart + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Orden de la lista (WordShardRouter.ALPHABETICAL) entre una posición y la de otra instantánea
+    private int compare(int position, WordSnapshot other, int otherPosition) {
+        int order = WordShardRouter.compareText(mChars, start(position), length(position),
+                other.mChars, other.start(otherPosition), other.length(otherPosition));
+        return order != 0 ? order : Integer.compare(getId(position), other.getId(otherPosition));
+    }
+
+    /**
+     * Mismos criterios que WordListAdapter.DIFF_CALLBACK, aplicados a dos instantáneas.
+     */
+    static class DiffCallback extends DiffUtil.Callback {
+        private final WordSnapshot mOld;
+        private final WordSnapshot mNew;
+
+        DiffCallback(WordSnapshot oldSnapshot, WordSnapshot newSnapshot) {
+            mOld = oldSnapshot;
+            mNew = newSnapshot;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOld.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNew.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return mOld.getId(oldPosition) == mNew.getId(newPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return mOld.sameText(oldPosition, mNew, newPosition);
+        }
+    }
+
+    /**
+     * Acumula filas haciendo crecer los arreglos como un ArrayList.
+     */
+    static class Builder {
+        private int[] mIds;
+        private int[] mOffsets;
+        private char[] mChars;
+        private int mSize;
+
+        Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            mIds = new int[capacity];
+            mOffsets = new int[capacity + 1];
+            //Las palabras suelen ser cortas; el arreglo crece si hace falta
+            mChars = new char[capacity * 8];
+        }
+
+        void add(int id, char[] text, int length) {
+            add(id, text, 0, length);
+        }
+
+        void add(int id, char[] text, int offset, int length) {
+            int start = reserve(length);
+            System.arraycopy(text, offset, mChars, start, length);
+            commit(id, start + length);
+        }
+
+        void add(int id, String text) {
+            int start = reserve(text.length());
+            text.getChars(0, text.length(), mChars, start);
+            commit(id, start + text.length());
+        }
+
+        //Asegura lugar para una fila más de length caracteres y devuelve dónde empieza
+        private int reserve(int length) {
+            if (mSize == mIds.length) {
+                int capacity = mIds.length + (mIds.length >> 1);
+                mIds = Arrays.copyOf(mIds, capacity);
+                mOffsets = Arrays.copyOf(mOffsets, capacity + 1);
+            }
+            int start = mOffsets[mSize];
+            if (start + length > mChars.length) {
+                mChars = Arrays.copyOf(mChars,
+                        Math.max(start + length, mChars.length + (mChars.length >> 1)));
+            }
+            return start;
+        }
+
+        private void commit(int id, int end) {
+            mIds[mSize] = id;
+            mOffsets[mSize + 1] = end;
+            mSize++;
+        }
+
+        /**
+         * Recorta los arreglos a lo usado, para que la instantánea no retenga espacio libre.
+         */
+        WordSnapshot build() {
+            if (mSize == 0) {
+                return EMPTY;
+            }
+            return new WordSnapshot(
+                    mIds.length == mSize ? mIds : Arrays.copyOf(mIds, mSize),
+                    mOffsets.length == mSize + 1 ? mOffsets : Arrays.copyOf(mOffsets, mSize + 1),
+                    mChars.length == mOffsets[mSize] ? mChars : Arrays.copyOf(mChars, mOffsets[mSize]),
+                    mSize);
+        }
+    }
+}
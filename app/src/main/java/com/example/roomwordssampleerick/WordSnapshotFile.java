@@ -0,0 +1,183 @@
+package com.example.roomwordssampleerick;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Copia en disco de la última lista de palabras, para mostrarla en un arranque en frío
+ * antes de que Room abra la base de datos y ordene las palabras.
+ *
+ * El archivo guarda los mismos arreglos que WordSnapshot, seguidos y sin conversión:
+ * <pre>
+ * cabecera (HEADER_BYTES)  MAGIC, FORMAT_VERSION, versión del esquema, fragmentos,
+ *                          filas, caracteres, CRC32 del cuerpo
+ * cuerpo                   int[filas] ids, int[filas + 1] inicios, char[caracteres] texto
+ * </pre>
+ * Se lee con un mapeo de memoria y una copia en bloque de cada arreglo, sin recorrer
+ * las filas ni crear Strings. Un archivo de otro formato, de otra versión del esquema o
+ * de otro número de fragmentos, o cuyo CRC no coincide, se borra y no se usa.
+ *
+ * Se escribe en un archivo temporal que después se renombra, así que una escritura
+ * interrumpida nunca deja un archivo a medias.
+ */
+
+final class WordSnapshotFile {
+
+    static final String FILE_NAME = "word_snapshot.bin";
+
+    //"WSNP"
+    private static final int MAGIC = 0x57534E50;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    //Tamaño de los bloques con que se calcula el CRC
+    private static final int CRC_CHUNK = 64 * 1024;
+
+    private final File mFile;
+    private final int mSchemaVersion;
+    private final int mShardCount;
+
+    WordSnapshotFile(File file, int schemaVersion, int shardCount) {
+        mFile = file;
+        mSchemaVersion = schemaVersion;
+        mShardCount = shardCount;
+    }
+
+    static WordSnapshotFile forApp(Context context, int shardCount) {
+        return new WordSnapshotFile(new File(context.getNoBackupFilesDir(), FILE_NAME),
+                WordRoomDatabase.VERSION, shardCount);
+    }
+
+    /**
+     * Lee la lista guardada.
+     *
+     * @return la lista, o null si no hay archivo o no es válido
+     */
+    @WorkerThread
+    @Nullable
+    WordSnapshot read() throws IOException {
+        if (!mFile.exists()) {
+            return null;
+        }
+        RandomAccessFile file = new RandomAccessFile(mFile, "r");
+        WordSnapshot snapshot;
+        try {
+            snapshot = read(file.getChannel());
+        } finally {
+            file.close();
+        }
+        if (snapshot == null) {
+            delete();
+        }
+        return snapshot;
+    }
+
+    @Nullable
+    private WordSnapshot read(FileChannel channel) throws IOException {
+        long length = channel.size();
+        if (length < HEADER_BYTES) {
+            return null;
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (mapped.getInt() != MAGIC || mapped.getInt() != FORMAT_VERSION
+                || mapped.getInt() != mSchemaVersion || mapped.getInt() != mShardCount) {
+            return null;
+        }
+        int size = mapped.getInt();
+        int charCount = mapped.getInt();
+        long crc = mapped.getLong();
+        if (size < 0 || charCount < 0
+                || length != HEADER_BYTES + 4L * size + 4L * (size + 1) + 2L * charCount) {
+            return null;
+        }
+        if (crc != crc32(mapped)) {
+            return null;
+        }
+
+        int[] ids = new int[size];
+        int[] offsets = new int[size + 1];
+        char[] chars = new char[charCount];
+        mapped.position(HEADER_BYTES);
+        mapped.asIntBuffer().get(ids);
+        mapped.position(HEADER_BYTES + 4 * size);
+        mapped.asIntBuffer().get(offsets);
+        mapped.position(HEADER_BYTES + 4 * size + 4 * (size + 1));
+        mapped.asCharBuffer().get(chars);
+        if (offsets[0] != 0 || offsets[size] != charCount) {
+            return null;
+        }
+        return WordSnapshot.wrap(ids, offsets, chars, size);
+    }
+
+    /**
+     * Guarda la lista, reemplazando la anterior.
+     */
+    @WorkerThread
+    void write(WordSnapshot snapshot) throws IOException {
+        int size = snapshot.size();
+        int charCount = size == 0 ? 0 : snapshot.start(size - 1) + snapshot.length(size - 1);
+        ByteBuffer buffer = ByteBuffer.allocate(
+                HEADER_BYTES + 4 * size + 4 * (size + 1) + 2 * charCount);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(HEADER_BYTES);
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(snapshot.getId(i));
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(snapshot.start(i));
+        }
+        buffer.putInt(charCount);
+        buffer.asCharBuffer().put(snapshot.chars(), 0, charCount);
+        buffer.position(0);
+        buffer.putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putInt(mSchemaVersion)
+                .putInt(mShardCount)
+                .putInt(size)
+                .putInt(charCount)
+                .putLong(crc32(buffer));
+
+        File temp = new File(mFile.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            out.write(buffer.array());
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(mFile)) {
+            temp.delete();
+            throw new IOException("Could not replace " + mFile);
+        }
+    }
+
+    void delete() {
+        mFile.delete();
+    }
+
+    //CRC32 de todo lo que sigue a la cabecera; no cambia la posición del buffer
+    private static long crc32(ByteBuffer buffer) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[Math.min(CRC_CHUNK, body.remaining())];
+        while (body.hasRemaining()) {
+            int length = Math.min(chunk.length, body.remaining());
+            body.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+        return crc.getValue();
+    }
+}
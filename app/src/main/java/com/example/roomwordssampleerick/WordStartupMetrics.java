@@ -0,0 +1,61 @@
+package com.example.roomwordssampleerick;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Tiempos del arranque en frío: cuánto tarda en abrirse la base de datos
+ * y cuánto pasa desde que inicia el proceso hasta que se muestra la primera lista.
+ * Los tiempos se escriben en el log con la etiqueta WordStartup.
+ */
+
+final class WordStartupMetrics {
+
+    private static final String TAG = "WordStartup";
+
+    private static volatile long sProcessStartUptime;
+    private static volatile long sDatabaseOpenMs = -1;
+    private static volatile long sTimeToFirstListMs = -1;
+
+    private WordStartupMetrics() {
+    }
+
+    /**
+     * Marca el inicio del proceso. En API 24+ se usa la hora real de inicio del proceso;
+     * antes, la de Application.onCreate().
+     */
+    static void onProcessStart() {
+        sProcessStartUptime = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? Process.getStartUptimeMillis()
+                : SystemClock.uptimeMillis();
+    }
+
+    static void onDatabaseOpened(long durationMs) {
+        sDatabaseOpenMs = durationMs;
+        Log.i(TAG, "Database opened in " + durationMs + " ms");
+    }
+
+    /**
+     * Registra que se mostró la primera lista.
+     *
+     * @return true sólo la primera vez, para informar el arranque completo una sola vez
+     */
+    static synchronized boolean onFirstListShown() {
+        if (sTimeToFirstListMs >= 0 || sProcessStartUptime == 0) {
+            return false;
+        }
+        sTimeToFirstListMs = SystemClock.uptimeMillis() - sProcessStartUptime;
+        Log.i(TAG, "Time to first list: " + sTimeToFirstListMs + " ms");
+        return true;
+    }
+
+    static long databaseOpenMs() {
+        return sDatabaseOpenMs;
+    }
+
+    static long timeToFirstListMs() {
+        return sTimeToFirstListMs;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Identidad de una palabra entre dispositivos: sync_id es el mismo en todos,
+ * aunque el id local de word_table sea distinto, y version es la última versión
+ * del servidor que se conoce (0 si nunca se ha sincronizado).
+ *
+ * El trigger word_change_AFTER_INSERT crea la fila con un sync_id aleatorio;
+ * al purgar la palabra se borra en cascada.
+ */
+
+@Entity(tableName = "word_sync",
+        foreignKeys = @ForeignKey(entity = Word.class, parentColumns = "id",
+                childColumns = "word_id", onDelete = ForeignKey.CASCADE),
+        indices = {@Index(value = "sync_id", unique = true)})
+public class WordSync {
+
+    @PrimaryKey
+    @ColumnInfo(name = "word_id")
+    private int mWordId;
+
+    @NonNull
+    @ColumnInfo(name = "sync_id")
+    private String mSyncId;
+
+    @ColumnInfo(name = "version", defaultValue = "0")
+    private long mVersion;
+
+    public WordSync(int wordId, @NonNull String syncId, long version) {
+        this.mWordId = wordId;
+        this.mSyncId = syncId;
+        this.mVersion = version;
+    }
+
+    public int getWordId() {
+        return this.mWordId;
+    }
+
+    @NonNull
+    public String getSyncId() {
+        return this.mSyncId;
+    }
+
+    public long getVersion() {
+        return this.mVersion;
+    }
+}
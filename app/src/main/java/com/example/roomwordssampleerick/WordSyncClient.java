@@ -0,0 +1,104 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+
+/**
+ * Cliente HTTP del servidor de sincronización:
+ *
+ *   POST {base}push                      envía cambios; responde el estado que quedó en el
+ *                                        servidor para cada uno, en el mismo orden
+ *   GET  {base}changes?since=V&limit=N   cambios con versión mayor que V, en orden de versión
+ *
+ * Los cuerpos van en el formato de WordSyncCodec. Cualquier respuesta que no sea 200
+ * se informa como IOException.
+ */
+
+class WordSyncClient {
+
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    private final URL mBase;
+
+    //base debe terminar en '/'
+    WordSyncClient(URL base) {
+        mBase = base;
+    }
+
+    @WorkerThread
+    WordSyncCodec.Batch push(List<WordDelta> deltas) throws IOException {
+        HttpURLConnection connection = open(new URL(mBase, "push"));
+        try {
+            byte[] body = WordSyncCodec.encode(new WordSyncCodec.Batch(0, false, deltas));
+            WordMetrics.SYNC_BYTES.record(body.length);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", WordSyncCodec.CONTENT_TYPE);
+            OutputStream out = connection.getOutputStream();
+            try {
+                out.write(body);
+            } finally {
+                out.close();
+            }
+            WordSyncCodec.Batch results = read(connection);
+            if (results.mDeltas.size() != deltas.size()) {
+                throw new IOException("Expected " + deltas.size() + " results, got "
+                        + results.mDeltas.size());
+            }
+            return results;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @WorkerThread
+    WordSyncCodec.Batch pull(long since, int limit) throws IOException {
+        HttpURLConnection connection = open(
+                new URL(mBase, "changes?since=" + since + "&limit=" + limit));
+        try {
+            return read(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static HttpURLConnection open(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setUseCaches(false);
+        connection.setRequestProperty("Accept", WordSyncCodec.CONTENT_TYPE);
+        return connection;
+    }
+
+    private static WordSyncCodec.Batch read(HttpURLConnection connection) throws IOException {
+        int code = connection.getResponseCode();
+        if (code != HttpURLConnection.HTTP_OK) {
+            throw new IOException("HTTP " + code + " from " + connection.getURL());
+        }
+        //Se lee el cuerpo completo para registrar su tamaño comprimido
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        InputStream in = connection.getInputStream();
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        WordMetrics.SYNC_BYTES.record(body.size());
+        return WordSyncCodec.decode(new ByteArrayInputStream(body.toByteArray()));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.roomwordssampleerick;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato binario de los lotes de cambios que se intercambian con el servidor,
+ * comprimido con gzip:
+ *
+ *   int MAGIC, long watermark, boolean hasMore, int n,
+ *   n veces: UTF syncId, UTF word, boolean deleted, long version
+ *
+ * Los sync_id son hexadecimales y casi todo el texto se repite entre lotes,
+ * así que gzip reduce bastante el tamaño.
+ */
+
+final class WordSyncCodec {
+
+    static final String CONTENT_TYPE = "application/x-word-delta";
+
+    //"WDS1"
+    private static final int MAGIC = 0x57445331;
+    //Más cambios que éstos en un lote indican datos corruptos
+    private static final int MAX_DELTAS = 1 << 20;
+
+    private WordSyncCodec() {
+    }
+
+    static final class Batch {
+
+        //Versión del servidor hasta la que llega el lote; 0 en los envíos
+        final long mWatermark;
+        //El servidor tiene más cambios después de watermark
+        final boolean mHasMore;
+        final List<WordDelta> mDeltas;
+
+        Batch(long watermark, boolean hasMore, List<WordDelta> deltas) {
+            mWatermark = watermark;
+            mHasMore = hasMore;
+            mDeltas = deltas;
+        }
+    }
+
+    static byte[] encode(Batch batch) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes));
+        try {
+            out.writeInt(MAGIC);
+            out.writeLong(batch.mWatermark);
+            out.writeBoolean(batch.mHasMore);
+            out.writeInt(batch.mDeltas.size());
+            for (WordDelta delta : batch.mDeltas) {
+                out.writeUTF(delta.mSyncId);
+                out.writeUTF(delta.mWord);
+                out.writeBoolean(delta.mDeleted);
+                out.writeLong(delta.mVersion);
+            }
+        } finally {
+            out.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    static Batch decode(InputStream compressed) throws IOException {
+        DataInputStream in = new DataInputStream(new GZIPInputStream(compressed));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a word delta batch");
+            }
+            long watermark = in.readLong();
+            boolean hasMore = in.readBoolean();
+            int count = in.readInt();
+            if (count < 0 || count > MAX_DELTAS) {
+                throw new IOException("Bad delta count " + count);
+            }
+            if (count == 0) {
+                return new Batch(watermark, hasMore, Collections.<WordDelta>emptyList());
+            }
+            List<WordDelta> deltas = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                deltas.add(new WordDelta(in.readUTF(), in.readUTF(), in.readBoolean(),
+                        in.readLong()));
+            }
+            return new Batch(watermark, hasMore, deltas);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.roomwordssampleerick;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+/**
+ * DAO de la sincronización: lee los cambios pendientes de word_change y aplica
+ * los que llegan del servidor.
+ *
+ * Cada lote recibido se aplica en una sola transacción junto con la marca de agua.
+ * Las escrituras del lote pasan por los mismos triggers que las del usuario; los cambios
+ * que registran se borran antes de confirmar, así no se reenvían al servidor.
+ *
+ * Conflictos: el servidor acepta un cambio sólo si se hizo sobre la versión que él tiene.
+ * Un cambio rechazado se reemplaza por el estado del servidor, y una versión recibida
+ * que no es más nueva que la local se descarta.
+ */
+
+@Dao
+public abstract class WordSyncDao {
+
+    @Query("SELECT * FROM word_change ORDER BY seq ASC LIMIT :limit")
+    abstract List<WordChange> getPendingChanges(int limit);
+
+    @Query("SELECT COUNT(*) FROM word_change")
+    abstract int countPendingChanges();
+
+    @Query("SELECT watermark FROM word_sync_state WHERE id = " + WordSyncState.ID)
+    abstract Long getWatermark();
+
+    @Query("INSERT OR REPLACE INTO word_sync_state (id, watermark) "
+            + "VALUES (" + WordSyncState.ID + ", :watermark)")
+    abstract void setWatermark(long watermark);
+
+    @Query("SELECT * FROM word_sync WHERE sync_id = :syncId")
+    abstract WordSync findBySyncId(String syncId);
+
+    @Query("SELECT * FROM word_sync WHERE word_id = :wordId")
+    abstract WordSync findByWordId(int wordId);
+
+    @Query("SELECT * FROM word_table WHERE word = :word LIMIT 1")
+    abstract Word findAnyWord(String word);
+
+    @Insert
+    abstract long insertWord(Word word);
+
+    //Sin efecto si el texto ya es igual (distinguiendo mayúsculas) y la palabra no está borrada;
+    //si otra palabra ya usa el texto, el cambio se ignora
+    @Query("UPDATE OR IGNORE word_table SET word = :word, deleted_at = 0 WHERE id = :id "
+            + "AND (word != :word COLLATE BINARY OR deleted_at != 0)")
+    abstract int restoreWith(int id, String word);
+
+    @Query("UPDATE word_table SET deleted_at = :deletedAt WHERE id = :id AND deleted_at = 0")
+    abstract int softDelete(int id, long deletedAt);
+
+    @Query("UPDATE word_sync SET sync_id = :syncId, version = :version WHERE word_id = :wordId")
+    abstract void setIdentity(int wordId, String syncId, long version);
+
+    @Query("UPDATE word_sync SET version = :version WHERE sync_id = :syncId AND version < :version")
+    abstract void setVersion(String syncId, long version);
+
+    //Los cambios hechos aquí mientras se enviaba uno aceptado pasan a su nueva versión
+    @Query("UPDATE word_change SET base_version = :version "
+            + "WHERE sync_id = :syncId AND seq > :afterSeq")
+    abstract void rebaseChanges(String syncId, long version, long afterSeq);
+
+    @Query("DELETE FROM word_change WHERE sync_id = :syncId")
+    abstract void deleteChanges(String syncId);
+
+    @Query("SELECT IFNULL(MAX(seq), 0) FROM word_change")
+    abstract long getLastSeq();
+
+    @Query("DELETE FROM word_change WHERE seq > :afterSeq")
+    abstract void deleteChangesAfter(long afterSeq);
+
+    @Query("DELETE FROM word_change WHERE seq <= :seq")
+    abstract void deleteChangesUpTo(long seq);
+
+    /**
+     * Aplica un lote recibido con GET changes y guarda la nueva marca de agua.
+     * @return cuántas palabras cambiaron
+     */
+    @Transaction
+    int applyPulled(List<WordDelta> deltas, long watermark, long now) {
+        long lastSeq = getLastSeq();
+        int applied = 0;
+        for (WordDelta delta : deltas) {
+            if (applyRemote(delta, now)) {
+                applied++;
+            }
+        }
+        deleteChangesAfter(lastSeq);
+        setWatermark(watermark);
+        return applied;
+    }
+
+    /**
+     * Aplica la respuesta a un envío: los cambios aceptados sólo reciben su versión
+     * (y los cambios locales hechos mientras tanto se rebasan sobre ella); los rechazados
+     * se reemplazan por el estado del servidor. Borra los cambios enviados, hasta sentSeq.
+     * @return cuántos cambios rechazó el servidor
+     */
+    @Transaction
+    int applyPushed(List<WordDelta> sent, List<WordDelta> results, long sentSeq, long now) {
+        long lastSeq = getLastSeq();
+        int conflicts = 0;
+        for (int i = 0; i < sent.size(); i++) {
+            WordDelta result = results.get(i);
+            if (result.sameStateAs(sent.get(i))) {
+                setVersion(result.mSyncId, result.mVersion);
+                rebaseChanges(result.mSyncId, result.mVersion, sentSeq);
+            } else {
+                conflicts++;
+                applyRemote(result, now);
+            }
+        }
+        deleteChangesAfter(lastSeq);
+        deleteChangesUpTo(sentSeq);
+        return conflicts;
+    }
+
+    private boolean applyRemote(WordDelta delta, long now) {
+        WordSync local = findBySyncId(delta.mSyncId);
+        if (local != null) {
+            if (local.getVersion() >= delta.mVersion) {
+                return false;
+            }
+            if (delta.mDeleted) {
+                softDelete(local.getWordId(), now);
+            } else {
+                restoreWith(local.getWordId(), delta.mWord);
+            }
+            setVersion(delta.mSyncId, delta.mVersion);
+            return true;
+        }
+        if (delta.mDeleted) {
+            return false;
+        }
+        //La misma palabra creada en dos dispositivos: la local, si nunca se sincronizó,
+        //adopta la identidad y el estado del servidor y sus cambios pendientes se descartan;
+        //si ya tiene otra identidad, la recibida se descarta
+        Word existing = findAnyWord(delta.mWord);
+        int wordId;
+        if (existing != null) {
+            WordSync sync = findByWordId(existing.getId());
+            if (sync != null && sync.getVersion() != 0) {
+                return false;
+            }
+            wordId = existing.getId();
+            restoreWith(wordId, delta.mWord);
+            if (sync != null) {
+                deleteChanges(sync.getSyncId());
+            }
+        } else {
+            wordId = (int) insertWord(new Word(delta.mWord));
+        }
+        setIdentity(wordId, delta.mSyncId, delta.mVersion);
+        return true;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.roomwordssampleerick;
+
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sincroniza word_table con el servidor: primero recibe los cambios del servidor desde
+ * la marca de agua y después envía los pendientes de word_change. Recibir primero
+ * permite que una palabra creada aquí y en otro dispositivo adopte la identidad
+ * del servidor antes de enviarse como otra palabra.
+ *
+ * Los cambios viajan por lotes de BATCH_SIZE. Varios cambios pendientes de una misma
+ * palabra se envían como uno solo, con el último estado. Las respuestas se aplican
+ * con WordSyncDao en una transacción por lote, como escrituras en segundo plano:
+ * las escrituras del usuario pasan primero y la red nunca se espera con el escritor tomado.
+ *
+ * Cada lote registra su latencia en WordMetrics (sync.push, sync.pull) y su tamaño
+ * comprimido en sync.batch_bytes.
+ */
+
+class WordSyncEngine {
+
+    private static final String TAG = "WordSync";
+
+    static final int BATCH_SIZE = 500;
+
+    static final class Result {
+
+        final int mPushed;
+        final int mPulled;
+        final int mConflicts;
+        final long mElapsedMs;
+
+        Result(int pushed, int pulled, int conflicts, long elapsedMs) {
+            mPushed = pushed;
+            mPulled = pulled;
+            mConflicts = conflicts;
+            mElapsedMs = elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return "pushed " + mPushed + ", pulled " + mPulled + ", conflicts " + mConflicts
+                    + " in " + mElapsedMs + " ms";
+        }
+    }
+
+    private final WordSyncDao mSyncDao;
+    private final WordDatabaseExecutors mExecutors;
+    private final WordSyncClient mClient;
+
+    WordSyncEngine(WordRoomDatabase db, WordDatabaseExecutors executors, WordSyncClient client) {
+        mSyncDao = db.wordSyncDao();
+        mExecutors = executors;
+        mClient = client;
+    }
+
+    @WorkerThread
+    Result sync() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        int pushed = 0;
+        int conflicts = 0;
+        int pulled = 0;
+
+        Long stored = mSyncDao.getWatermark();
+        long watermark = stored == null ? 0 : stored;
+        WordSyncCodec.Batch batch;
+        do {
+            long batchStart = System.nanoTime();
+            batch = mClient.pull(watermark, BATCH_SIZE);
+            final WordSyncCodec.Batch received = batch;
+            pulled += await(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return mSyncDao.applyPulled(received.mDeltas, received.mWatermark,
+                            System.currentTimeMillis());
+                }
+            });
+            watermark = batch.mWatermark;
+            WordMetrics.recordSince(WordMetrics.SYNC_PULL, batchStart);
+        } while (batch.mHasMore);
+
+        List<WordChange> changes;
+        while (!(changes = mSyncDao.getPendingChanges(BATCH_SIZE)).isEmpty()) {
+            long batchStart = System.nanoTime();
+            final long sentSeq = changes.get(changes.size() - 1).getSeq();
+            final List<WordDelta> sent = coalesce(changes);
+            final WordSyncCodec.Batch results = mClient.push(sent);
+            conflicts += await(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return mSyncDao.applyPushed(sent, results.mDeltas, sentSeq,
+                            System.currentTimeMillis());
+                }
+            });
+            pushed += sent.size();
+            WordMetrics.recordSince(WordMetrics.SYNC_PUSH, batchStart);
+        }
+
+        WordMetrics.SYNC_PUSHED_ROWS.addAndGet(pushed);
+        WordMetrics.SYNC_PULLED_ROWS.addAndGet(pulled);
+        WordMetrics.SYNC_CONFLICTS.addAndGet(conflicts);
+        Result result = new Result(pushed, pulled, conflicts,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        Log.i(TAG, result.toString());
+        return result;
+    }
+
+    /**
+     * Un cambio por palabra, con el estado y la versión base de su último cambio,
+     * en el orden en que se hizo el primero.
+     */
+    static List<WordDelta> coalesce(List<WordChange> changes) {
+        Map<String, WordDelta> latest = new LinkedHashMap<>();
+        for (WordChange change : changes) {
+            latest.put(change.getSyncId(), WordDelta.of(change));
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    private int await(Callable<Integer> apply) throws IOException, InterruptedException {
+        Future<Integer> write = mExecutors.executeWrite(
+                WordDatabaseExecutors.PRIORITY_BACKGROUND, apply, null);
+        try {
+            return write.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Could not apply sync batch", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.roomwordssampleerick;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Estado de la sincronización; tiene una sola fila (id 0).
+ * watermark es la versión del servidor hasta la que ya se recibieron los cambios,
+ * y se guarda en la misma transacción que los aplica.
+ */
+
+@Entity(tableName = "word_sync_state")
+public class WordSyncState {
+
+    static final int ID = 0;
+
+    @PrimaryKey
+    @ColumnInfo(name = "id")
+    private int mId;
+
+    @ColumnInfo(name = "watermark")
+    private long mWatermark;
+
+    public WordSyncState(int id, long watermark) {
+        this.mId = id;
+        this.mWatermark = watermark;
+    }
+
+    public int getId() {
+        return this.mId;
+    }
+
+    public long getWatermark() {
+        return this.mWatermark;
+    }
+}
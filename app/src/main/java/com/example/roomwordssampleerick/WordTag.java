@@ -0,0 +1,42 @@
+package com.example.roomwordssampleerick;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * Relación muchos a muchos entre palabras y etiquetas.
+ * La clave primaria (word_id, tag_id) sirve para buscar las etiquetas de una palabra,
+ * y el índice (tag_id, word_id) para buscar las palabras de una etiqueta.
+ * Las filas se borran en cascada con la palabra o con la etiqueta.
+ */
+
+@Entity(tableName = "word_tag", primaryKeys = {"word_id", "tag_id"},
+        foreignKeys = {
+                @ForeignKey(entity = Word.class, parentColumns = "id",
+                        childColumns = "word_id", onDelete = ForeignKey.CASCADE),
+                @ForeignKey(entity = Tag.class, parentColumns = "id",
+                        childColumns = "tag_id", onDelete = ForeignKey.CASCADE)},
+        indices = {@Index(value = {"tag_id", "word_id"})})
+public class WordTag {
+
+    @ColumnInfo(name = "word_id")
+    private int mWordId;
+
+    @ColumnInfo(name = "tag_id")
+    private int mTagId;
+
+    public WordTag(int wordId, int tagId) {
+        this.mWordId = wordId;
+        this.mTagId = tagId;
+    }
+
+    public int getWordId() {
+        return this.mWordId;
+    }
+
+    public int getTagId() {
+        return this.mTagId;
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.WorkerThread;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unidad de trabajo: una secuencia de escrituras que se prepara de antemano y se confirma
+ * entera con WordRepository.commit(), en una sola transacción. Los observadores reciben
+ * una sola invalidación y nunca ven los estados intermedios, por ejemplo la lista vacía
+ * entre el deleteAll() y las inserciones de un reemplazo completo.
+ *
+ * savepoint() agrega un bloque anidado, que corre dentro de un SAVEPOINT de SQLite y se
+ * aplica todo o nada: si una de sus escrituras no tiene efecto (una inserción ignorada
+ * porque el texto ya existe, o el borrado de una palabra que no está), el bloque se
+ * revierte hasta su SAVEPOINT y el resto de la unidad sigue. Los bloques pueden anidarse;
+ * un bloque revertido no revierte el bloque que lo contiene.
+ * Un error de SQLite revierte la unidad completa: los métodos de Room abren su propia
+ * transacción anidada, y una que falla hace fallar la externa.
+ *
+ * Los borrados de una unidad comparten deleted_at (getDeletedAt()), así que
+ * WordRepository.restoreAll() los deshace todos juntos.
+ *
+ * Se prepara en un solo hilo; después de confirmarla ya no se le agregan escrituras.
+ * Cada método devuelve la posición de la escritura, con la que después se lee su resultado.
+ */
+
+final class WordTransaction {
+
+    /**
+     * Prepara las escrituras de un bloque anidado.
+     */
+    interface Block {
+        void stage(WordTransaction block);
+    }
+
+    private static final int INSERT = 0;
+    private static final int UPDATE = 1;
+    private static final int DELETE = 2;
+    private static final int DELETE_ALL = 3;
+    private static final int USE = 4;
+    private static final int SAVEPOINT = 5;
+
+    //Nivel de anidamiento; da nombre al SAVEPOINT de cada bloque
+    private final int mDepth;
+    private final List<Operation> mOperations = new ArrayList<>();
+    private boolean mSealed;
+    private boolean mRolledBack;
+    private long mDeletedAt;
+    //Escrituras propias, sin contar las de los bloques, que no tuvieron efecto en apply()
+    private int mMissed;
+
+    WordTransaction() {
+        this(0);
+    }
+
+    private WordTransaction(int depth) {
+        mDepth = depth;
+    }
+
+    int insert(Word word) {
+        return stage(new Operation(INSERT, word, null));
+    }
+
+    /**
+     * Cambia el texto de una palabra; si el nuevo texto ya existe, se fusionan
+     * como en WordDao.upsert().
+     */
+    int update(Word word) {
+        return stage(new Operation(UPDATE, word, null));
+    }
+
+    //Borrado lógico, como WordRepository.deleteWord()
+    int delete(Word word) {
+        return stage(new Operation(DELETE, word, null));
+    }
+
+    int deleteAll() {
+        return stage(new Operation(DELETE_ALL, null, null));
+    }
+
+    int recordUse(Word word) {
+        return stage(new Operation(USE, word, null));
+    }
+
+    /**
+     * Agrega un bloque que se aplica todo o nada; su resultado se lee con getBlock().
+     */
+    int savepoint(Block block) {
+        WordTransaction nested = new WordTransaction(mDepth + 1);
+        block.stage(nested);
+        nested.mSealed = true;
+        return stage(new Operation(SAVEPOINT, null, nested));
+    }
+
+    private int stage(Operation operation) {
+        if (mSealed) {
+            throw new IllegalStateException("Transaction already committed");
+        }
+        mOperations.add(operation);
+        return mOperations.size() - 1;
+    }
+
+    int size() {
+        return mOperations.size();
+    }
+
+    /**
+     * Después de confirmar: el id de la palabra escrita, o -1 si la escritura no tuvo
+     * efecto o su bloque se revirtió. Para deleteAll(), la cantidad de palabras borradas.
+     */
+    long getId(int position) {
+        return mOperations.get(position).mId;
+    }
+
+    WordTransaction getBlock(int position) {
+        return mOperations.get(position).mBlock;
+    }
+
+    //true si el bloque se revirtió hasta su SAVEPOINT, o si la unidad entera no se confirmó
+    boolean isRolledBack() {
+        return mRolledBack;
+    }
+
+    //El valor de deleted_at de los borrados de la unidad; 0 antes de confirmarla
+    long getDeletedAt() {
+        return mDeletedAt;
+    }
+
+    boolean hasDeletes() {
+        for (Operation operation : mOperations) {
+            if (operation.mType == DELETE || operation.mType == DELETE_ALL
+                    || (operation.mType == SAVEPOINT && operation.mBlock.hasDeletes())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * El fragmento (ver WordShards) en el que escribe toda la unidad, o -1 si escribe
+     * en varios. Sin escrituras, el fragmento 0.
+     */
+    int getShard(int shardCount) {
+        int shard = -1;
+        for (Operation operation : mOperations) {
+            int target;
+            switch (operation.mType) {
+                case INSERT:
+                    target = WordShards.shardOf(operation.mWord.getWord(), shardCount);
+                    break;
+                case UPDATE:
+                    target = WordShards.shardOf(operation.mWord.getWord(), shardCount);
+                    int id = operation.mWord.getId();
+                    if (id != 0 && WordShards.shardOfId(id, shardCount) != target) {
+                        return -1;
+                    }
+                    break;
+                case DELETE_ALL:
+                    target = shardCount == 1 ? 0 : -1;
+                    break;
+                case SAVEPOINT:
+                    if (operation.mBlock.size() == 0) {
+                        continue;
+                    }
+                    target = operation.mBlock.getShard(shardCount);
+                    break;
+                default:
+                    target = WordShards.shardOfId(operation.mWord.getId(), shardCount);
+                    break;
+            }
+            if (target == -1 || (shard != -1 && shard != target)) {
+                return -1;
+            }
+            shard = target;
+        }
+        return shard == -1 ? 0 : shard;
+    }
+
+    /**
+     * Aplica la unidad en orden. Se llama en el escritor, dentro de la transacción del lote
+     * de WordWriteCoalescer.
+     *
+     * @return cuántas escrituras tuvieron efecto, incluidas las de los bloques confirmados
+     */
+    @WorkerThread
+    int apply(WordRoomDatabase db, long deletedAt) {
+        mSealed = true;
+        mDeletedAt = deletedAt;
+        mMissed = 0;
+        //Si el lote falló, WordWriteCoalescer vuelve a aplicar la unidad sola
+        mRolledBack = false;
+        int applied = 0;
+        for (int i = 0; i < mOperations.size(); i++) {
+            Operation operation = mOperations.get(i);
+            if (operation.mType == INSERT) {
+                //Las inserciones seguidas se envían al DAO como una lista
+                int end = i + 1;
+                while (end < mOperations.size() && mOperations.get(end).mType == INSERT) {
+                    end++;
+                }
+                List<Word> words = new ArrayList<>(end - i);
+                for (int j = i; j < end; j++) {
+                    words.add(mOperations.get(j).mWord);
+                }
+                List<Long> ids = db.wordDao().insertOrRevive(words);
+                for (int j = i; j < end; j++) {
+                    mOperations.get(j).mId = ids.get(j - i);
+                    if (ids.get(j - i) > 0) {
+                        applied++;
+                    } else {
+                        mMissed++;
+                    }
+                }
+                i = end - 1;
+            } else if (operation.mType == SAVEPOINT) {
+                applied += operation.mBlock.applyBlock(db, deletedAt);
+            } else if (apply(db, operation, deletedAt)) {
+                applied++;
+            } else {
+                mMissed++;
+            }
+        }
+        return applied;
+    }
+
+    private boolean apply(WordRoomDatabase db, Operation operation, long deletedAt) {
+        WordDao wordDao = db.wordDao();
+        Word word = operation.mWord;
+        switch (operation.mType) {
+            case UPDATE:
+                operation.mId = wordDao.upsert(word);
+                break;
+            case DELETE:
+                operation.mId = wordDao.softDelete(word.getId(), deletedAt) > 0 ? word.getId() : -1;
+                break;
+            case DELETE_ALL:
+                operation.mId = wordDao.softDeleteAll(deletedAt);
+                return true;
+            case USE:
+                operation.mId = db.wordMetaDao().recordUse(word.getId()) > 0 ? word.getId() : -1;
+                break;
+        }
+        return operation.mId > 0;
+    }
+
+    //Aplica el bloque dentro de un SAVEPOINT y lo revierte si alguna de sus escrituras
+    //no tuvo efecto; devuelve cuántas quedaron, 0 si se revirtió
+    private int applyBlock(WordRoomDatabase db, long deletedAt) {
+        SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+        String name = "word_block_" + mDepth;
+        sqlite.execSQL("SAVEPOINT " + name);
+        int applied = apply(db, deletedAt);
+        if (mMissed == 0) {
+            sqlite.execSQL("RELEASE " + name);
+            return applied;
+        }
+        //Antes de API 28, Android trata todo lo que empieza con ROLLBACK como el fin de la
+        //transacción; con el ';' delante se ejecuta como una sentencia más
+        sqlite.execSQL(";ROLLBACK TO " + name);
+        sqlite.execSQL("RELEASE " + name);
+        rollBack();
+        return 0;
+    }
+
+    /**
+     * Después de confirmar el lote: asigna a las palabras insertadas su id,
+     * como hace WordWriteCoalescer con las inserciones sueltas.
+     */
+    void onCommitted() {
+        for (Operation operation : mOperations) {
+            if (operation.mType == INSERT && operation.mId > 0) {
+                operation.mWord.setId((int) operation.mId);
+            } else if (operation.mType == SAVEPOINT) {
+                operation.mBlock.onCommitted();
+            }
+        }
+    }
+
+    /**
+     * Marca la unidad y sus bloques como no confirmados. WordWriteCoalescer la llama
+     * si el lote falla.
+     */
+    void rollBack() {
+        mRolledBack = true;
+        for (Operation operation : mOperations) {
+            operation.mId = -1;
+            if (operation.mBlock != null) {
+                operation.mBlock.rollBack();
+            }
+        }
+    }
+
+    /**
+     * Una escritura preparada y, después de confirmarla, su resultado.
+     */
+    private static class Operation {
+        final int mType;
+        final Word mWord;
+        final WordTransaction mBlock;
+        long mId = -1;
+
+        Operation(int type, Word word, WordTransaction block) {
+            mType = type;
+            mWord = word;
+            mBlock = block;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+
+/**
+ * Proyección para las listas de palabras más usadas o recientes:
+ * sólo las columnas que se muestran, sin cargar la entidad completa.
+ */
+
+public class WordUsage {
+
+    @ColumnInfo(name = "id")
+    private final int mId;
+
+    @NonNull
+    @ColumnInfo(name = "word")
+    private final String mWord;
+
+    @ColumnInfo(name = "usage_count")
+    private final int mUsageCount;
+
+    //Para ordenar por recientes al juntar los resultados de varios fragmentos
+    @ColumnInfo(name = "updated_at")
+    private final long mUpdatedAt;
+
+    public WordUsage(int id, @NonNull String word, int usageCount, long updatedAt) {
+        this.mId = id;
+        this.mWord = word;
+        this.mUsageCount = usageCount;
+        this.mUpdatedAt = updatedAt;
+    }
+
+    public int getId() {
+        return this.mId;
+    }
+
+    @NonNull
+    public String getWord() {
+        return this.mWord;
+    }
+
+    public int getUsageCount() {
+        return this.mUsageCount;
+    }
+
+    public long getUpdatedAt() {
+        return this.mUpdatedAt;
+    }
+}
@@ -1,46 +1,453 @@
 package com.example.roomwordssampleerick;
 
 import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import androidx.annotation.Nullable;
+import androidx.arch.core.util.Function;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.DataSource;
+import androidx.paging.PagedList;
 
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Publisher;
+
+import io.reactivex.Flowable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Consumer;
+import io.reactivex.processors.BehaviorProcessor;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * El WordViewModel proporciona la interfaz entre la interfaz de usuario y la capa de datos de la aplicación,
  * representado por el Repositorio
+ *
+ * Las inserciones, ediciones y borrados se muestran de inmediato a través de un WordOverlay
+ * y se escriben en segundo plano; cada cambio se descarta del overlay cuando llega una lista
+ * que ya lo incluye, o se revierte si la escritura falla.
  */
 
 public class WordViewModel extends AndroidViewModel {
 
+    private static final String TAG = "WordViewModel";
+
+    //Tiempo que se espera a que el usuario deje de escribir antes de buscar
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+
+    //Una búsqueda fallida no cambia los resultados mostrados
+    private static final Consumer<Throwable> LOG_ERRORS = new Consumer<Throwable>() {
+        @Override
+        public void accept(Throwable error) {
+            Log.w(TAG, "Search failed", error);
+        }
+    };
+
+    //Tiempo durante el cual se puede deshacer un borrado;
+    //algo más que lo que se muestra un Snackbar LENGTH_LONG
+    static final long UNDO_WINDOW_MS = 3500;
+
     private WordRepository mRepository;
 
-    private LiveData<List<Word>> mAllWords;
+    private LiveData<PagedList<Word>> mPagedWords;
+    //Clave alrededor de la cual empieza la lista paginada; null para empezar por el principio
+    private final MutableLiveData<Word> mPageKey = new MutableLiveData<>(null);
+    private LiveData<WordSectionIndex> mSections;
+
+    //Los resultados de búsqueda con el overlay aplicado; null cuando no hay búsqueda activa
+    private final MutableLiveData<List<Word>> mShownResults = new MutableLiveData<>();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private String mSearchQuery;
+    //Texto de búsqueda y overlay como flujos; el resto del camino de la búsqueda se arma con ellos
+    private final BehaviorProcessor<String> mQueries = BehaviorProcessor.createDefault("");
+    private final BehaviorProcessor<WordOverlay> mOverlays =
+            BehaviorProcessor.createDefault(WordOverlay.EMPTY);
+    private final CompositeDisposable mSubscriptions = new CompositeDisposable();
+
+    private Future<?> mTransfer;
+
+    //Cambios que se muestran pero que la lista de la base de datos aún no refleja
+    private final MutableLiveData<WordOverlay> mOverlay = new MutableLiveData<>(WordOverlay.EMPTY);
+    //Borrados que todavía se pueden deshacer, por id de palabra
+    private final Map<Integer, UndoableDelete> mUndoableDeletes = new HashMap<>();
+    //Identifica el último borrado de todas las palabras; 0 si no hay uno para deshacer
+    private long mLastDeleteAll;
+    //Ids temporales para las palabras insertadas que aún no tienen id
+    private int mNextTempId = -1;
+    //Mensaje de error a mostrar cuando se revierte un cambio; null si no hay
+    private final MutableLiveData<Integer> mMessage = new MutableLiveData<>();
 
     public WordViewModel(Application application) {
         super(application);
-        mRepository = new WordRepository(application);
-        mAllWords = mRepository.getAllWords();
+        mRepository = WordRepository.getInstance(application);
+        //Cada salto a una letra arma una lista nueva alrededor de la primera palabra de esa letra
+        mPagedWords = Transformations.switchMap(mPageKey,
+                new Function<Word, LiveData<PagedList<Word>>>() {
+                    @Override
+                    public LiveData<PagedList<Word>> apply(Word key) {
+                        return mRepository.getPagedWords(key);
+                    }
+                });
+        mSections = mRepository.getSections();
+
+        subscribeToSearch();
+    }
+
+    /**
+     * Arma la búsqueda: cada texto nuevo cancela la búsqueda anterior, y el nuevo se consulta
+     * cuando el usuario deja de escribir por SEARCH_DEBOUNCE_MS; mientras siga activa, se
+     * repite cada vez que cambian las palabras. El overlay se aplica a los resultados en un
+     * hilo de cómputo, así al hilo principal sólo llega la lista a mostrar.
+     */
+    private void subscribeToSearch() {
+        Flowable<WordSearch.Results> results = mQueries.switchMap(
+                new io.reactivex.functions.Function<String, Publisher<WordSearch.Results>>() {
+                    @Override
+                    public Publisher<WordSearch.Results> apply(String query) {
+                        if (query.trim().isEmpty()) {
+                            return Flowable.just(WordSearch.Results.NONE);
+                        }
+                        return mRepository.observeSearch(query)
+                                .delaySubscription(SEARCH_DEBOUNCE_MS, TimeUnit.MILLISECONDS)
+                                .doOnError(LOG_ERRORS)
+                                .onErrorResumeNext(Flowable.<WordSearch.Results>empty());
+                    }
+                })
+                .share();
+
+        //La consulta empezó después de confirmarse estos cambios
+        mSubscriptions.add(results
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Consumer<WordSearch.Results>() {
+                    @Override
+                    public void accept(WordSearch.Results found) {
+                        if (found != WordSearch.Results.NONE) {
+                            setOverlay(overlay().reconciled(found.mStartedNanos));
+                        }
+                    }
+                }, LOG_ERRORS));
+
+        //combineLatest aplica el overlay en el hilo del último valor: los resultados llegan
+        //del grupo de lectores y el overlay se pasa a un hilo de cómputo
+        Flowable<WordOverlay> overlays = mOverlays
+                .onBackpressureLatest()
+                .observeOn(Schedulers.computation(), false, 1);
+        mSubscriptions.add(Flowable.combineLatest(results, overlays,
+                new BiFunction<WordSearch.Results, WordOverlay, WordSearch.Results>() {
+                    @Override
+                    public WordSearch.Results apply(WordSearch.Results found, WordOverlay overlay) {
+                        if (found == WordSearch.Results.NONE) {
+                            return found;
+                        }
+                        return new WordSearch.Results(found.mStartedNanos,
+                                overlay.apply(found.mWords));
+                    }
+                })
+                .onBackpressureLatest()
+                .observeOn(AndroidSchedulers.mainThread(), false, 1)
+                .subscribe(new Consumer<WordSearch.Results>() {
+                    @Override
+                    public void accept(WordSearch.Results shown) {
+                        mShownResults.setValue(
+                                shown != WordSearch.Results.NONE ? shown.mWords : null);
+                    }
+                }, LOG_ERRORS));
+    }
+
+    /**
+     * La lista del último uso, para mostrar en un arranque en frío mientras
+     * se abre la base de datos; vacía cuando no hay o ya no hace falta.
+     */
+    LiveData<WordSnapshot> getColdStartWords() {
+        return mRepository.getColdStartWords();
+    }
+
+    LiveData<PagedList<Word>> getPagedWords() {
+        return mPagedWords;
+    }
+
+    LiveData<WordSectionIndex> getSections() {
+        return mSections;
+    }
+
+    /**
+     * Vuelve a armar la lista paginada a partir de la primera palabra que empieza
+     * con la letra dada, sin cargar las filas anteriores.
+     */
+    void jumpToSection(String label) {
+        //(label, 0) ordena antes que cualquier palabra que empiece con label
+        mPageKey.setValue(new Word(0, label));
+    }
+
+    LiveData<List<Word>> getSearchResults() {
+        return mShownResults;
+    }
+
+    LiveData<WordOverlay> getOverlay() {
+        return mOverlay;
+    }
+
+    LiveData<Integer> getMessage() {
+        return mMessage;
+    }
+
+    void onMessageShown() {
+        mMessage.setValue(null);
+    }
+
+    /**
+     * Se llama cuando el adaptador ya muestra una nueva lista paginada: los cambios
+     * confirmados antes de que se creara su fuente de datos dejan de aplicarse.
+     * Con una búsqueda activa no se hace nada: la búsqueda se repite sola al cambiar
+     * las palabras y el overlay se concilia con su resultado.
+     * Desde la primera lista, la del arranque en frío deja de hacer falta.
+     */
+    void onListShown(@Nullable PagedList<Word> words) {
+        if (words != null) {
+            mRepository.releaseColdStartWords();
+        }
+        if (isSearching()) {
+            return;
+        }
+        if (words == null) {
+            return;
+        }
+        DataSource<?, Word> source = words.getDataSource();
+        if (source instanceof WordKeyedDataSource) {
+            setOverlay(overlay().reconciled(((WordKeyedDataSource) source).getCreatedNanos()));
+        }
+    }
+
+    private boolean isSearching() {
+        return mSearchQuery != null && !mSearchQuery.trim().isEmpty();
     }
 
-    LiveData<List<Word>> getAllWords() {
-        return mAllWords;
+    private WordOverlay overlay() {
+        return mOverlay.getValue();
     }
 
+    private void setOverlay(WordOverlay overlay) {
+        if (overlay != mOverlay.getValue()) {
+            mOverlay.setValue(overlay);
+            mOverlays.onNext(overlay);
+        }
+    }
+
+    /**
+     * Quita un cambio cuya escritura falló y avisa al usuario.
+     */
+    private void rollBack(WordOverlay.Change change, int message) {
+        setOverlay(overlay().without(change));
+        mMessage.setValue(message);
+    }
+
+    /**
+     * Cambia el texto de búsqueda. La consulta se lanza cuando el usuario deja
+     * de escribir; cualquier búsqueda anterior que aún no haya terminado se cancela.
+     * Debe llamarse en el hilo principal.
+     */
+    void setSearchQuery(String query) {
+        mSearchQuery = query;
+        mQueries.onNext(query != null ? query : "");
+    }
+
+    /**
+     * Muestra la palabra de inmediato y la inserta en segundo plano.
+     * Si la palabra ya existía, la inserción se ignora y se revierte.
+     */
     public void insert(Word word) {
-        mRepository.insert(word);
+        final WordOverlay.Change change =
+                new WordOverlay.Change(WordOverlay.INSERT, new Word(mNextTempId--, word.getWord()));
+        setOverlay(overlay().with(change));
+        mRepository.insert(word, new WordWriteCoalescer.WriteCallback() {
+            @Override
+            public void onWritten(long id, long committedNanos) {
+                if (id == -1) {
+                    rollBack(change, R.string.word_exists);
+                } else {
+                    setOverlay(overlay().committed(change, committedNanos));
+                }
+            }
+        });
+    }
+
+    /**
+     * Cuenta un uso de la palabra, por ejemplo al abrirla; las palabras que aún
+     * no tienen id no se cuentan.
+     */
+    void recordUse(Word word) {
+        if (word.getId() > 0) {
+            mRepository.recordUse(word);
+        }
     }
 
+    /**
+     * Importa palabras de un archivo; sólo puede haber una importación o exportación a la vez.
+     */
+    void importWords(InputStream in, WordImporter.ProgressListener listener,
+                     WordDatabaseExecutors.Callback<WordImporter.Result> callback) {
+        cancelTransfer();
+        mTransfer = mRepository.importWords(in, listener, callback);
+    }
+
+    void exportWords(OutputStream out, WordDatabaseExecutors.Callback<Long> callback) {
+        cancelTransfer();
+        mTransfer = mRepository.exportWords(out, callback);
+    }
+
+    void cancelTransfer() {
+        if (mTransfer != null) {
+            mTransfer.cancel(true);
+            mTransfer = null;
+        }
+    }
+
+    void collectMetrics(WordDatabaseExecutors.Callback<String> callback) {
+        mRepository.collectMetrics(callback);
+    }
+
+    void saveMetrics(String metrics, WordDatabaseExecutors.Callback<File> callback) {
+        mRepository.saveMetrics(getApplication(), metrics, callback);
+    }
+
+    /**
+     * Borra lógicamente todas las palabras con una sola escritura;
+     * undoDeleteAll() las recupera.
+     */
     public void deleteAll() {
-        mRepository.deleteAll();
+        clearUndoableDeletes();
+        setOverlay(WordOverlay.EMPTY);
+        mLastDeleteAll = mRepository.deleteAll();
+    }
+
+    /**
+     * Recupera las palabras del último deleteAll(). Las que se habían borrado
+     * una por una antes siguen borradas.
+     */
+    void undoDeleteAll() {
+        if (mLastDeleteAll != 0) {
+            mRepository.restoreAll(mLastDeleteAll);
+            mLastDeleteAll = 0;
+        }
     }
 
+    /**
+     * Oculta la palabra de inmediato y la borra lógicamente en segundo plano.
+     * Durante UNDO_WINDOW_MS se puede deshacer con undoDelete().
+     */
     public void deleteWord(Word word) {
-        mRepository.deleteWord(word);
+        final WordOverlay.Change change = new WordOverlay.Change(WordOverlay.DELETE, word);
+        UndoableDelete undoable = new UndoableDelete(change);
+        UndoableDelete previous = mUndoableDeletes.put(word.getId(), undoable);
+        if (previous != null) {
+            mHandler.removeCallbacks(previous);
+        }
+        mHandler.postDelayed(undoable, UNDO_WINDOW_MS);
+        setOverlay(overlay().with(change));
+        mRepository.deleteWord(word, new WordWriteCoalescer.WriteCallback() {
+            @Override
+            public void onWritten(long id, long committedNanos) {
+                if (id == -1) {
+                    rollBack(change, R.string.unable_to_delete);
+                } else {
+                    setOverlay(overlay().committed(change, committedNanos));
+                }
+            }
+        });
+    }
+
+    /**
+     * Vuelve a mostrar una palabra borrada y recupera su fila. Si la lista ya no la
+     * incluía, reaparece cuando llega la lista siguiente.
+     */
+    void undoDelete(Word word) {
+        UndoableDelete undoable = mUndoableDeletes.remove(word.getId());
+        if (undoable != null) {
+            mHandler.removeCallbacks(undoable);
+            setOverlay(overlay().without(undoable.mChange));
+            mRepository.restoreWord(word, null);
+        }
+    }
+
+    private void clearUndoableDeletes() {
+        for (UndoableDelete undoable : mUndoableDeletes.values()) {
+            mHandler.removeCallbacks(undoable);
+        }
+        mUndoableDeletes.clear();
+    }
+
+    /**
+     * Muestra el texto nuevo de inmediato. Si al consultarla la palabra no cambió,
+     * no se escribe nada.
+     */
+    public void update(final Word word) {
+        final WordOverlay.Change change = new WordOverlay.Change(WordOverlay.UPDATE, word);
+        setOverlay(overlay().with(change));
+        mRepository.getWord(word.getId(), new WordDatabaseExecutors.Callback<Word>() {
+            @Override
+            public void onSuccess(Word current) {
+                if (current != null && current.getWord().equals(word.getWord())) {
+                    setOverlay(overlay().without(change));
+                } else {
+                    persistUpdate(change);
+                }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                persistUpdate(change);
+            }
+        });
+    }
+
+    private void persistUpdate(final WordOverlay.Change change) {
+        mRepository.update(change.mWord, new WordWriteCoalescer.WriteCallback() {
+            @Override
+            public void onWritten(long id, long committedNanos) {
+                if (id == -1) {
+                    rollBack(change, R.string.unable_to_update);
+                } else {
+                    setOverlay(overlay().committed(change, committedNanos));
+                }
+            }
+        });
     }
 
-    public void update(Word word) {
-        mRepository.update(word);
+    @Override
+    protected void onCleared() {
+        mSubscriptions.dispose();
+        cancelTransfer();
+        //Los borrados ya están escritos; sólo se descarta la posibilidad de deshacerlos
+        clearUndoableDeletes();
+    }
+
+    /**
+     * Un borrado que deja de poder deshacerse al vencer UNDO_WINDOW_MS.
+     */
+    private class UndoableDelete implements Runnable {
+        final WordOverlay.Change mChange;
+
+        UndoableDelete(WordOverlay.Change change) {
+            mChange = change;
+        }
+
+        @Override
+        public void run() {
+            mUndoableDeletes.remove(mChange.mWord.getId());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,324 @@
+package com.example.roomwordssampleerick;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrupa las escrituras que llegan dentro de una ventana corta y las ejecuta
+ * en una sola transacción, en el mismo orden en que se pidieron.
+ * Las operaciones consecutivas del mismo tipo se envían al DAO como una lista,
+ * así una importación de N palabras cuesta una transacción y no N.
+ * Los lotes se confirman en el escritor de WordDatabaseExecutors con prioridad de usuario.
+ * Una WordTransaction entra al lote como una sola escritura y se aplica entera en su lugar.
+ * Si el lote falla, se reintenta escritura por escritura para que las demás no se pierdan.
+ */
+
+class WordWriteCoalescer {
+
+    private static final String TAG = "WordWriteCoalescer";
+
+    //Ventana durante la cual se acumulan escrituras antes de confirmarlas
+    private static final long WINDOW_MS = 20;
+
+    /**
+     * Recibe el id de la palabra escrita (-1 si se ignoró o falló) y el instante,
+     * en System.nanoTime(), en que se confirmó la transacción. Se llama en el hilo principal.
+     * Para una WordTransaction, en lugar del id, cuántas de sus escrituras tuvieron efecto.
+     */
+    interface WriteCallback {
+        void onWritten(long id, long committedNanos);
+    }
+
+    private static final int INSERT = 0;
+    private static final int UPDATE = 1;
+    private static final int DELETE = 2;
+    private static final int DELETE_ALL = 3;
+    private static final int RESTORE = 4;
+    private static final int RESTORE_ALL = 5;
+    private static final int USE = 6;
+    private static final int UNIT = 7;
+
+    private final WordRoomDatabase mDb;
+    private final WordDao mWordDao;
+    private final WordMetaDao mWordMetaDao;
+    private final WordDatabaseExecutors mExecutors;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final Object mLock = new Object();
+    private List<PendingWrite> mPending = new ArrayList<>();
+    private boolean mFlushScheduled;
+
+    //Al cerrarse la ventana, el lote se confirma en el hilo escritor
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mExecutors.executeWrite(WordDatabaseExecutors.PRIORITY_USER, new Callable<Void>() {
+                @Override
+                public Void call() {
+                    flush();
+                    return null;
+                }
+            }, null);
+        }
+    };
+
+    WordWriteCoalescer(WordRoomDatabase db) {
+        mDb = db;
+        mWordDao = db.wordDao();
+        mWordMetaDao = db.wordMetaDao();
+        mExecutors = db.getExecutors();
+    }
+
+    void insert(Word word, @Nullable WriteCallback callback) {
+        enqueue(new PendingWrite(INSERT, word, callback));
+    }
+
+    void insertAll(List<Word> words) {
+        synchronized (mLock) {
+            for (Word word : words) {
+                mPending.add(new PendingWrite(INSERT, word, null));
+            }
+            scheduleFlushLocked();
+        }
+    }
+
+    void update(Word word, @Nullable WriteCallback callback) {
+        enqueue(new PendingWrite(UPDATE, word, callback));
+    }
+
+    /**
+     * Borra lógicamente la palabra; deletedAt es el instante que se guarda en deleted_at.
+     */
+    void delete(Word word, long deletedAt, @Nullable WriteCallback callback) {
+        enqueue(new PendingWrite(DELETE, word, deletedAt, callback));
+    }
+
+    void deleteAll(long deletedAt) {
+        enqueue(new PendingWrite(DELETE_ALL, (Word) null, deletedAt, null));
+    }
+
+    //Deshace el borrado lógico de una palabra
+    void restore(Word word, @Nullable WriteCallback callback) {
+        enqueue(new PendingWrite(RESTORE, word, callback));
+    }
+
+    //Deshace el deleteAll() que usó ese deletedAt
+    void restoreAll(long deletedAt) {
+        enqueue(new PendingWrite(RESTORE_ALL, (Word) null, deletedAt, null));
+    }
+
+    //Suma un uso a la palabra en word_meta
+    void recordUse(Word word) {
+        enqueue(new PendingWrite(USE, word, null));
+    }
+
+    /**
+     * Confirma la unidad completa en el próximo lote; sus borrados usan deletedAt.
+     */
+    void commit(WordTransaction transaction, long deletedAt, @Nullable WriteCallback callback) {
+        enqueue(new PendingWrite(UNIT, transaction, deletedAt, callback));
+    }
+
+    private void enqueue(PendingWrite write) {
+        synchronized (mLock) {
+            mPending.add(write);
+            scheduleFlushLocked();
+        }
+    }
+
+    private void scheduleFlushLocked() {
+        if (!mFlushScheduled) {
+            mFlushScheduled = true;
+            mExecutors.scheduler().schedule(mFlushRunnable, WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Toma todas las escrituras pendientes y las confirma en una sola transacción.
+     */
+    private void flush() {
+        final List<PendingWrite> batch;
+        synchronized (mLock) {
+            batch = mPending;
+            mPending = new ArrayList<>();
+            mFlushScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        if (!applyInTransaction(batch) && batch.size() > 1) {
+            //Se revirtió el lote completo: cada escritura se reintenta en su propia
+            //transacción, así sólo falla la que no se puede aplicar
+            for (PendingWrite write : batch) {
+                applyInTransaction(Collections.singletonList(write));
+            }
+        }
+        long committed = System.nanoTime();
+        WordMetrics.recordSince(WordMetrics.WRITE_BATCH, start);
+        WordMetrics.WRITE_BATCH_SIZE.record(batch.size());
+        deliverCallbacks(batch, committed);
+    }
+
+    //Aplica las escrituras en una transacción; si falla, ninguna tiene id y devuelve false
+    private boolean applyInTransaction(final List<PendingWrite> writes) {
+        try {
+            mDb.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    apply(writes);
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to write " + writes.size() + " words", e);
+            for (PendingWrite write : writes) {
+                write.mId = -1;
+                if (write.mTransaction != null) {
+                    write.mTransaction.rollBack();
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Ejecuta el lote agrupando las operaciones consecutivas del mismo tipo.
+     */
+    private void apply(List<PendingWrite> batch) {
+        int start = 0;
+        while (start < batch.size()) {
+            int type = batch.get(start).mType;
+            int end = start + 1;
+            while (end < batch.size() && batch.get(end).mType == type) {
+                end++;
+            }
+            List<PendingWrite> run = batch.subList(start, end);
+
+            switch (type) {
+                case INSERT:
+                    //Una palabra que sólo existe borrada se recupera en lugar de ignorarse
+                    List<Long> ids = mWordDao.insertOrRevive(wordsOf(run));
+                    for (int i = 0; i < run.size(); i++) {
+                        run.get(i).mId = ids.get(i);
+                    }
+                    break;
+                case UPDATE:
+                    //upsert fusiona la palabra si el nuevo texto ya existe, en lugar de abortar el lote
+                    for (PendingWrite write : run) {
+                        write.mId = mWordDao.upsert(write.mWord);
+                    }
+                    break;
+                case DELETE:
+                    //Borrado lógico: sólo se marca la fila, WordCompactor la quita más tarde
+                    for (PendingWrite write : run) {
+                        write.mId = mWordDao.softDelete(write.mWord.getId(), write.mDeletedAt) > 0
+                                ? write.mWord.getId() : -1;
+                    }
+                    break;
+                case DELETE_ALL:
+                    for (PendingWrite write : run) {
+                        mWordDao.softDeleteAll(write.mDeletedAt);
+                    }
+                    break;
+                case RESTORE:
+                    for (PendingWrite write : run) {
+                        write.mId = mWordDao.restore(write.mWord.getId()) > 0
+                                ? write.mWord.getId() : -1;
+                    }
+                    break;
+                case RESTORE_ALL:
+                    for (PendingWrite write : run) {
+                        mWordDao.restoreDeleted(write.mDeletedAt);
+                    }
+                    break;
+                case USE:
+                    for (PendingWrite write : run) {
+                        write.mId = mWordMetaDao.recordUse(write.mWord.getId()) > 0
+                                ? write.mWord.getId() : -1;
+                    }
+                    break;
+                case UNIT:
+                    for (PendingWrite write : run) {
+                        write.mId = write.mTransaction.apply(mDb, write.mDeletedAt);
+                    }
+                    break;
+            }
+            start = end;
+        }
+    }
+
+    private static List<Word> wordsOf(List<PendingWrite> run) {
+        List<Word> words = new ArrayList<>(run.size());
+        for (PendingWrite write : run) {
+            words.add(write.mWord);
+        }
+        return words;
+    }
+
+    private void deliverCallbacks(List<PendingWrite> batch, final long committedNanos) {
+        for (final PendingWrite write : batch) {
+            //Latencia que ve quien pidió la escritura: desde que la encoló hasta que se confirmó
+            WordMetrics.recordSince(WordMetrics.WRITE_LATENCY, write.mEnqueuedNanos);
+            if (write.mType == INSERT && write.mId > 0) {
+                write.mWord.setId((int) write.mId);
+            } else if (write.mType == UNIT && write.mId >= 0) {
+                write.mTransaction.onCommitted();
+            }
+            if (write.mCallback != null) {
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        write.mCallback.onWritten(write.mId, committedNanos);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Una escritura en espera de ser confirmada.
+     */
+    private static class PendingWrite {
+        final int mType;
+        final Word mWord;
+        //Sólo para UNIT
+        final WordTransaction mTransaction;
+        final WriteCallback mCallback;
+        //Sólo para los borrados y su deshacer: el valor de deleted_at
+        final long mDeletedAt;
+        final long mEnqueuedNanos = System.nanoTime();
+        long mId = -1;
+
+        PendingWrite(int type, Word word, WriteCallback callback) {
+            this(type, word, 0, callback);
+        }
+
+        PendingWrite(int type, Word word, long deletedAt, WriteCallback callback) {
+            mType = type;
+            mWord = word;
+            mTransaction = null;
+            mDeletedAt = deletedAt;
+            mCallback = callback;
+        }
+
+        PendingWrite(int type, WordTransaction transaction, long deletedAt,
+                     WriteCallback callback) {
+            mType = type;
+            mWord = null;
+            mTransaction = transaction;
+            mDeletedAt = deletedAt;
+            mCallback = callback;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.roomwordssampleerick;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Servidor de sincronización en memoria para MockWebServer, con el protocolo que espera
+ * WordSyncClient. Cada cambio aceptado recibe la siguiente versión de un contador global;
+ * un cambio hecho sobre una versión que ya no es la actual se rechaza y se responde
+ * con el estado actual.
+ */
+
+class WordSyncStandInServer extends Dispatcher {
+
+    private final Map<String, WordDelta> mWords = new HashMap<>();
+    private final TreeMap<Long, String> mByVersion = new TreeMap<>();
+    private long mClock;
+
+    @NonNull
+    @Override
+    public synchronized MockResponse dispatch(@NonNull RecordedRequest request) {
+        HttpUrl url = request.getRequestUrl();
+        try {
+            if ("POST".equals(request.getMethod()) && url.encodedPath().endsWith("/push")) {
+                return respond(push(WordSyncCodec.decode(request.getBody().inputStream()).mDeltas));
+            }
+            if ("GET".equals(request.getMethod()) && url.encodedPath().endsWith("/changes")) {
+                return respond(changes(Long.parseLong(url.queryParameter("since")),
+                        Integer.parseInt(url.queryParameter("limit"))));
+            }
+            return new MockResponse().setResponseCode(404);
+        } catch (IOException | RuntimeException e) {
+            return new MockResponse().setResponseCode(400);
+        }
+    }
+
+    synchronized WordSyncCodec.Batch push(List<WordDelta> deltas) {
+        List<WordDelta> results = new ArrayList<>(deltas.size());
+        for (WordDelta delta : deltas) {
+            WordDelta current = mWords.get(delta.mSyncId);
+            if (current != null && current.mVersion != delta.mVersion) {
+                results.add(current);
+                continue;
+            }
+            WordDelta stored = new WordDelta(delta.mSyncId, delta.mWord, delta.mDeleted, ++mClock);
+            if (current != null) {
+                mByVersion.remove(current.mVersion);
+            }
+            mWords.put(stored.mSyncId, stored);
+            mByVersion.put(stored.mVersion, stored.mSyncId);
+            results.add(stored);
+        }
+        return new WordSyncCodec.Batch(mClock, false, results);
+    }
+
+    synchronized WordSyncCodec.Batch changes(long since, int limit) {
+        List<WordDelta> deltas = new ArrayList<>();
+        long watermark = since;
+        for (Map.Entry<Long, String> entry : mByVersion.tailMap(since, false).entrySet()) {
+            if (deltas.size() == limit) {
+                return new WordSyncCodec.Batch(watermark, true, deltas);
+            }
+            deltas.add(mWords.get(entry.getValue()));
+            watermark = entry.getKey();
+        }
+        return new WordSyncCodec.Batch(watermark, false, deltas);
+    }
+
+    synchronized int size() {
+        return mWords.size();
+    }
+
+    //Estado actual de una palabra en el servidor; null si nunca se envió
+    synchronized WordDelta get(String syncId) {
+        return mWords.get(syncId);
+    }
+
+    private static MockResponse respond(WordSyncCodec.Batch batch) throws IOException {
+        return new MockResponse()
+                .setHeader("Content-Type", WordSyncCodec.CONTENT_TYPE)
+                .setBody(new Buffer().write(WordSyncCodec.encode(batch)));
+    }
+}
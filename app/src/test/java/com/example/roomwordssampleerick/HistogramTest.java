@@ -0,0 +1,48 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del histograma de latencias.
+ */
+public class HistogramTest {
+    @Test
+    public void smallValues_areExact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        assertEquals(5, histogram.percentile(0.5));
+        assertEquals(10, histogram.percentile(0.99));
+        assertEquals(10, histogram.max());
+        assertEquals(10, histogram.count());
+    }
+
+    @Test
+    public void largeValues_stayWithinBucketError() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        long p50 = histogram.percentile(0.5);
+        long p99 = histogram.percentile(0.99);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000);
+    }
+
+    @Test
+    public void bucketBounds_coverEveryValue() {
+        for (long value : new long[]{0, 15, 16, 17, 31, 32, 1_000_003, Long.MAX_VALUE / 3}) {
+            int bucket = Histogram.bucketOf(value);
+            assertTrue(value <= Histogram.upperBoundOf(bucket));
+            assertTrue(bucket == 0 || value > Histogram.upperBoundOf(bucket - 1));
+        }
+    }
+
+    @Test
+    public void emptyReportsZero() {
+        assertEquals(0, new Histogram().percentile(0.99));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la caché de palabras.
+ */
+public class WordCacheTest {
+    @Test
+    public void lookupByTextIgnoresAsciiCase() {
+        WordCache cache = new WordCache(64 * 1024);
+        cache.put(cache.generation(), new Word(7, "Carla"));
+
+        assertEquals(7, cache.getByText("cARLA").getId());
+        assertEquals("Carla", cache.getById(7).getWord());
+        assertEquals(2, cache.hitCount());
+    }
+
+    @Test
+    public void missingWordsAreRemembered() {
+        WordCache cache = new WordCache(64 * 1024);
+        cache.put(cache.generation(), "Ana", null);
+
+        assertTrue(WordCache.isMissing(cache.getByText("ana")));
+    }
+
+    @Test
+    public void readsFromAnOlderGenerationAreDropped() {
+        WordCache cache = new WordCache(64 * 1024);
+        long generation = cache.generation();
+        cache.invalidate();
+        cache.put(generation, new Word(1, "Ximena"));
+
+        assertNull(cache.getById(1));
+        assertEquals(1, cache.invalidationCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedWordsAreEvicted() {
+        WordCache cache = new WordCache(1024);
+        for (int i = 1; i <= 100; i++) {
+            cache.put(cache.generation(), new Word(i, "word" + i));
+        }
+
+        assertNull(cache.getById(1));
+        assertNotNull(cache.getById(100));
+        assertTrue(cache.evictionCount() > 0);
+    }
+}
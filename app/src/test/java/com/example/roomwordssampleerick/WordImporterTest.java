@@ -0,0 +1,27 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del análisis de líneas de los archivos importados.
+ */
+public class WordImporterTest {
+    @Test
+    public void plainLineIsTrimmed() {
+        assertEquals("Carla", WordImporter.parseLine("  Carla "));
+    }
+
+    @Test
+    public void csvLineUsesFirstColumn() {
+        assertEquals("Ximena", WordImporter.parseLine("Ximena,noun,es"));
+        assertEquals("Ana, la", WordImporter.parseLine("\"Ana, la\",name"));
+    }
+
+    @Test
+    public void blankLineIsSkipped() {
+        assertNull(WordImporter.parseLine("   "));
+        assertNull(WordImporter.parseLine(",x"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del agrupamiento de invalidaciones.
+ */
+public class WordInvalidationThrottleTest {
+
+    private final ScheduledExecutorService mScheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        mScheduler.shutdownNow();
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void aBurstOfInvalidationsRunsTheActionOnce() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        WordInvalidationThrottle throttle = new WordInvalidationThrottle(mScheduler, mExecutor, 50,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        runs.incrementAndGet();
+                    }
+                });
+
+        for (int i = 0; i < 10000; i++) {
+            throttle.onInvalidated();
+        }
+        Thread.sleep(300);
+
+        assertEquals(1, runs.get());
+        assertFalse(throttle.isDirty());
+    }
+
+    @Test
+    public void invalidationsDuringARunAreCoalescedIntoOneMore() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final WordInvalidationThrottle throttle = new WordInvalidationThrottle(mScheduler, mExecutor, 10,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        if (runs.incrementAndGet() == 1) {
+                            started.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    }
+                });
+
+        throttle.runNow();
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            throttle.onInvalidated();
+        }
+        assertTrue(throttle.isDirty());
+        release.countDown();
+        Thread.sleep(200);
+
+        assertEquals(2, runs.get());
+    }
+}
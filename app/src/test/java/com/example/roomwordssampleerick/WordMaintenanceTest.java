@@ -0,0 +1,77 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del calendario de mantenimiento, con un reloj falso.
+ */
+public class WordMaintenanceTest {
+
+    private static final long START = TimeUnit.DAYS.toMillis(20000);
+
+    private long mNow = START;
+    private final Map<String, Long> mLastRuns = new HashMap<>();
+
+    private final WordMaintenance mMaintenance = new WordMaintenance(
+            new WordMaintenance.Clock() {
+                @Override
+                public long currentTimeMillis() {
+                    return mNow;
+                }
+            },
+            new WordMaintenance.Store() {
+                @Override
+                public long getLastRun(String task) {
+                    Long lastRun = mLastRuns.get(task);
+                    return lastRun == null ? 0 : lastRun;
+                }
+
+                @Override
+                public void setLastRun(String task, long timeMillis) {
+                    mLastRuns.put(task, timeMillis);
+                }
+            });
+
+    private void runAll() {
+        for (String task : mMaintenance.getDueTasks()) {
+            mMaintenance.markRun(task);
+        }
+    }
+
+    @Test
+    public void everyTaskIsDueTheFirstTime() {
+        assertEquals(Arrays.asList(WordMaintenance.CHECKPOINT, WordMaintenance.FTS_MERGE,
+                WordMaintenance.OPTIMIZE, WordMaintenance.ANALYZE, WordMaintenance.QUICK_CHECK),
+                mMaintenance.getDueTasks());
+    }
+
+    @Test
+    public void tasksComeDueAfterTheirIntervals() {
+        runAll();
+
+        mNow += TimeUnit.HOURS.toMillis(1);
+        assertEquals(Arrays.asList(WordMaintenance.CHECKPOINT), mMaintenance.getDueTasks());
+
+        mNow = START + TimeUnit.DAYS.toMillis(1);
+        assertEquals(Arrays.asList(WordMaintenance.CHECKPOINT, WordMaintenance.FTS_MERGE,
+                WordMaintenance.OPTIMIZE), mMaintenance.getDueTasks());
+
+        mNow = START + TimeUnit.DAYS.toMillis(7);
+        assertEquals(5, mMaintenance.getDueTasks().size());
+    }
+
+    @Test
+    public void aClockMovedBackMakesTasksDue() {
+        runAll();
+
+        mNow -= TimeUnit.HOURS.toMillis(1);
+        assertEquals(5, mMaintenance.getDueTasks().size());
+    }
+}
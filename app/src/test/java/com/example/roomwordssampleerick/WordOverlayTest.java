@@ -0,0 +1,68 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del overlay de cambios pendientes.
+ */
+public class WordOverlayTest {
+    @Test
+    public void pendingChangesAreAppliedToTheList() {
+        WordOverlay overlay = WordOverlay.EMPTY
+                .with(new WordOverlay.Change(WordOverlay.DELETE, new Word(1, "Ana")))
+                .with(new WordOverlay.Change(WordOverlay.UPDATE, new Word(2, "Bruno")));
+
+        List<Word> shown = overlay.apply(Arrays.asList(new Word(1, "Ana"), new Word(2, "Beto")));
+
+        assertEquals(1, shown.size());
+        assertEquals("Bruno", shown.get(0).getWord());
+        assertTrue(overlay.isDeleted(1));
+    }
+
+    @Test
+    public void changesStayUntilAListLoadedAfterTheCommitArrives() {
+        WordOverlay.Change insert = new WordOverlay.Change(WordOverlay.INSERT, new Word(-1, "Carla"));
+        WordOverlay overlay = WordOverlay.EMPTY.with(insert);
+
+        //Sin confirmar, ninguna lista lo incluye todavía
+        assertSame(overlay, overlay.reconciled(Long.MAX_VALUE));
+
+        overlay = overlay.committed(insert, 100);
+        assertEquals(1, overlay.reconciled(50).pendingInserts().size());
+        assertTrue(overlay.reconciled(150).isEmpty());
+    }
+
+    @Test
+    public void aReplacedChangeIsNotRolledBack() {
+        WordOverlay.Change first = new WordOverlay.Change(WordOverlay.UPDATE, new Word(3, "Diego"));
+        WordOverlay.Change second = new WordOverlay.Change(WordOverlay.UPDATE, new Word(3, "Dario"));
+        WordOverlay overlay = WordOverlay.EMPTY.with(first).with(second);
+
+        overlay = overlay.without(first).committed(first, 100);
+
+        assertEquals("Dario", overlay.shown(new Word(3, "Diana")).getWord());
+        assertFalse(overlay.reconciled(200).isEmpty());
+    }
+
+    @Test
+    public void onlyWordsShownDifferentlyAreChanged() {
+        WordOverlay.Change edit = new WordOverlay.Change(WordOverlay.UPDATE, new Word(1, "Ana"));
+        WordOverlay.Change delete = new WordOverlay.Change(WordOverlay.DELETE, new Word(2, "Bruno"));
+        WordOverlay before = WordOverlay.EMPTY.with(edit).with(delete);
+
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), before.changedSince(WordOverlay.EMPTY));
+        //Confirmar la edición no cambia lo que se muestra
+        assertEquals(Collections.emptySet(), before.committed(edit, 100).changedSince(before));
+
+        WordOverlay after = before.without(delete)
+                .with(new WordOverlay.Change(WordOverlay.UPDATE, new Word(1, "Anabel")));
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), after.changedSince(before));
+    }
+}
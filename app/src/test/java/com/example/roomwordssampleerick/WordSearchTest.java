@@ -0,0 +1,31 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la conversión del texto de búsqueda a consultas MATCH de FTS4.
+ */
+public class WordSearchTest {
+    @Test
+    public void singleTerm_isPrefixQuery() {
+        assertEquals("\"ana*\"", WordSearch.toMatchQuery("ana"));
+    }
+
+    @Test
+    public void multipleTerms_areAllRequired() {
+        assertEquals("\"ana*\" \"mar*\"", WordSearch.toMatchQuery("  ana   mar "));
+    }
+
+    @Test
+    public void ftsSyntax_isStripped() {
+        assertEquals("\"ab*\"", WordSearch.toMatchQuery("\"a*b\" - ()"));
+    }
+
+    @Test
+    public void blankInput_hasNoQuery() {
+        assertNull(WordSearch.toMatchQuery("   "));
+        assertNull(WordSearch.toMatchQuery(null));
+    }
+}
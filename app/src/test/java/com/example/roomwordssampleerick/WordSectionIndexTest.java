@@ -0,0 +1,41 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del índice de secciones.
+ */
+public class WordSectionIndexTest {
+    @Test
+    public void offsetsAccumulateTheCounts() {
+        WordSectionIndex index = WordSectionIndex.of(Arrays.asList(
+                new WordSection("A", 3), new WordSection("B", 0), new WordSection("C", 5)));
+
+        assertEquals(2, index.size());
+        assertEquals("C", index.getLabel(1));
+        assertEquals(0, index.getOffset(0));
+        assertEquals(3, index.getOffset(1));
+        assertEquals(8, index.getWordCount());
+    }
+
+    @Test
+    public void labelsMatchSqliteUpperOfTheFirstCharacter() {
+        assertEquals("C", WordSectionIndex.labelOf("carla"));
+        assertEquals("é", WordSectionIndex.labelOf("éclair"));
+        assertEquals("_", WordSectionIndex.labelOf("_x"));
+        assertEquals("", WordSectionIndex.labelOf(""));
+    }
+
+    @Test
+    public void wordsAreFoundInTheirSection() {
+        WordSectionIndex index = WordSectionIndex.of(Arrays.asList(
+                new WordSection("A", 1), new WordSection("X", 1)));
+
+        assertEquals(1, index.sectionOf("ximena"));
+        assertEquals(-1, index.sectionOf("Bruno"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del reparto en fragmentos y de la mezcla de sus resultados.
+ */
+public class WordShardRouterTest {
+
+    @Test
+    public void textIsComparedLikeNoCase() {
+        assertEquals(0, WordShardRouter.compareText("ana", "ANA"));
+        assertTrue(WordShardRouter.compareText("Ana", "ana lucía") < 0);
+        //Sólo ASCII se iguala; 'É' (U+00C9) va después de todas las letras ASCII
+        assertTrue(WordShardRouter.compareText("zorro", "Édgar") < 0);
+        //Un par sustituto (U+1F600) va después de U+FFFD, como en UTF-8
+        assertTrue(WordShardRouter.compareText("�", "😀") < 0);
+    }
+
+    @Test
+    public void sameTextInAnyCaseGoesToTheSameShard() {
+        for (int count = 1; count <= WordShards.MAX_SHARDS; count++) {
+            int shard = WordShards.shardOf("Natalia", count);
+            assertEquals(shard, WordShards.shardOf("NATALIA", count));
+            assertTrue(shard >= 0 && shard < count);
+        }
+    }
+
+    @Test
+    public void idsTellTheirShard() {
+        for (int shard = 0; shard < WordShards.MAX_SHARDS; shard++) {
+            int first = WordShards.firstId(shard);
+            assertEquals(shard, WordShards.shardOfId(first, WordShards.MAX_SHARDS));
+            assertEquals(shard, WordShards.shardOfId(first + (1 << WordShards.ID_BITS) - 2,
+                    WordShards.MAX_SHARDS));
+            assertEquals(first + (1L << WordShards.ID_BITS) - (shard == 0 ? 1 : 0),
+                    WordShards.idLimit(shard, WordShards.MAX_SHARDS));
+        }
+        assertEquals(WordShards.MAX_SHARDS - 1,
+                WordShards.shardOfId(Integer.MAX_VALUE, WordShards.MAX_SHARDS));
+    }
+
+    @Test
+    public void withOneShardEveryIdIsInIt() {
+        assertEquals(0, WordShards.shardOfId(1, 1));
+        assertEquals(0, WordShards.shardOfId(WordShards.firstId(1), 1));
+        assertEquals(0, WordShards.shardOfId(Integer.MAX_VALUE, 1));
+        assertEquals(1L << 31, WordShards.idLimit(0, 1));
+    }
+
+    @Test
+    public void mergeKeepsTheOrderAndTheLimit() {
+        List<List<Word>> parts = Arrays.asList(
+                words(1, "ana", "Dario", "julieta"),
+                words(WordShards.firstId(1), "Bruno", "carla"),
+                Collections.<Word>emptyList());
+
+        List<Word> merged = WordShardRouter.merge(parts, WordShardRouter.ALPHABETICAL, 4);
+        assertEquals(Arrays.asList("ana", "Bruno", "carla", "Dario"), texts(merged));
+    }
+
+    @Test
+    public void sectionCountsAreAdded() {
+        List<WordSection> summed = WordShardRouter.sumSections(Arrays.asList(
+                Arrays.asList(new WordSection("A", 2), new WordSection("C", 1)),
+                Arrays.asList(new WordSection("A", 3), new WordSection("B", 4))));
+
+        assertEquals(3, summed.size());
+        assertEquals("A", summed.get(0).getSection());
+        assertEquals(5, summed.get(0).getCount());
+        assertEquals("B", summed.get(1).getSection());
+        assertEquals("C", summed.get(2).getSection());
+    }
+
+    @Test
+    public void snapshotsMergeInListOrder() {
+        WordSnapshot merged = WordSnapshot.merge(Arrays.asList(
+                WordSnapshot.of(words(1, "ana", "Carla")),
+                WordSnapshot.of(words(WordShards.firstId(1), "Bruno", "ximena"))));
+
+        assertEquals(4, merged.size());
+        assertEquals("ana", merged.getText(0));
+        assertEquals("Bruno", merged.getText(1));
+        assertEquals(WordShards.firstId(1), merged.getId(1));
+        assertEquals("Carla", merged.getText(2));
+        assertEquals("ximena", merged.getText(3));
+    }
+
+    private static List<Word> words(int firstId, String... texts) {
+        List<Word> words = new ArrayList<>();
+        for (String text : texts) {
+            words.add(new Word(firstId++, text));
+        }
+        return words;
+    }
+
+    private static List<String> texts(List<Word> words) {
+        List<String> texts = new ArrayList<>();
+        for (Word word : words) {
+            texts.add(word.getWord());
+        }
+        return texts;
+    }
+}
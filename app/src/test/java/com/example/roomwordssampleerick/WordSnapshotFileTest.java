@@ -0,0 +1,88 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la copia en disco de la lista para el arranque en frío.
+ */
+public class WordSnapshotFileTest {
+
+    private static final int SCHEMA = 8;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void snapshotSurvivesARoundTrip() throws IOException {
+        File file = folder.newFile();
+        WordSnapshot written = WordSnapshot.of(Arrays.asList(
+                new Word(3, "ana"), new Word(1, "Bruno"), new Word(7, "ñandú 😀")));
+        new WordSnapshotFile(file, SCHEMA, 1).write(written);
+
+        WordSnapshot read = new WordSnapshotFile(file, SCHEMA, 1).read();
+        assertNotNull(read);
+        assertEquals(3, read.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(written.getId(i), read.getId(i));
+            assertEquals(written.getText(i), read.getText(i));
+        }
+    }
+
+    @Test
+    public void emptySnapshotSurvivesARoundTrip() throws IOException {
+        File file = folder.newFile();
+        new WordSnapshotFile(file, SCHEMA, 1).write(WordSnapshot.EMPTY);
+
+        WordSnapshot read = new WordSnapshotFile(file, SCHEMA, 1).read();
+        assertNotNull(read);
+        assertEquals(0, read.size());
+    }
+
+    @Test
+    public void corruptedFileIsDiscarded() throws IOException {
+        File file = folder.newFile();
+        new WordSnapshotFile(file, SCHEMA, 1).write(
+                WordSnapshot.of(Arrays.asList(new Word(1, "ana"), new Word(2, "Bruno"))));
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        try {
+            //Cambia un bit del último carácter, sin cambiar el tamaño
+            raw.seek(raw.length() - 1);
+            int last = raw.read();
+            raw.seek(raw.length() - 1);
+            raw.write(last ^ 1);
+        } finally {
+            raw.close();
+        }
+
+        assertNull(new WordSnapshotFile(file, SCHEMA, 1).read());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void otherSchemaOrShardCountIsDiscarded() throws IOException {
+        File file = folder.newFile();
+        WordSnapshot snapshot = WordSnapshot.of(Arrays.asList(new Word(1, "ana")));
+
+        new WordSnapshotFile(file, SCHEMA, 1).write(snapshot);
+        assertNull(new WordSnapshotFile(file, SCHEMA + 1, 1).read());
+        assertFalse(file.exists());
+
+        new WordSnapshotFile(file, SCHEMA, 1).write(snapshot);
+        assertNull(new WordSnapshotFile(file, SCHEMA, 2).read());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void missingFileReadsAsNull() throws IOException {
+        assertNull(new WordSnapshotFile(new File(folder.getRoot(), "none"), SCHEMA, 1).read());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la instantánea compacta de palabras.
+ */
+public class WordSnapshotTest {
+    @Test
+    public void rowsAreReadBackByPosition() {
+        WordSnapshot snapshot = WordSnapshot.of(Arrays.asList(
+                new Word(3, "Ana"), new Word(8, ""), new Word(5, "Ñandú")));
+
+        assertEquals(3, snapshot.size());
+        assertEquals(8, snapshot.getId(1));
+        assertEquals(0, snapshot.length(1));
+        assertEquals("Ñandú", snapshot.getText(2));
+        assertEquals("Ana", new String(snapshot.chars(), snapshot.start(0), snapshot.length(0)));
+    }
+
+    @Test
+    public void arraysGrowPastTheExpectedSize() {
+        WordSnapshot.Builder builder = new WordSnapshot.Builder(0);
+        List<Word> words = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String text = "palabra-larga-numero-" + i;
+            builder.add(i, text);
+            words.add(new Word(i, text));
+        }
+        WordSnapshot snapshot = builder.build();
+
+        assertEquals(1000, snapshot.size());
+        assertEquals("palabra-larga-numero-999", snapshot.getText(999));
+        assertTrue(snapshot.sameText(500, WordSnapshot.of(words), 500));
+    }
+
+    @Test
+    public void diffComparesIdsAndText() {
+        WordSnapshot before = WordSnapshot.of(Arrays.asList(new Word(1, "Beto"), new Word(2, "Carla")));
+        WordSnapshot after = WordSnapshot.of(Arrays.asList(new Word(1, "Bruno"), new Word(2, "Carla")));
+        WordSnapshot.DiffCallback diff = new WordSnapshot.DiffCallback(before, after);
+
+        assertTrue(diff.areItemsTheSame(0, 0));
+        assertFalse(diff.areContentsTheSame(0, 0));
+        assertTrue(diff.areContentsTheSame(1, 1));
+        assertFalse(diff.areItemsTheSame(0, 1));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.QueueDispatcher;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales del formato de los lotes y del cliente de sincronización,
+ * contra el servidor en memoria de WordSyncStandInServer.
+ */
+public class WordSyncClientTest {
+
+    private MockWebServer mServer;
+    private WordSyncClient mClient;
+
+    @Before
+    public void startServer() throws IOException {
+        mServer = new MockWebServer();
+        mServer.setDispatcher(new WordSyncStandInServer());
+        mServer.start();
+        mClient = new WordSyncClient(mServer.url("/sync/").url());
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void batchesSurviveTheCodec() throws IOException {
+        List<WordDelta> deltas = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            deltas.add(new WordDelta(String.format("%032x", i), "Palabra " + i, i % 7 == 0, i));
+        }
+        byte[] encoded = WordSyncCodec.encode(new WordSyncCodec.Batch(42, true, deltas));
+        WordSyncCodec.Batch decoded = WordSyncCodec.decode(new ByteArrayInputStream(encoded));
+
+        assertEquals(42, decoded.mWatermark);
+        assertTrue(decoded.mHasMore);
+        assertEquals(deltas.toString(), decoded.mDeltas.toString());
+        assertTrue(encoded.length < 1000 * 32);
+    }
+
+    @Test
+    public void aChangeOnAStaleVersionGetsTheServerState() throws IOException {
+        WordDelta first = new WordDelta("a1", "Ana", false, 0);
+        WordDelta accepted = mClient.push(Collections.singletonList(first)).mDeltas.get(0);
+        assertTrue(accepted.sameStateAs(first));
+        assertEquals(1, accepted.mVersion);
+
+        WordDelta stale = new WordDelta("a1", "Anita", false, 0);
+        WordDelta result = mClient.push(Collections.singletonList(stale)).mDeltas.get(0);
+        assertFalse(result.sameStateAs(stale));
+        assertEquals("Ana", result.mWord);
+        assertEquals(1, result.mVersion);
+    }
+
+    @Test
+    public void pullPagesByVersion() throws IOException {
+        mClient.push(Arrays.asList(new WordDelta("a", "Ana", false, 0),
+                new WordDelta("b", "Bruno", false, 0), new WordDelta("c", "Carla", false, 0)));
+
+        WordSyncCodec.Batch first = mClient.pull(0, 2);
+        assertEquals(2, first.mDeltas.size());
+        assertTrue(first.mHasMore);
+        WordSyncCodec.Batch second = mClient.pull(first.mWatermark, 2);
+        assertEquals("Carla", second.mDeltas.get(0).mWord);
+        assertFalse(second.mHasMore);
+        assertEquals(3, second.mWatermark);
+    }
+
+    @Test(expected = IOException.class)
+    public void serverErrorsAreIOExceptions() throws IOException {
+        mServer.setDispatcher(new QueueDispatcher());
+        mServer.enqueue(new MockResponse().setResponseCode(503));
+        mClient.pull(0, 10);
+    }
+}
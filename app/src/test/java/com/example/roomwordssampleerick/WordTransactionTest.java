@@ -0,0 +1,82 @@
+package com.example.roomwordssampleerick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de cómo se prepara una WordTransaction, sin base de datos.
+ */
+public class WordTransactionTest {
+
+    @Test
+    public void operationsAreNumberedInOrder() {
+        WordTransaction transaction = new WordTransaction();
+        assertEquals(0, transaction.deleteAll());
+        assertEquals(1, transaction.insert(new Word("ana")));
+        assertEquals(2, transaction.savepoint(new WordTransaction.Block() {
+            @Override
+            public void stage(WordTransaction block) {
+                block.insert(new Word("Bruno"));
+                block.delete(new Word(4, "carla"));
+            }
+        }));
+        assertEquals(3, transaction.size());
+        assertEquals(2, transaction.getBlock(2).size());
+        assertEquals(-1, transaction.getId(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void blockCannotBeChangedAfterStaging() {
+        final WordTransaction[] staged = new WordTransaction[1];
+        new WordTransaction().savepoint(new WordTransaction.Block() {
+            @Override
+            public void stage(WordTransaction block) {
+                staged[0] = block;
+            }
+        });
+        staged[0].insert(new Word("ana"));
+    }
+
+    @Test
+    public void deletesAreFoundInBlocks() {
+        WordTransaction transaction = new WordTransaction();
+        transaction.insert(new Word("ana"));
+        assertFalse(transaction.hasDeletes());
+        transaction.savepoint(new WordTransaction.Block() {
+            @Override
+            public void stage(WordTransaction block) {
+                block.delete(new Word(1, "ana"));
+            }
+        });
+        assertTrue(transaction.hasDeletes());
+    }
+
+    @Test
+    public void shardIsFoundOnlyWhenAllWritesShareIt() {
+        int count = 4;
+        int shard = WordShards.shardOf("ana", count);
+        WordTransaction transaction = new WordTransaction();
+        transaction.insert(new Word("ana"));
+        transaction.recordUse(new Word(WordShards.firstId(shard), "ana"));
+        assertEquals(shard, transaction.getShard(count));
+
+        transaction.delete(new Word(WordShards.firstId((shard + 1) % count), "otra"));
+        assertEquals(-1, transaction.getShard(count));
+
+        WordTransaction all = new WordTransaction();
+        all.deleteAll();
+        assertEquals(0, all.getShard(1));
+        assertEquals(-1, all.getShard(count));
+        assertEquals(0, new WordTransaction().getShard(count));
+    }
+
+    @Test
+    public void rollBackClearsTheResults() {
+        WordTransaction transaction = new WordTransaction();
+        transaction.insert(new Word("ana"));
+        transaction.rollBack();
+        assertTrue(transaction.isRolledBack());
+        assertEquals(-1, transaction.getId(0));
+    }
+}